@@ -0,0 +1,54 @@
+package com.acme.ticketing;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the benchmarks once per thread count and writes the results of each run as JSON.
+ *
+ * Arguments: benchmark regex, comma separated thread counts (1, 2, 4, ... up to the processor count by
+ * default), results directory.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        List<Integer> threadCounts = args.length > 1 && !args[1].isEmpty() ? parse(args[1]) : defaultThreadCounts();
+        File resultDirectory = new File(args.length > 2 ? args[2] : "build/reports/jmh");
+        resultDirectory.mkdirs();
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDirectory, "results-" + threads + "t.json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    private static List<Integer> parse(String threadCounts) {
+        List<Integer> counts = new ArrayList<>();
+        for (String count : threadCounts.split(",")) {
+            counts.add(Integer.parseInt(count.trim()));
+        }
+        return counts;
+    }
+
+    private static List<Integer> defaultThreadCounts() {
+        List<Integer> counts = new ArrayList<>();
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads < processors; threads <<= 1) {
+            counts.add(threads);
+        }
+        counts.add(processors);
+        return counts;
+    }
+}
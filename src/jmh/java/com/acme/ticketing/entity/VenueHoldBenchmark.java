@@ -0,0 +1,59 @@
+package com.acme.ticketing.entity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of holding seats in a venue, by venue size, occupancy and seat allocation.
+ *
+ * Occupied seats are picked at random so the free seats are fragmented. Every hold is released right
+ * away, which keeps the occupancy steady across the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VenueHoldBenchmark {
+    @Param({"10x30", "100x100", "500x200"})
+    public String layout;
+
+    @Param({"0", "50", "90"})
+    public int occupancy;
+
+    @Param({"BEST_AVAILABLE", "CONTIGUOUS"})
+    public SeatAllocation allocation;
+
+    @Param({"1", "4"})
+    public int numSeats;
+
+    private Venue venue;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] rowsAndColumns = layout.split("x");
+        int maxRow = Integer.parseInt(rowsAndColumns[0]);
+        int maxColumn = Integer.parseInt(rowsAndColumns[1]);
+        venue = new Venue(maxRow, maxColumn, maxRow / 3, maxRow / 2, maxColumn / 3, 2 * maxColumn / 3, allocation);
+        venue.init();
+
+        List<Seat> seats = new ArrayList<>(venue.holdSeats(venue.getCapacity()));
+        Collections.shuffle(seats, new Random(42));
+        venue.releaseSeats(seats.subList(0, venue.getCapacity() * (100 - occupancy) / 100));
+    }
+
+    @Benchmark
+    public List<Seat> holdAndRelease() {
+        List<Seat> seats = venue.tryHoldSeats(numSeats);
+        if (seats != null) {
+            venue.releaseSeats(seats);
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,71 @@
+package com.acme.ticketing.load;
+
+import com.acme.ticketing.cluster.Cluster;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatAllocation;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.scheduler.TimingWheel;
+import com.acme.ticketing.service.AdmissionController;
+import com.acme.ticketing.service.EngineMode;
+import com.acme.ticketing.service.EventPersistence;
+import com.acme.ticketing.service.ReplicaFollower;
+import com.acme.ticketing.service.TicketService;
+import com.acme.ticketing.service.TicketServiceFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calls a ticket service built in process, the way the application builds it
+ */
+class DirectLoadTarget implements LoadTarget {
+    private final Venue venue;
+    private final TimingWheel timingWheel;
+    private final TicketService ticketService;
+
+    DirectLoadTarget(int maxRow, int maxColumn, SeatAllocation seatAllocation, EngineMode engineMode,
+                     long seatHoldTTL, int admissionMaxInFlight) {
+        venue = new Venue(maxRow, maxColumn, maxRow / 3, maxRow / 2, maxColumn / 3, 2 * maxColumn / 3, seatAllocation);
+        venue.init();
+        timingWheel = new TimingWheel();
+        TicketServiceFactory ticketServiceFactory = new TicketServiceFactory(timingWheel, seatHoldTTL, 0, 0, 0, 0, engineMode, 65536,
+                new AdmissionController(admissionMaxInFlight, 4096, 2000), new EventPersistence(false, null, true, false, null, 0),
+                new Cluster(false, null, new String[0], 1, 1, 0, 0),
+                new ReplicaFollower(false, null, 0, 0));
+        ticketService = ticketServiceFactory.create("load", venue);
+    }
+
+    @Override
+    public Hold hold(int numSeats, String customerEmail) {
+        SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, customerEmail);
+        if (seatHold == null) {
+            return null;
+        }
+        List<String> seats = new ArrayList<>(seatHold.getSeats().size());
+        for (Seat seat : seatHold.getSeats()) {
+            seats.add(seat.getRow() + ":" + seat.getColumn());
+        }
+        return new Hold(seatHold.getId(), seats);
+    }
+
+    @Override
+    public String reserve(int seatHoldId, String customerEmail) {
+        return ticketService.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    @Override
+    public int count() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    @Override
+    public int capacity() {
+        return venue.getCapacity();
+    }
+
+    @Override
+    public void close() {
+        timingWheel.stop();
+    }
+}
@@ -0,0 +1,87 @@
+package com.acme.ticketing.load;
+
+import com.acme.Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calls the ticketing endpoints of the application, started on an embedded server on a free port
+ */
+class HttpLoadTarget implements LoadTarget {
+    private final ConfigurableApplicationContext context;
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final String baseUrl;
+    private final int capacity;
+
+    HttpLoadTarget(int maxRow, int maxColumn, String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--venue.maxRow=" + maxRow);
+        args.add("--venue.maxColumn=" + maxColumn);
+        args.add("--venue.bestRow.start=" + maxRow / 3);
+        args.add("--venue.bestRow.end=" + maxRow / 2);
+        args.add("--venue.bestColumn.start=" + maxColumn / 3);
+        args.add("--venue.bestColumn.end=" + 2 * maxColumn / 3);
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        context = SpringApplication.run(Application.class, args.toArray(new String[args.size()]));
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/ticketing";
+        capacity = maxRow * maxColumn;
+    }
+
+    @Override
+    public Hold hold(int numSeats, String customerEmail) {
+        JsonNode seatHold;
+        try {
+            seatHold = restTemplate.postForObject(baseUrl + "/seats/hold?numOfSeats={numSeats}&customerEmail={email}",
+                    null, JsonNode.class, numSeats, customerEmail);
+        } catch (HttpClientErrorException ex) {
+            if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return null;
+            }
+            throw ex;
+        }
+        List<String> seats = new ArrayList<>(numSeats);
+        for (JsonNode seat : seatHold.get("seats")) {
+            seats.add(seat.get("row").asInt() + ":" + seat.get("column").asInt());
+        }
+        return new Hold(seatHold.get("id").asInt(), seats);
+    }
+
+    @Override
+    public String reserve(int seatHoldId, String customerEmail) {
+        try {
+            JsonNode reservation = restTemplate.postForObject(baseUrl + "/seats/reserve?seatHoldId={id}&customerEmail={email}",
+                    null, JsonNode.class, seatHoldId, customerEmail);
+            return reservation.get("confirmation").asText();
+        } catch (HttpClientErrorException ex) {
+            if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return null;
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public int count() {
+        return restTemplate.getForObject(baseUrl + "/seats/count", JsonNode.class).get("seatCount").asInt();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,47 @@
+package com.acme.ticketing.load;
+
+import java.util.List;
+
+/**
+ * The ticket service under load, called in process or over HTTP
+ */
+interface LoadTarget extends AutoCloseable {
+    /**
+     * @return the hold, null if there are not enough seats
+     */
+    Hold hold(int numSeats, String customerEmail);
+
+    /**
+     * @return the confirmation code, null if the hold was not found or has expired
+     */
+    String reserve(int seatHoldId, String customerEmail);
+
+    int count();
+
+    int capacity();
+
+    /**
+     * release the resources of the target, without blocking
+     */
+    @Override
+    void close();
+
+    final class Hold {
+        private final int id;
+        // "row:column" of every seat held
+        private final List<String> seats;
+
+        Hold(int id, List<String> seats) {
+            this.id = id;
+            this.seats = seats;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        List<String> getSeats() {
+            return seats;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.acme.ticketing.load;
+
+import com.acme.ticketing.entity.SeatAllocation;
+import com.acme.ticketing.service.EngineMode;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load driver for an on-sale: a burst of holds at a fixed rate, a fraction of them reserved
+ * after a think time, the rest left to expire, and seat counts polled alongside.
+ *
+ * Requests are sent on schedule whether or not earlier ones have completed, and latencies are measured
+ * from the scheduled time, so time spent queueing behind a slow service is counted. At the end the seats
+ * sold are checked for double sales and, once the holds left have expired, the seats available are
+ * checked against the seats sold.
+ *
+ * Arguments are key=value pairs, see {@link #DEFAULTS}, for instance: target=http rate=5000 duration=30
+ */
+public class OnSaleLoadGenerator {
+    private static final Map<String, String> DEFAULTS = new HashMap<>();
+
+    static {
+        // direct calls the ticket service in process, http calls the endpoints of an embedded server
+        DEFAULTS.put("target", "direct");
+        DEFAULTS.put("rows", "100");
+        DEFAULTS.put("columns", "100");
+        DEFAULTS.put("allocation", "CONTIGUOUS");
+        DEFAULTS.put("engine", "CONCURRENT");
+        DEFAULTS.put("admission", "256");
+        // hold TTL in seconds
+        DEFAULTS.put("ttl", "2");
+        // holds per second and seconds of load
+        DEFAULTS.put("rate", "2000");
+        DEFAULTS.put("duration", "10");
+        // seat counts per second
+        DEFAULTS.put("countRate", "100");
+        DEFAULTS.put("reserveRatio", "0.3");
+        DEFAULTS.put("thinkMillis", "200");
+        DEFAULTS.put("maxSeats", "4");
+        DEFAULTS.put("threads", "64");
+        DEFAULTS.put("seed", "42");
+    }
+
+    private final LoadTarget target;
+    private final Map<String, String> options;
+    private final OperationStats holds = new OperationStats("hold");
+    private final OperationStats reserves = new OperationStats("reserve");
+    private final OperationStats counts = new OperationStats("count");
+    private final Set<String> seatsSold = ConcurrentHashMap.newKeySet();
+    private final LongAdder seatsSoldTwice = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    OnSaleLoadGenerator(LoadTarget target, Map<String, String> options) {
+        this.target = target;
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] keyAndValue = arg.split("=", 2);
+            if (keyAndValue.length != 2 || !DEFAULTS.containsKey(keyAndValue[0])) {
+                System.err.println("Unknown option " + arg + ", options and defaults: " + DEFAULTS);
+                System.exit(2);
+            }
+            options.put(keyAndValue[0], keyAndValue[1]);
+        }
+
+        boolean passed;
+        try (LoadTarget target = createTarget(options)) {
+            passed = new OnSaleLoadGenerator(target, options).run(System.out);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static LoadTarget createTarget(Map<String, String> options) {
+        int maxRow = Integer.parseInt(options.get("rows"));
+        int maxColumn = Integer.parseInt(options.get("columns"));
+        if ("http".equals(options.get("target"))) {
+            System.setProperty("http.maxConnections", options.get("threads"));
+            return new HttpLoadTarget(maxRow, maxColumn,
+                    "venue.seatAllocation=" + options.get("allocation"),
+                    "ticketing.engine.mode=" + options.get("engine"),
+                    "admission.maxInFlight=" + options.get("admission"),
+                    "order.hold.ttl=" + options.get("ttl"));
+        }
+        return new DirectLoadTarget(maxRow, maxColumn,
+                SeatAllocation.valueOf(options.get("allocation")),
+                EngineMode.valueOf(options.get("engine")),
+                Long.parseLong(options.get("ttl")),
+                Integer.parseInt(options.get("admission")));
+    }
+
+    /**
+     * Run the load and print the report
+     *
+     * @return true if the seat checks passed
+     */
+    boolean run(PrintStream out) throws InterruptedException {
+        double rate = Double.parseDouble(options.get("rate"));
+        double countRate = Double.parseDouble(options.get("countRate"));
+        double reserveRatio = Double.parseDouble(options.get("reserveRatio"));
+        long thinkMillis = Long.parseLong(options.get("thinkMillis"));
+        int maxSeats = Integer.parseInt(options.get("maxSeats"));
+        Random random = new Random(Long.parseLong(options.get("seed")));
+
+        ExecutorService workers = Executors.newFixedThreadPool(Integer.parseInt(options.get("threads")));
+        ScheduledExecutorService thinkTimer = Executors.newSingleThreadScheduledExecutor();
+
+        long holdInterval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long countInterval = countRate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / countRate) : Long.MAX_VALUE;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+        long nextHold = start;
+        long nextCount = start;
+        int customer = 0;
+        while (Math.min(nextHold, nextCount) < end) {
+            long next = Math.min(nextHold, nextCount);
+            for (long now = System.nanoTime(); now < next; now = System.nanoTime()) {
+                LockSupport.parkNanos(next - now);
+            }
+            if (nextHold <= nextCount) {
+                long scheduled = nextHold;
+                String customerEmail = "customer" + customer++ + "@acme.com";
+                int numSeats = 1 + random.nextInt(maxSeats);
+                long reserveAfter = random.nextDouble() < reserveRatio ? thinkMillis : -1;
+                submit(workers, () -> hold(scheduled, numSeats, customerEmail, reserveAfter, workers, thinkTimer));
+                nextHold += holdInterval;
+            } else {
+                long scheduled = nextCount;
+                submit(workers, () -> count(scheduled));
+                nextCount += countInterval;
+            }
+        }
+
+        while (pending.get() > 0) {
+            Thread.sleep(10);
+        }
+        long elapsed = System.nanoTime() - start;
+        workers.shutdown();
+        thinkTimer.shutdown();
+
+        return report(out, elapsed, rate);
+    }
+
+    private void submit(ExecutorService workers, Runnable request) {
+        pending.incrementAndGet();
+        workers.execute(() -> {
+            try {
+                request.run();
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    private void hold(long scheduled, int numSeats, String customerEmail, long reserveAfter,
+                      ExecutorService workers, ScheduledExecutorService thinkTimer) {
+        LoadTarget.Hold hold;
+        try {
+            hold = target.hold(numSeats, customerEmail);
+        } catch (RuntimeException ex) {
+            holds.failed(scheduled);
+            return;
+        }
+        if (hold == null) {
+            holds.empty(scheduled);
+            return;
+        }
+        holds.succeeded(scheduled);
+        if (reserveAfter >= 0) {
+            long reserveScheduled = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(reserveAfter);
+            pending.incrementAndGet();
+            thinkTimer.schedule(() -> {
+                submit(workers, () -> reserve(reserveScheduled, hold, customerEmail));
+                pending.decrementAndGet();
+            }, reserveAfter, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reserve(long scheduled, LoadTarget.Hold hold, String customerEmail) {
+        String confirmation;
+        try {
+            confirmation = target.reserve(hold.getId(), customerEmail);
+        } catch (RuntimeException ex) {
+            reserves.failed(scheduled);
+            return;
+        }
+        if (confirmation == null) {
+            reserves.empty(scheduled);
+            return;
+        }
+        reserves.succeeded(scheduled);
+        for (String seat : hold.getSeats()) {
+            if (!seatsSold.add(seat)) {
+                seatsSoldTwice.increment();
+            }
+        }
+    }
+
+    private void count(long scheduled) {
+        try {
+            target.count();
+            counts.succeeded(scheduled);
+        } catch (RuntimeException ex) {
+            counts.failed(scheduled);
+        }
+    }
+
+    private boolean report(PrintStream out, long elapsed, double rate) throws InterruptedException {
+        double seconds = (double) elapsed / TimeUnit.SECONDS.toNanos(1);
+        out.printf("%nOn-sale load against %s target, %.0f holds/s offered, %.1fs%n%n", options.get("target"), rate, seconds);
+        out.printf("%-8s %9s %9s %9s %9s %10s %10s %10s %10s %10s%n",
+                "", "requests", "ok", "empty", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (OperationStats stats : new OperationStats[]{holds, reserves, counts}) {
+            stats.print(out, seconds);
+        }
+
+        // holds not reserved expire after their TTL, wait for the seats to come back
+        int capacity = target.capacity();
+        int expectedAvailable = capacity - seatsSold.size();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("ttl")) + 5);
+        int available = target.count();
+        while (available != expectedAvailable && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            available = target.count();
+        }
+
+        boolean noDoubleSale = seatsSoldTwice.sum() == 0 && seatsSold.size() <= capacity;
+        boolean countsMatch = available == expectedAvailable;
+        out.printf("%nSeats: capacity %d, sold %d, available %d, expected available %d%n",
+                capacity, seatsSold.size(), available, expectedAvailable);
+        out.printf("Oversell check:  %s (%d seat(s) sold twice)%n", noDoubleSale ? "PASS" : "FAIL", seatsSoldTwice.sum());
+        out.printf("Undersell check: %s%s%n", countsMatch ? "PASS" : "FAIL",
+                available < expectedAvailable ? " (" + (expectedAvailable - available) + " seat(s) never released)" :
+                available > expectedAvailable ? " (" + (available - expectedAvailable) + " sold seat(s) still available)" : "");
+        return noDoubleSale && countsMatch;
+    }
+
+    private static final class OperationStats {
+        private final String name;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder empty = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private OperationStats(String name) {
+            this.name = name;
+        }
+
+        private void succeeded(long scheduled) {
+            latencies.record(System.nanoTime() - scheduled);
+            succeeded.increment();
+        }
+
+        // not enough seats for a hold, hold not found or expired for a reservation
+        private void empty(long scheduled) {
+            latencies.record(System.nanoTime() - scheduled);
+            empty.increment();
+        }
+
+        private void failed(long scheduled) {
+            latencies.record(System.nanoTime() - scheduled);
+            failed.increment();
+        }
+
+        private void print(PrintStream out, double seconds) {
+            out.printf("%-8s %9d %9d %9d %9d %10.0f %10.2f %10.2f %10.2f %10d%n", name, latencies.getCount(),
+                    succeeded.sum(), empty.sum(), failed.sum(), latencies.getCount() / seconds,
+                    latencies.getPercentile(50, TimeUnit.MICROSECONDS) / 1000,
+                    latencies.getPercentile(99, TimeUnit.MICROSECONDS) / 1000,
+                    latencies.getPercentile(99.9, TimeUnit.MICROSECONDS) / 1000,
+                    latencies.getMax(TimeUnit.MILLISECONDS));
+        }
+    }
+}
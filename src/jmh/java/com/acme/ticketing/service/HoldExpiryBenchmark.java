@@ -0,0 +1,75 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.SeatAllocation;
+import com.acme.ticketing.entity.SeatHoldOrder;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.scheduler.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of an expiry storm, a large number of holds expiring at once, released in one batch as the timing
+ * wheel does or one hold at a time.
+ *
+ * The expirations are applied directly instead of waiting for the timing wheel, so only the release path
+ * is measured. Every thread expires the holds of its own venue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HoldExpiryBenchmark {
+    private static final String EMAIL = "benchmark@acme.com";
+    private static final int MAX_COLUMN = 100;
+    private static final int NUM_SEATS = 4;
+
+    @Param({"1000", "10000"})
+    public int numHolds;
+
+    @Param({"true", "false"})
+    public boolean batched;
+
+    @Param({"BEST_AVAILABLE", "CONTIGUOUS"})
+    public SeatAllocation allocation;
+
+    private TimingWheel timingWheel;
+    private TicketServiceImpl ticketService;
+    private List<SeatHoldOrder> expiredOrders;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        int maxRow = numHolds * NUM_SEATS / MAX_COLUMN + 1;
+        Venue venue = new Venue(maxRow, MAX_COLUMN, maxRow / 3, maxRow / 2, MAX_COLUMN / 3, 2 * MAX_COLUMN / 3, allocation);
+        venue.init();
+
+        timingWheel = new TimingWheel();
+        ticketService = new TicketServiceImpl(venue, timingWheel, 3600);
+        for (int i = 0; i < numHolds; i++) {
+            ticketService.findAndHoldSeats(NUM_SEATS, EMAIL);
+        }
+        expiredOrders = new ArrayList<>(ticketService.seatHoldOrderById.values());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Benchmark
+    public int expire() {
+        if (batched) {
+            ticketService.expireSeatHolds(expiredOrders);
+        } else {
+            for (SeatHoldOrder seatHoldOrder : expiredOrders) {
+                ticketService.expireSeatHolds(Collections.singletonList(seatHoldOrder));
+            }
+        }
+        return ticketService.numSeatsAvailable();
+    }
+}
@@ -0,0 +1,86 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.SeatAllocation;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.scheduler.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the booking paths of the ticket service, by engine mode and seat allocation.
+ *
+ * Holds sell out the venue, so every iteration is a fixed batch of bookings per thread against a fresh
+ * venue sized to fit them. Run with several thread counts to see how the paths scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = TicketServiceBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = TicketServiceBenchmark.BATCH_SIZE)
+@Fork(1)
+public class TicketServiceBenchmark {
+    static final int BATCH_SIZE = 5000;
+
+    private static final String EMAIL = "benchmark@acme.com";
+    private static final int MAX_COLUMN = 100;
+
+    @Param({"CONCURRENT", "SEQUENCED"})
+    public EngineMode engineMode;
+
+    @Param({"BEST_AVAILABLE", "CONTIGUOUS"})
+    public SeatAllocation allocation;
+
+    @Param({"1", "4"})
+    public int numSeats;
+
+    private TimingWheel timingWheel;
+    private TicketService ticketService;
+
+    @Setup(Level.Trial)
+    public void startTimingWheel() {
+        timingWheel = new TimingWheel();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopTimingWheel() {
+        timingWheel.stop();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup(BenchmarkParams params) {
+        int seatsNeeded = params.getThreads() * BATCH_SIZE * numSeats;
+        int maxRow = seatsNeeded / MAX_COLUMN + 1;
+        Venue venue = new Venue(maxRow, MAX_COLUMN, maxRow / 3, maxRow / 2, MAX_COLUMN / 3, 2 * MAX_COLUMN / 3, allocation);
+        venue.init();
+
+        TicketServiceImpl ticketServiceImpl = new TicketServiceImpl(venue, timingWheel, 3600);
+        ticketService = engineMode == EngineMode.SEQUENCED ?
+                new SequencedTicketService(ticketServiceImpl, 65536, "benchmark-engine") : ticketServiceImpl;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (ticketService instanceof SequencedTicketService) {
+            ((SequencedTicketService) ticketService).stop();
+        }
+    }
+
+    @Benchmark
+    public SeatHold hold() {
+        return ticketService.findAndHoldSeats(numSeats, EMAIL);
+    }
+
+    @Benchmark
+    public String holdAndReserve() {
+        SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, EMAIL);
+        return ticketService.reserveSeats(seatHold.getId(), EMAIL);
+    }
+
+    @Benchmark
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+}
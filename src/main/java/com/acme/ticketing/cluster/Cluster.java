@@ -0,0 +1,184 @@
+package com.acme.ticketing.cluster;
+
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.scheduler.TimingWheel;
+import com.acme.ticketing.service.TicketServiceImpl;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Membership of this node in a static cluster, with {@code cluster.enabled=true}.
+ *
+ * Every node is configured with the same {@code cluster.nodes} list and places the partitions of every
+ * event on a {@link ConsistentHashRing} of those nodes, so all nodes agree on the owner of each partition
+ * without any coordination service. A node sells the partitions it owns and coordinates the holds it
+ * receives, see {@link ClusteredTicketService}. Events must be created on every node, each node then
+ * creates the partitions it owns.
+ */
+@Component
+public class Cluster {
+    private static final String INVALID_NODES = "Invalid cluster.nodes, please list the nodes as id=url,id=url";
+    private static final String UNKNOWN_NODE = "Invalid cluster.nodeId %s, should be one of cluster.nodes";
+
+    private static final Logger LOG = LoggerFactory.getLogger(Cluster.class);
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final int nodeIndex;
+    private final List<ClusterNode> nodes;
+    private final LocalClusterNode localNode;
+    private final ConsistentHashRing ring;
+    private final Map<String, ClusterNode> nodeById;
+    private final int partitions;
+    private final long holdGraceSeconds;
+    // releases of expired holds call other nodes, off the timing wheel thread
+    private final Executor releaseExecutor;
+
+    @Autowired
+    public Cluster(@Value("${cluster.enabled:false}") boolean enabled,
+                   @Value("${cluster.nodeId:}") String nodeId,
+                   @Value("${cluster.nodes:}") String[] nodes,
+                   @Value("${cluster.partitions:8}") int partitions,
+                   @Value("${cluster.virtualNodes:64}") int virtualNodes,
+                   @Value("${cluster.timeoutMillis:2000}") int timeoutMillis,
+                   @Value("${cluster.holdGraceSeconds:30}") long holdGraceSeconds) {
+        this(enabled, nodeId, enabled ? parseNodes(nodeId, nodes, timeoutMillis) : Collections.emptyMap(),
+                partitions, virtualNodes, holdGraceSeconds);
+    }
+
+    /**
+     * Join a cluster whose nodes are given, such as several nodes in one process
+     *
+     * @param nodeId           the identifier of this node
+     * @param nodes            the nodes by identifier, in the same order on every node, this node being
+     *                         a {@link LocalClusterNode}
+     * @param partitions       the partitions of the venue of an event
+     * @param virtualNodes     the points of each node on the hash ring
+     * @param holdGraceSeconds the time the partitions keep a hold after the hold expired on its coordinator
+     */
+    public Cluster(String nodeId, Map<String, ClusterNode> nodes, int partitions, int virtualNodes,
+                   long holdGraceSeconds) {
+        this(true, nodeId, nodes, partitions, virtualNodes, holdGraceSeconds);
+    }
+
+    private Cluster(boolean enabled, String nodeId, Map<String, ClusterNode> nodes, int partitions,
+                    int virtualNodes, long holdGraceSeconds) {
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.nodeById = nodes;
+        this.nodes = new ArrayList<>(nodes.values());
+        this.partitions = partitions;
+        this.holdGraceSeconds = holdGraceSeconds;
+        if (!enabled) {
+            this.nodeIndex = 0;
+            this.localNode = null;
+            this.ring = null;
+            this.releaseExecutor = null;
+            return;
+        }
+
+        Preconditions.checkArgument(nodes.get(nodeId) instanceof LocalClusterNode, UNKNOWN_NODE, nodeId);
+        Preconditions.checkArgument(partitions > 0, "Invalid cluster.partitions, should be a positive number");
+        this.nodeIndex = new ArrayList<>(nodes.keySet()).indexOf(nodeId);
+        this.localNode = (LocalClusterNode) nodes.get(nodeId);
+        this.ring = new ConsistentHashRing(nodes.keySet(), virtualNodes);
+        this.releaseExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-release-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOG.info("Cluster node {} started, members {}", nodeId, nodes.keySet());
+    }
+
+    private static Map<String, ClusterNode> parseNodes(String nodeId, String[] nodes, int timeoutMillis) {
+        Map<String, ClusterNode> nodeById = new LinkedHashMap<>();
+        for (String node : nodes) {
+            String[] idAndUrl = node.trim().split("=", 2);
+            Preconditions.checkArgument(idAndUrl.length == 2 && !idAndUrl[0].isEmpty(), INVALID_NODES);
+            String id = idAndUrl[0].trim();
+            nodeById.put(id, id.equals(nodeId) ? new LocalClusterNode() :
+                    new HttpClusterNode(id, idAndUrl[1].trim(), timeoutMillis));
+        }
+        return nodeById;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Create the partitions of an event owned by this node, and the service coordinating the event
+     *
+     * @param eventId     the event identifier
+     * @param layout      the venue of the event, initialized, only its layout is used
+     * @param timingWheel the wheel expiring the holds
+     * @param seatHoldTTL the hold TTL in seconds
+     * @return the ticket service of the event on this node
+     */
+    public ClusteredTicketService join(String eventId, Venue layout, TimingWheel timingWheel, long seatHoldTTL) {
+        Preconditions.checkState(enabled, "Clustering is not enabled");
+        List<Partition> split = Partition.split(eventId, layout, partitions);
+        List<ClusterNode> owners = new ArrayList<>(split.size());
+        for (Partition partition : split) {
+            String owner = ring.nodeFor(partition.getKey());
+            if (owner.equals(nodeId)) {
+                localNode.addPartition(partition, new TicketServiceImpl(partition.createVenue(layout), timingWheel,
+                        seatHoldTTL + holdGraceSeconds));
+                LOG.info("Partition {} of event {}, rows {} to {}, owned by this node", partition.getIndex(),
+                        eventId, partition.getRowStart(), partition.getRowEnd() - 1);
+            }
+            owners.add(nodeById.get(owner));
+        }
+
+        ClusteredTicketService ticketService = new ClusteredTicketService(eventId, layout, split, owners, this,
+                timingWheel, seatHoldTTL);
+        localNode.addCoordinator(eventId, ticketService);
+        return ticketService;
+    }
+
+    LocalClusterNode getLocalNode() {
+        return localNode;
+    }
+
+    List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return a hold identifier coordinated by this node, unique in the cluster
+     */
+    int toSeatHoldId(int sequence) {
+        return sequence * nodes.size() + nodeIndex;
+    }
+
+    /**
+     * @return the node coordinating a hold
+     */
+    ClusterNode coordinatorOf(int seatHoldId) {
+        return nodes.get(Math.floorMod(seatHoldId, nodes.size()));
+    }
+
+    Executor getReleaseExecutor() {
+        return releaseExecutor;
+    }
+
+    long getHoldGraceSeconds() {
+        return holdGraceSeconds;
+    }
+}
@@ -0,0 +1,74 @@
+package com.acme.ticketing.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Endpoints the other nodes of the cluster call, served by the partitions and the coordinated holds of
+ * this node. Only exposed with {@code cluster.enabled=true}.
+ */
+@RestController
+@RequestMapping("/cluster/events/{eventId}")
+@ConditionalOnProperty("cluster.enabled")
+public class ClusterController {
+    private final LocalClusterNode localNode;
+
+    @Autowired
+    public ClusterController(Cluster cluster) {
+        this.localNode = cluster.getLocalNode();
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/partitions/{partition}/hold")
+    public PartitionSeats hold(@PathVariable String eventId, @PathVariable int partition,
+                               @RequestParam int numSeats, @RequestParam String customerEmail) {
+        return localNode.hold(eventId, partition, numSeats, customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/partitions/{partition}/release")
+    public boolean release(@PathVariable String eventId, @PathVariable int partition,
+                           @RequestParam int seatHoldId, @RequestParam String customerEmail) {
+        return localNode.release(eventId, partition, seatHoldId, customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/partitions/{partition}/reserve")
+    public boolean reserve(@PathVariable String eventId, @PathVariable int partition,
+                           @RequestParam int seatHoldId, @RequestParam String customerEmail,
+                           @RequestParam String confirmation) {
+        return localNode.reserve(eventId, partition, seatHoldId, customerEmail, confirmation);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/partitions/{partition}/counts")
+    public int[] seatCounts(@PathVariable String eventId, @PathVariable int partition) {
+        return localNode.getSeatCounts(eventId, partition);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/partitions/{partition}/map")
+    public PartitionSeatMap seatMap(@PathVariable String eventId, @PathVariable int partition) {
+        return localNode.getSeatMap(eventId, partition);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/partitions/{partition}/reservations")
+    public List<PartitionSeats> findReservations(@PathVariable String eventId, @PathVariable int partition,
+                                                 @RequestParam(required = false) String confirmation,
+                                                 @RequestParam(required = false) String customerEmail) {
+        return localNode.findReservations(eventId, partition, confirmation, customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/holds/{seatHoldId}/reserve")
+    public String reserveClusterHold(@PathVariable String eventId, @PathVariable int seatHoldId,
+                                     @RequestParam String customerEmail) {
+        return localNode.reserveClusterHold(eventId, seatHoldId, customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/holds")
+    public List<PartitionSeats> findClusterHolds(@PathVariable String eventId, @RequestParam String customerEmail) {
+        return localNode.findClusterHolds(eventId, customerEmail);
+    }
+}
@@ -0,0 +1,61 @@
+package com.acme.ticketing.cluster;
+
+import java.util.List;
+
+/**
+ * The operations a node of the cluster serves to the others: the inventory of the partitions it owns,
+ * and the holds it coordinates. Implemented in process by {@link LocalClusterNode} and over HTTP by
+ * {@link HttpClusterNode}.
+ *
+ * Failures to reach a node are thrown as {@link com.acme.ticketing.exception.TicketSystemBusyException},
+ * a partition the node does not own as {@link com.acme.ticketing.exception.EventNotFoundException}.
+ */
+public interface ClusterNode {
+    /**
+     * Prepare: hold the best seats available in a partition
+     *
+     * @return the seats held under a hold of the partition, null if not enough seats are available
+     */
+    PartitionSeats hold(String eventId, int partition, int numSeats, String customerEmail);
+
+    /**
+     * Abort: release a hold of a partition
+     *
+     * @return false if the hold was not found, reserved or expired already
+     */
+    boolean release(String eventId, int partition, int seatHoldId, String customerEmail);
+
+    /**
+     * Commit: sell the seats of a hold of a partition
+     *
+     * @param confirmation the confirmation code shared by every partition of the reservation
+     * @return false if the hold was not found or expired already
+     */
+    boolean reserve(String eventId, int partition, int seatHoldId, String customerEmail, String confirmation);
+
+    /**
+     * @return the seat counts of a partition, as {@link com.acme.ticketing.entity.SeatCounts#toArray()}
+     */
+    int[] getSeatCounts(String eventId, int partition);
+
+    PartitionSeatMap getSeatMap(String eventId, int partition);
+
+    /**
+     * @param confirmation  the confirmation code, or null to find the reservations of a customer
+     * @param customerEmail the customer, used when no confirmation code is given
+     * @return the seats of the reservations found in a partition
+     */
+    List<PartitionSeats> findReservations(String eventId, int partition, String confirmation, String customerEmail);
+
+    /**
+     * Reserve a hold coordinated by this node
+     *
+     * @return the confirmation code, null if the hold was not found or expired already
+     */
+    String reserveClusterHold(String eventId, int seatHoldId, String customerEmail);
+
+    /**
+     * @return the open holds of a customer coordinated by this node, oldest first
+     */
+    List<PartitionSeats> findClusterHolds(String eventId, String customerEmail);
+}
@@ -0,0 +1,439 @@
+package com.acme.ticketing.cluster;
+
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatCounts;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.scheduler.TimingWheel;
+import com.acme.ticketing.scheduler.Timeout;
+import com.acme.ticketing.service.InventoryListener;
+import com.acme.ticketing.service.TicketService;
+import com.acme.ticketing.service.TicketServiceImpl;
+import com.google.common.collect.Maps;
+import org.apache.commons.validator.routines.EmailValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Ticket service of an event whose venue is partitioned by row range across the nodes of the cluster.
+ *
+ * A hold goes to the best partition with enough seats available. A hold no partition can serve alone is
+ * split in two phases: each part is held in its partition (prepare), and if any part fails the parts held
+ * are released (abort), else the hold is opened on this node, its coordinator (commit). The coordinator
+ * expires the hold and reserves it by selling every part under one confirmation code; the partitions keep
+ * their parts {@code cluster.holdGraceSeconds} longer, so a part is never released before its coordinator
+ * has decided. A part whose partition fails to reserve it is tried again for half the grace period, and the
+ * confirmation code is only returned once every part is sold. A reservation sent to another node is
+ * forwarded to the coordinator, found from the hold identifier.
+ *
+ * Counts, seat maps and reservations are gathered from every partition, seat maps are always full.
+ */
+public class ClusteredTicketService implements TicketService {
+    private static final String INVALID_SEAT_INPUT = "Invalid seat count, please provide a number between %s and %s";
+    private static final String INVALID_EMAIL_INPUT = "Invalid email";
+    private static final String INVALID_BATCH_INPUT = "Invalid batch size, please provide between 1 and %s hold requests";
+    private static final String INVALID_HOLD_REQUEST = "Invalid hold request";
+    private static final String NOT_ENOUGH_SEATS = "Not enough seats available, please try another showtime";
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final long RESERVE_RETRY_MILLIS = 100;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusteredTicketService.class);
+
+    private final String eventId;
+    private final Venue layout;
+    // best partitions first, with their owners at the same index
+    private final List<Partition> partitions;
+    private final List<ClusterNode> owners;
+    private final Cluster cluster;
+    private final TimingWheel timingWheel;
+    private final long seatHoldTTL;
+    private final Map<Integer, ClusterHold> clusterHolds = Maps.newConcurrentMap();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final Consumer<List<ClusterHold>> expiryHandler;
+
+    ClusteredTicketService(String eventId, Venue layout, List<Partition> partitions, List<ClusterNode> owners,
+                           Cluster cluster, TimingWheel timingWheel, long seatHoldTTL) {
+        this.eventId = eventId;
+        this.layout = layout;
+        this.partitions = partitions;
+        this.owners = owners;
+        this.cluster = cluster;
+        this.timingWheel = timingWheel;
+        this.seatHoldTTL = seatHoldTTL;
+        this.expiryHandler = expiredHolds -> cluster.getReleaseExecutor().execute(() -> expire(expiredHolds));
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return getSeatCounts().getAvailable();
+    }
+
+    /**
+     * The seat counts of every partition added up, each partition read at its own instant
+     */
+    @Override
+    public SeatCounts getSeatCounts() {
+        SeatCounts seatCounts = null;
+        for (int i = 0; i < partitions.size(); i++) {
+            SeatCounts partitionCounts = SeatCounts.of(owners.get(i).getSeatCounts(eventId, partitions.get(i).getIndex()));
+            seatCounts = seatCounts == null ? partitionCounts : seatCounts.plus(partitionCounts);
+        }
+        return seatCounts;
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        LOG.info("Finding and holding {} seats for customer {} in the cluster", numSeats, customerEmail);
+
+        if (numSeats <= 0 || numSeats > layout.getCapacity()) {
+            throw new BookingValidationException(String.format(INVALID_SEAT_INPUT, 1, layout.getCapacity()));
+        }
+        validateCustomerEmail(customerEmail);
+
+        int[] available = new int[partitions.size()];
+        for (int i = 0; i < partitions.size(); i++) {
+            available[i] = SeatCounts.of(owners.get(i).getSeatCounts(eventId, partitions.get(i).getIndex()))
+                    .getAvailable();
+        }
+
+        // the best partition with room holds all the seats, in one call and keeping them together
+        for (int i = 0; i < partitions.size(); i++) {
+            if (available[i] >= numSeats) {
+                PartitionSeats seats = owners.get(i).hold(eventId, partitions.get(i).getIndex(), numSeats, customerEmail);
+                if (seats != null) {
+                    return commit(customerEmail, Arrays.asList(new Part(i, seats)));
+                }
+            }
+        }
+
+        // prepare a part in each partition while seats last, abort them all if one fails
+        List<Part> prepared = new ArrayList<>();
+        int remaining = numSeats;
+        try {
+            for (int i = 0; i < partitions.size() && remaining > 0; i++) {
+                int numPartSeats = Math.min(remaining, available[i]);
+                if (numPartSeats == 0) {
+                    continue;
+                }
+                PartitionSeats seats = owners.get(i).hold(eventId, partitions.get(i).getIndex(), numPartSeats,
+                        customerEmail);
+                if (seats == null) {
+                    break;
+                }
+                prepared.add(new Part(i, seats));
+                remaining -= numPartSeats;
+            }
+        } catch (RuntimeException ex) {
+            abort(prepared, customerEmail);
+            throw ex;
+        }
+        if (remaining > 0) {
+            abort(prepared, customerEmail);
+            LOG.warn(NOT_ENOUGH_SEATS);
+            return null;
+        }
+        return commit(customerEmail, prepared);
+    }
+
+    /**
+     * Hold seats for several customers, one after another, requests are served in order while seats last
+     */
+    @Override
+    public List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests) {
+        if (holdRequests == null || holdRequests.isEmpty() || holdRequests.size() > MAX_BATCH_SIZE) {
+            throw new BookingValidationException(String.format(INVALID_BATCH_INPUT, MAX_BATCH_SIZE));
+        }
+
+        List<HoldResult> holdResults = new ArrayList<>(holdRequests.size());
+        for (HoldRequest holdRequest : holdRequests) {
+            if (holdRequest == null) {
+                holdResults.add(HoldResult.invalid(INVALID_HOLD_REQUEST));
+                continue;
+            }
+            try {
+                SeatHold seatHold = findAndHoldSeats(holdRequest.getNumSeats(), holdRequest.getCustomerEmail());
+                holdResults.add(seatHold != null ? HoldResult.held(seatHold) : HoldResult.failed(NOT_ENOUGH_SEATS));
+            } catch (BookingValidationException ex) {
+                holdResults.add(HoldResult.invalid(ex.getMessage()));
+            }
+        }
+        return holdResults;
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        LOG.info("Reserving seat(s) for id {}, customer: {} in the cluster", seatHoldId, customerEmail);
+
+        validateCustomerEmail(customerEmail);
+        ClusterNode coordinator = cluster.coordinatorOf(seatHoldId);
+        if (coordinator != cluster.getLocalNode()) {
+            return coordinator.reserveClusterHold(eventId, seatHoldId, customerEmail);
+        }
+
+        ClusterHold clusterHold = clusterHolds.get(seatHoldId);
+        if (clusterHold == null || !clusterHold.customerEmail.equalsIgnoreCase(customerEmail)) {
+            return null;
+        }
+        // only one of expiry and reservation can win the hold
+        if (!clusterHold.cancelTimer()) {
+            return null;
+        }
+        clusterHolds.remove(seatHoldId, clusterHold);
+
+        String confirmation = UUID.randomUUID().toString();
+        // the partitions keep their parts at least the grace period from now, time enough to retry a part
+        long deadline = System.currentTimeMillis() + cluster.getHoldGraceSeconds() * 1000 / 2;
+        List<Part> failed = new ArrayList<>();
+        int reserved = 0;
+        for (Part part : clusterHold.parts) {
+            try {
+                if (reserve(part, clusterHold.customerEmail, confirmation)) {
+                    reserved++;
+                }
+            } catch (RuntimeException ex) {
+                LOG.warn("Failed to reserve part of hold {} in partition {}: {}", seatHoldId,
+                        partitions.get(part.partition).getIndex(), ex.getMessage());
+                failed.add(part);
+            }
+        }
+        while (!failed.isEmpty() && System.currentTimeMillis() + RESERVE_RETRY_MILLIS < deadline) {
+            try {
+                Thread.sleep(RESERVE_RETRY_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            for (Iterator<Part> parts = failed.iterator(); parts.hasNext(); ) {
+                Part part = parts.next();
+                try {
+                    // the part may have been sold by the attempt that failed
+                    if (reserve(part, clusterHold.customerEmail, confirmation) || isReserved(part, confirmation)) {
+                        reserved++;
+                    }
+                    parts.remove();
+                } catch (RuntimeException ex) {
+                    LOG.debug("Failed to reserve part of hold {} in partition {} again: {}", seatHoldId,
+                            partitions.get(part.partition).getIndex(), ex.getMessage());
+                }
+            }
+        }
+        if (reserved < clusterHold.parts.size()) {
+            if (reserved > 0) {
+                // the parts sold cannot be taken back, the others are released when their holds expire
+                LOG.error("Only {} of {} part(s) of hold {} reserved, confirmation number {} not given", reserved,
+                        clusterHold.parts.size(), seatHoldId, confirmation);
+            }
+            return null;
+        }
+        return confirmation;
+    }
+
+    /**
+     * The full seat map, the partitions stitched in row order. Deltas are not kept across partitions, the
+     * version is the sum of the versions of the partitions.
+     */
+    @Override
+    public SeatMap getSeatMap(long sinceVersion) {
+        long version = 0;
+        List<int[]> rows = new ArrayList<>(layout.getMaxRow());
+        List<Integer> byRow = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            byRow.add(i);
+        }
+        byRow.sort(Comparator.comparingInt(i -> partitions.get(i).getRowStart()));
+        for (int i : byRow) {
+            PartitionSeatMap seatMap = owners.get(i).getSeatMap(eventId, partitions.get(i).getIndex());
+            version += seatMap.getVersion();
+            rows.addAll(seatMap.getRows());
+        }
+        return SeatMap.full(version, layout.getMaxRow(), layout.getMaxColumn(), rows);
+    }
+
+    @Override
+    public Invoice findReservation(String confirmation) {
+        List<Invoice> invoices = findReservations(confirmation, null);
+        return invoices.isEmpty() ? null : invoices.get(0);
+    }
+
+    /**
+     * Find the reservations of a customer, in the order of the best partition of each
+     */
+    @Override
+    public List<Invoice> findReservations(String customerEmail) {
+        validateCustomerEmail(customerEmail);
+        return findReservations(null, customerEmail);
+    }
+
+    /**
+     * Find the open holds of a customer, from every coordinator
+     */
+    @Override
+    public List<SeatHold> findHolds(String customerEmail) {
+        validateCustomerEmail(customerEmail);
+        List<SeatHold> seatHolds = new ArrayList<>();
+        for (ClusterNode node : cluster.getNodes()) {
+            for (PartitionSeats hold : node.findClusterHolds(eventId, customerEmail)) {
+                seatHolds.add(new SeatHold(hold.getSeatHoldId(), hold.getCustomerEmail(),
+                        toSeats(hold, SeatStatus.HOLD)));
+            }
+        }
+        return seatHolds;
+    }
+
+    /**
+     * Listen to the partitions owned by this node only, the changes of other nodes are not notified
+     */
+    @Override
+    public void addInventoryListener(InventoryListener inventoryListener) {
+        for (TicketServiceImpl partition : cluster.getLocalNode().getPartitions(eventId)) {
+            partition.addInventoryListener(inventoryListener);
+        }
+    }
+
+    /**
+     * @return the open holds of a customer coordinated by this node, oldest first
+     */
+    List<PartitionSeats> findLocalHolds(String customerEmail) {
+        return clusterHolds.values().stream()
+                .filter(clusterHold -> clusterHold.customerEmail.equalsIgnoreCase(customerEmail))
+                .sorted(Comparator.comparingInt(clusterHold -> clusterHold.id))
+                .map(ClusterHold::toPartitionSeats)
+                .collect(Collectors.toList());
+    }
+
+    private SeatHold commit(String customerEmail, List<Part> parts) {
+        ClusterHold clusterHold = new ClusterHold(cluster.toSeatHoldId(sequence.incrementAndGet()), customerEmail, parts);
+        // published first, so an expiry firing right away finds the hold to remove
+        clusterHolds.put(clusterHold.id, clusterHold);
+        clusterHold.timeout = timingWheel.schedule(clusterHold, seatHoldTTL * 1000, expiryHandler);
+        PartitionSeats seats = clusterHold.toPartitionSeats();
+        return new SeatHold(clusterHold.id, customerEmail, toSeats(seats, SeatStatus.HOLD));
+    }
+
+    private void expire(List<ClusterHold> expiredHolds) {
+        for (ClusterHold clusterHold : expiredHolds) {
+            if (clusterHolds.remove(clusterHold.id, clusterHold)) {
+                abort(clusterHold.parts, clusterHold.customerEmail);
+            }
+        }
+    }
+
+    private void abort(List<Part> parts, String customerEmail) {
+        for (Part part : parts) {
+            try {
+                owners.get(part.partition).release(eventId, partitions.get(part.partition).getIndex(),
+                        part.seats.getSeatHoldId(), customerEmail);
+            } catch (RuntimeException ex) {
+                // the partition releases the part itself once its own hold expires
+                LOG.warn("Failed to release part of a hold in partition {}: {}",
+                        partitions.get(part.partition).getIndex(), ex.getMessage());
+            }
+        }
+    }
+
+    private boolean reserve(Part part, String customerEmail, String confirmation) {
+        return owners.get(part.partition).reserve(eventId, partitions.get(part.partition).getIndex(),
+                part.seats.getSeatHoldId(), customerEmail, confirmation);
+    }
+
+    private boolean isReserved(Part part, String confirmation) {
+        return !owners.get(part.partition).findReservations(eventId, partitions.get(part.partition).getIndex(),
+                confirmation, null).isEmpty();
+    }
+
+    private List<Invoice> findReservations(String confirmation, String customerEmail) {
+        Map<String, Invoice> invoices = new LinkedHashMap<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            for (PartitionSeats reservation : owners.get(i).findReservations(eventId, partitions.get(i).getIndex(),
+                    confirmation, customerEmail)) {
+                List<Seat> seats = toSeats(reservation, SeatStatus.SOLD);
+                invoices.merge(reservation.getConfirmation(),
+                        new Invoice(reservation.getConfirmation(), reservation.getCustomerEmail(), seats),
+                        (invoice, part) -> {
+                            invoice.getSeats().addAll(part.getSeats());
+                            return invoice;
+                        });
+            }
+        }
+        return new ArrayList<>(invoices.values());
+    }
+
+    private List<Seat> toSeats(PartitionSeats partitionSeats, SeatStatus status) {
+        List<Seat> seats = new ArrayList<>(partitionSeats.getRows().length);
+        for (int i = 0; i < partitionSeats.getRows().length; i++) {
+            int row = partitionSeats.getRows()[i];
+            int column = partitionSeats.getColumns()[i];
+            Seat seat = new Seat(row, column, layout.getSeat(row, column).getType());
+            seat.setStatus(status);
+            seats.add(seat);
+        }
+        return seats;
+    }
+
+    private void validateCustomerEmail(String customerEmail) {
+        if (!EmailValidator.getInstance().isValid(customerEmail)) {
+            throw new BookingValidationException(INVALID_EMAIL_INPUT);
+        }
+    }
+
+    private static final class Part {
+        // index in the partitions, not the partition number
+        private final int partition;
+        private final PartitionSeats seats;
+
+        private Part(int partition, PartitionSeats seats) {
+            this.partition = partition;
+            this.seats = seats;
+        }
+    }
+
+    private static final class ClusterHold {
+        private final int id;
+        private final String customerEmail;
+        private final List<Part> parts;
+        private volatile Timeout timeout;
+
+        private ClusterHold(int id, String customerEmail, List<Part> parts) {
+            this.id = id;
+            this.customerEmail = customerEmail;
+            this.parts = parts;
+        }
+
+        // false until the timer is started, a hold is only reserved once it can expire
+        private boolean cancelTimer() {
+            return timeout != null && timeout.cancel();
+        }
+
+        private PartitionSeats toPartitionSeats() {
+            int numSeats = parts.stream().mapToInt(part -> part.seats.getRows().length).sum();
+            int[] rows = new int[numSeats];
+            int[] columns = new int[numSeats];
+            int offset = 0;
+            for (Part part : parts) {
+                int length = part.seats.getRows().length;
+                System.arraycopy(part.seats.getRows(), 0, rows, offset, length);
+                System.arraycopy(part.seats.getColumns(), 0, columns, offset, length);
+                offset += length;
+            }
+            return new PartitionSeats(id, null, customerEmail, rows, columns);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.acme.ticketing.cluster;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing of keys onto the nodes of the cluster.
+ *
+ * Every node is placed at several points of the ring, its virtual nodes, and a key belongs to the first
+ * node found clockwise from the hash of the key. Adding or removing a node only moves the keys of its
+ * own points, and every node computes the same owners from the same member list without talking to the
+ * others.
+ */
+public class ConsistentHashRing {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * @param nodeIds      the identifiers of the nodes
+     * @param virtualNodes the points of each node on the ring, more points spread the keys more evenly
+     */
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        Preconditions.checkArgument(!nodeIds.isEmpty(), "A cluster needs at least one node");
+        Preconditions.checkArgument(virtualNodes > 0, "Invalid virtual nodes, should be a positive number");
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(nodeId + '#' + i), nodeId);
+            }
+        }
+    }
+
+    /**
+     * @param key the key, a partition of an event
+     * @return the identifier of the node owning the key
+     */
+    public String nodeFor(String key) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String key) {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -0,0 +1,131 @@
+package com.acme.ticketing.cluster;
+
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.EventNotFoundException;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Another node of the cluster, reached over HTTP at its {@link ClusterController} endpoints.
+ *
+ * Errors answered by the node are thrown again as the exceptions the node threw, by status code. A node
+ * that cannot be reached in time is reported busy, the client may retry once it is back.
+ */
+public class HttpClusterNode implements ClusterNode {
+    private static final String NODE_UNAVAILABLE = "Cluster node %s unavailable, please try again later";
+    private static final String PARTITION_PATH = "/cluster/events/{eventId}/partitions/{partition}";
+    private static final String HOLDS_PATH = "/cluster/events/{eventId}/holds";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClusterNode.class);
+
+    private final String nodeId;
+    private final String baseUrl;
+    private final RestTemplate restTemplate;
+
+    /**
+     * @param nodeId        the identifier of the node
+     * @param baseUrl       the URL of the node, such as http://host:8080
+     * @param timeoutMillis the max time to connect and the max time to wait for an answer
+     */
+    public HttpClusterNode(String nodeId, String baseUrl, int timeoutMillis) {
+        this.nodeId = nodeId;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMillis);
+        requestFactory.setReadTimeout(timeoutMillis);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public PartitionSeats hold(String eventId, int partition, int numSeats, String customerEmail) {
+        return call(() -> restTemplate.postForObject(
+                baseUrl + PARTITION_PATH + "/hold?numSeats={numSeats}&customerEmail={customerEmail}",
+                null, PartitionSeats.class, eventId, partition, numSeats, customerEmail));
+    }
+
+    @Override
+    public boolean release(String eventId, int partition, int seatHoldId, String customerEmail) {
+        return Boolean.TRUE.equals(call(() -> restTemplate.postForObject(
+                baseUrl + PARTITION_PATH + "/release?seatHoldId={seatHoldId}&customerEmail={customerEmail}",
+                null, Boolean.class, eventId, partition, seatHoldId, customerEmail)));
+    }
+
+    @Override
+    public boolean reserve(String eventId, int partition, int seatHoldId, String customerEmail, String confirmation) {
+        return Boolean.TRUE.equals(call(() -> restTemplate.postForObject(baseUrl + PARTITION_PATH
+                        + "/reserve?seatHoldId={seatHoldId}&customerEmail={customerEmail}&confirmation={confirmation}",
+                null, Boolean.class, eventId, partition, seatHoldId, customerEmail, confirmation)));
+    }
+
+    @Override
+    public int[] getSeatCounts(String eventId, int partition) {
+        return call(() -> restTemplate.getForObject(baseUrl + PARTITION_PATH + "/counts", int[].class,
+                eventId, partition));
+    }
+
+    @Override
+    public PartitionSeatMap getSeatMap(String eventId, int partition) {
+        return call(() -> restTemplate.getForObject(baseUrl + PARTITION_PATH + "/map", PartitionSeatMap.class,
+                eventId, partition));
+    }
+
+    @Override
+    public List<PartitionSeats> findReservations(String eventId, int partition, String confirmation,
+                                                 String customerEmail) {
+        PartitionSeats[] reservations = call(() -> confirmation != null ?
+                restTemplate.getForObject(baseUrl + PARTITION_PATH + "/reservations?confirmation={confirmation}",
+                        PartitionSeats[].class, eventId, partition, confirmation) :
+                restTemplate.getForObject(baseUrl + PARTITION_PATH + "/reservations?customerEmail={customerEmail}",
+                        PartitionSeats[].class, eventId, partition, customerEmail));
+        return reservations != null ? Arrays.asList(reservations) : Collections.emptyList();
+    }
+
+    @Override
+    public String reserveClusterHold(String eventId, int seatHoldId, String customerEmail) {
+        return call(() -> restTemplate.postForObject(
+                baseUrl + HOLDS_PATH + "/{seatHoldId}/reserve?customerEmail={customerEmail}",
+                null, String.class, eventId, seatHoldId, customerEmail));
+    }
+
+    @Override
+    public List<PartitionSeats> findClusterHolds(String eventId, String customerEmail) {
+        PartitionSeats[] holds = call(() -> restTemplate.getForObject(
+                baseUrl + HOLDS_PATH + "?customerEmail={customerEmail}", PartitionSeats[].class,
+                eventId, customerEmail));
+        return holds != null ? Arrays.asList(holds) : Collections.emptyList();
+    }
+
+    private <T> T call(Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (HttpStatusCodeException ex) {
+            String message = ex.getResponseBodyAsString();
+            switch (ex.getStatusCode()) {
+                case BAD_REQUEST:
+                    throw new BookingValidationException(message);
+                case NOT_FOUND:
+                    throw new EventNotFoundException(message);
+                case CONFLICT:
+                    String retryAfter = ex.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+                    throw new TicketSystemBusyException(message, retryAfter != null ? Long.parseLong(retryAfter) : 1);
+                default:
+                    LOG.warn("Cluster node {} failed: {} {}", nodeId, ex.getStatusCode(), message);
+                    throw new TicketSystemBusyException(String.format(NODE_UNAVAILABLE, nodeId), 1);
+            }
+        } catch (RestClientException ex) {
+            LOG.warn("Cluster node {} unavailable: {}", nodeId, ex.getMessage());
+            throw new TicketSystemBusyException(String.format(NODE_UNAVAILABLE, nodeId), 1);
+        }
+    }
+}
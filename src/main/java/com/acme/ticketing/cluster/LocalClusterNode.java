@@ -0,0 +1,145 @@
+package com.acme.ticketing.cluster;
+
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.exception.EventNotFoundException;
+import com.acme.ticketing.service.TicketServiceImpl;
+import com.google.common.collect.Maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This node: the partitions it owns, each sold by a ticket service of its own, and the events it
+ * coordinates holds for.
+ */
+public class LocalClusterNode implements ClusterNode {
+    private static final String PARTITION_NOT_FOUND = "Partition %s of event %s not found on this node";
+    private static final String EVENT_NOT_FOUND = "Event %s not found";
+
+    private final Map<String, HostedPartition> partitions = Maps.newConcurrentMap();
+    private final Map<String, ClusteredTicketService> coordinators = Maps.newConcurrentMap();
+
+    void addPartition(Partition partition, TicketServiceImpl ticketService) {
+        partitions.put(partition.getKey(), new HostedPartition(partition, ticketService));
+    }
+
+    void addCoordinator(String eventId, ClusteredTicketService coordinator) {
+        coordinators.put(eventId, coordinator);
+    }
+
+    /**
+     * @return the ticket services of the partitions of an event owned by this node
+     */
+    List<TicketServiceImpl> getPartitions(String eventId) {
+        List<TicketServiceImpl> ticketServices = new ArrayList<>();
+        for (HostedPartition hosted : partitions.values()) {
+            if (hosted.partition.getEventId().equals(eventId)) {
+                ticketServices.add(hosted.ticketService);
+            }
+        }
+        return ticketServices;
+    }
+
+    @Override
+    public PartitionSeats hold(String eventId, int partition, int numSeats, String customerEmail) {
+        HostedPartition hosted = find(eventId, partition);
+        SeatHold seatHold = hosted.ticketService.findAndHoldSeats(numSeats, customerEmail);
+        if (seatHold == null) {
+            return null;
+        }
+        return hosted.toPartitionSeats(seatHold.getId(), null, customerEmail, seatHold.getSeats());
+    }
+
+    @Override
+    public boolean release(String eventId, int partition, int seatHoldId, String customerEmail) {
+        return find(eventId, partition).ticketService.cancelHold(seatHoldId, customerEmail);
+    }
+
+    @Override
+    public boolean reserve(String eventId, int partition, int seatHoldId, String customerEmail, String confirmation) {
+        return find(eventId, partition).ticketService.reserveSeats(seatHoldId, customerEmail, confirmation) != null;
+    }
+
+    @Override
+    public int[] getSeatCounts(String eventId, int partition) {
+        return find(eventId, partition).ticketService.getSeatCounts().toArray();
+    }
+
+    @Override
+    public PartitionSeatMap getSeatMap(String eventId, int partition) {
+        SeatMap seatMap = find(eventId, partition).ticketService.getSeatMap(-1);
+        return new PartitionSeatMap(seatMap.getVersion(), seatMap.getRows());
+    }
+
+    @Override
+    public List<PartitionSeats> findReservations(String eventId, int partition, String confirmation,
+                                                 String customerEmail) {
+        HostedPartition hosted = find(eventId, partition);
+        List<Invoice> invoices;
+        if (confirmation != null) {
+            Invoice invoice = hosted.ticketService.findReservation(confirmation);
+            invoices = invoice != null ? Collections.singletonList(invoice) : Collections.emptyList();
+        } else {
+            invoices = hosted.ticketService.findReservations(customerEmail);
+        }
+
+        List<PartitionSeats> reservations = new ArrayList<>(invoices.size());
+        for (Invoice invoice : invoices) {
+            reservations.add(hosted.toPartitionSeats(0, invoice.getConfirmation(), invoice.getCustomerEmail(),
+                    invoice.getSeats()));
+        }
+        return reservations;
+    }
+
+    @Override
+    public String reserveClusterHold(String eventId, int seatHoldId, String customerEmail) {
+        return coordinator(eventId).reserveSeats(seatHoldId, customerEmail);
+    }
+
+    @Override
+    public List<PartitionSeats> findClusterHolds(String eventId, String customerEmail) {
+        return coordinator(eventId).findLocalHolds(customerEmail);
+    }
+
+    private HostedPartition find(String eventId, int partition) {
+        HostedPartition hosted = partitions.get(eventId + '#' + partition);
+        if (hosted == null) {
+            throw new EventNotFoundException(String.format(PARTITION_NOT_FOUND, partition, eventId));
+        }
+        return hosted;
+    }
+
+    private ClusteredTicketService coordinator(String eventId) {
+        ClusteredTicketService coordinator = coordinators.get(eventId);
+        if (coordinator == null) {
+            throw new EventNotFoundException(String.format(EVENT_NOT_FOUND, eventId));
+        }
+        return coordinator;
+    }
+
+    private static final class HostedPartition {
+        private final Partition partition;
+        private final TicketServiceImpl ticketService;
+
+        private HostedPartition(Partition partition, TicketServiceImpl ticketService) {
+            this.partition = partition;
+            this.ticketService = ticketService;
+        }
+
+        private PartitionSeats toPartitionSeats(int seatHoldId, String confirmation, String customerEmail,
+                                                List<Seat> seats) {
+            int[] rows = new int[seats.size()];
+            int[] columns = new int[seats.size()];
+            for (int i = 0; i < seats.size(); i++) {
+                rows[i] = seats.get(i).getRow() + partition.getRowStart();
+                columns[i] = seats.get(i).getColumn();
+            }
+            return new PartitionSeats(seatHoldId, confirmation, customerEmail, rows, columns);
+        }
+    }
+}
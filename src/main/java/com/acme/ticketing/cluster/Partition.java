@@ -0,0 +1,94 @@
+package com.acme.ticketing.cluster;
+
+import com.acme.ticketing.entity.Venue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of rows of the venue of an event, the unit of inventory owned by one node.
+ *
+ * The seats of a partition are sold by a venue of its own, with the rows numbered from 0 and the VIP
+ * section clipped to its rows, so the row of a seat is the row in the partition plus {@link #getRowStart()}.
+ */
+public final class Partition {
+    private final String eventId;
+    private final int index;
+    private final int rowStart;
+    private final int rowEnd;
+    private final boolean vip;
+
+    private Partition(String eventId, int index, int rowStart, int rowEnd, boolean vip) {
+        this.eventId = eventId;
+        this.index = index;
+        this.rowStart = rowStart;
+        this.rowEnd = rowEnd;
+        this.vip = vip;
+    }
+
+    /**
+     * Split the rows of a venue into ranges of about the same size
+     *
+     * @param eventId    the event identifier
+     * @param layout     the venue of the event
+     * @param partitions the number of partitions wanted, at most one per row
+     * @return the partitions, best seats first: the ones with VIP rows, then by row
+     */
+    public static List<Partition> split(String eventId, Venue layout, int partitions) {
+        int count = Math.max(1, Math.min(partitions, layout.getMaxRow()));
+        List<Partition> split = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            int rowStart = layout.getMaxRow() * index / count;
+            int rowEnd = layout.getMaxRow() * (index + 1) / count;
+            boolean vip = layout.getBestColumnEnd() > layout.getBestColumnStart()
+                    && rowStart < layout.getBestRowEnd() && layout.getBestRowStart() < rowEnd;
+            split.add(new Partition(eventId, index, rowStart, rowEnd, vip));
+        }
+        split.sort(Comparator.comparing((Partition partition) -> !partition.vip).thenComparingInt(Partition::getIndex));
+        return split;
+    }
+
+    /**
+     * @param layout the venue of the event
+     * @return a new venue with the rows of the partition, initialized
+     */
+    Venue createVenue(Venue layout) {
+        int bestRowStart = 0;
+        int bestRowEnd = 0;
+        if (vip) {
+            bestRowStart = Math.max(layout.getBestRowStart(), rowStart) - rowStart;
+            bestRowEnd = Math.min(layout.getBestRowEnd(), rowEnd) - rowStart;
+        }
+        Venue venue = new Venue(rowEnd - rowStart, layout.getMaxColumn(), bestRowStart, bestRowEnd,
+                layout.getBestColumnStart(), layout.getBestColumnEnd(), layout.getSeatAllocation());
+        if (layout.getSeatScorer() != null) {
+            venue.setSeatScorer(layout.getSeatScorer().fromRow(rowStart));
+        }
+        venue.init();
+        return venue;
+    }
+
+    /**
+     * @return the key the partition is placed by on the hash ring
+     */
+    String getKey() {
+        return eventId + '#' + index;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getRowStart() {
+        return rowStart;
+    }
+
+    public int getRowEnd() {
+        return rowEnd;
+    }
+}
@@ -0,0 +1,38 @@
+package com.acme.ticketing.cluster;
+
+import java.util.List;
+
+/**
+ * Full seat map of one partition, as sent between nodes
+ */
+public class PartitionSeatMap {
+    private long version;
+    private List<int[]> rows;
+
+    public PartitionSeatMap() {
+    }
+
+    public PartitionSeatMap(long version, List<int[]> rows) {
+        this.version = version;
+        this.rows = rows;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the runs of available and taken seats of each row of the partition, first row first
+     */
+    public List<int[]> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<int[]> rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,67 @@
+package com.acme.ticketing.cluster;
+
+/**
+ * Seats of a hold or of a reservation in one partition, as sent between nodes. Rows are the rows of the
+ * venue of the event, not of the partition.
+ */
+public class PartitionSeats {
+    private int seatHoldId;
+    private String confirmation;
+    private String customerEmail;
+    private int[] rows;
+    private int[] columns;
+
+    public PartitionSeats() {
+    }
+
+    public PartitionSeats(int seatHoldId, String confirmation, String customerEmail, int[] rows, int[] columns) {
+        this.seatHoldId = seatHoldId;
+        this.confirmation = confirmation;
+        this.customerEmail = customerEmail;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public void setSeatHoldId(int seatHoldId) {
+        this.seatHoldId = seatHoldId;
+    }
+
+    /**
+     * @return the confirmation code of a reservation, null for a hold
+     */
+    public String getConfirmation() {
+        return confirmation;
+    }
+
+    public void setConfirmation(String confirmation) {
+        this.confirmation = confirmation;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+
+    public int[] getRows() {
+        return rows;
+    }
+
+    public void setRows(int[] rows) {
+        this.rows = rows;
+    }
+
+    public int[] getColumns() {
+        return columns;
+    }
+
+    public void setColumns(int[] columns) {
+        this.columns = columns;
+    }
+}
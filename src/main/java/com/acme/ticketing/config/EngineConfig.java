@@ -0,0 +1,21 @@
+package com.acme.ticketing.config;
+
+import com.acme.ticketing.service.EventRegistry;
+import com.acme.ticketing.service.TicketService;
+import com.acme.ticketing.service.TicketServiceFactory;
+import com.acme.ticketing.service.TicketServiceImpl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Exposes the ticket service of the default event behind the configured engine
+ */
+@Configuration
+public class EngineConfig {
+    @Bean
+    @Primary
+    public TicketService ticketService(TicketServiceImpl ticketServiceImpl, TicketServiceFactory ticketServiceFactory) {
+        return ticketServiceFactory.wrap(EventRegistry.DEFAULT_EVENT_ID, ticketServiceImpl);
+    }
+}
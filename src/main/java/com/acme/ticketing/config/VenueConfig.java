@@ -0,0 +1,34 @@
+package com.acme.ticketing.config;
+
+import com.acme.ticketing.entity.LayoutFileSeatScorer;
+import com.acme.ticketing.entity.SeatScorer;
+import com.acme.ticketing.entity.StageDistanceSeatScorer;
+import com.google.common.base.Preconditions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Ranks the seats of the venues with the scorer configured, at most one of venue.layoutFile and venue.stage.row/column
+ */
+@Configuration
+public class VenueConfig {
+    private static final String BOTH_SCORERS = "Both venue.layoutFile and venue.stage.row are set, please configure one of them only";
+    private static final String NO_STAGE_COLUMN = "venue.stage.column is required with venue.stage.row";
+
+    @Bean
+    @ConditionalOnExpression("!'${venue.layoutFile:}'.isEmpty() or !'${venue.stage.row:}'.isEmpty()")
+    public SeatScorer seatScorer(@Value("${venue.layoutFile:}") String layoutFile,
+                                 @Value("${venue.stage.row:}") String stageRow,
+                                 @Value("${venue.stage.column:}") String stageColumn) {
+        Preconditions.checkState(layoutFile.isEmpty() || stageRow.isEmpty(), BOTH_SCORERS);
+        if (!layoutFile.isEmpty()) {
+            return new LayoutFileSeatScorer(Paths.get(layoutFile));
+        }
+        Preconditions.checkState(!stageColumn.isEmpty(), NO_STAGE_COLUMN);
+        return new StageDistanceSeatScorer(Double.parseDouble(stageRow), Double.parseDouble(stageColumn));
+    }
+}
@@ -0,0 +1,105 @@
+package com.acme.ticketing.controller;
+
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.metrics.TicketingMetrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Results of the bookings sent with an {@code Idempotency-Key} header.
+ *
+ * The first request with a key runs the booking, the requests repeating the key get the same result without
+ * touching the inventory, including the ones arriving while the booking is still running. Only the results
+ * of successful bookings are kept, a booking failed or rejected runs again when retried. Up to
+ * {@code idempotency.maxKeys} keys are kept for {@code idempotency.ttlSeconds}, least recently used first out.
+ */
+@Component
+public class IdempotencyCache {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final String INVALID_KEY = "Invalid Idempotency-Key, please use up to %s characters";
+    private static final String KEY_REUSED = "Idempotency-Key already used for another request";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ConcurrentMap<String, Execution> executions;
+
+    @Autowired
+    public IdempotencyCache(@Value("${idempotency.maxKeys:100000}") long maxKeys,
+                            @Value("${idempotency.ttlSeconds:3600}") long ttlSeconds) {
+        Cache<String, Execution> cache = CacheBuilder.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.executions = cache.asMap();
+    }
+
+    /**
+     * Run a booking once per key
+     *
+     * @param scope   the operation and the event the key applies to
+     * @param key     the idempotency key sent by the client, null to always run the booking
+     * @param request the parameters of the request, a key cannot be reused with other parameters
+     * @param booking the booking
+     * @return the result of the booking, shared by every request with the key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String scope, String key, String request,
+                                            Supplier<CompletableFuture<T>> booking) {
+        if (key == null) {
+            return booking.get();
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new BookingValidationException(String.format(INVALID_KEY, MAX_KEY_LENGTH));
+        }
+
+        String scopedKey = scope + '/' + key;
+        Execution execution = new Execution(request);
+        Execution existing = executions.putIfAbsent(scopedKey, execution);
+        if (existing != null) {
+            if (!existing.request.equals(request)) {
+                throw new BookingValidationException(KEY_REUSED);
+            }
+            TicketingMetrics.REQUESTS_REPLAYED.increment();
+            return (CompletableFuture<T>) existing.result;
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = booking.get();
+        } catch (RuntimeException ex) {
+            executions.remove(scopedKey, execution);
+            execution.result.completeExceptionally(ex);
+            throw ex;
+        }
+        result.whenComplete((value, ex) -> {
+            if (ex != null) {
+                executions.remove(scopedKey, execution);
+                execution.result.completeExceptionally(ex);
+            } else {
+                execution.result.complete(value);
+            }
+        });
+        return (CompletableFuture<T>) execution.result;
+    }
+
+    public long size() {
+        return executions.size();
+    }
+
+    private static final class Execution {
+        private final String request;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Execution(String request) {
+            this.request = request;
+        }
+    }
+}
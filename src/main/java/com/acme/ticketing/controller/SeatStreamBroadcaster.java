@@ -0,0 +1,223 @@
+package com.acme.ticketing.controller;
+
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.service.InventoryListener;
+import com.acme.ticketing.service.TicketService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes seat availability changes to Server-Sent Events subscribers.
+ *
+ * Holds, reservations and expirations only raise a flag of their event. Every {@code stream.intervalMillis}
+ * the events flagged send each subscriber the seats changed since the version it last received, so the
+ * changes of an interval are coalesced into one message. Messages are written by a pool of sender threads
+ * and a subscriber gets at most one message in flight: a slow subscriber skips intervals and later receives
+ * the changes it missed at once, without slowing down the bookings or the other subscribers.
+ */
+@Component
+public class SeatStreamBroadcaster {
+    private static final Logger LOG = LoggerFactory.getLogger(SeatStreamBroadcaster.class);
+
+    private static final String TOO_MANY_SUBSCRIBERS = "Too many seat stream subscribers, please try again later";
+    private static final String SEATS_EVENT = "seats";
+
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final Map<TicketService, Feed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService senders;
+
+    @Autowired
+    public SeatStreamBroadcaster(@Value("${stream.intervalMillis:500}") long intervalMillis,
+                                 @Value("${stream.timeoutMillis:300000}") long timeoutMillis,
+                                 @Value("${stream.maxSubscribers:10000}") int maxSubscribers,
+                                 @Value("${stream.senderThreads:2}") int senderThreads) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "seat-stream"));
+        AtomicInteger senderIds = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads,
+                runnable -> daemon(runnable, "seat-stream-sender-" + senderIds.incrementAndGet()));
+        ticker.scheduleWithFixedDelay(this::broadcast, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribe to the seat changes of an event, the first message has the full seat map
+     *
+     * @param ticketService the ticket service of the event
+     * @return the emitter of the subscriber
+     */
+    public SseEmitter subscribe(TicketService ticketService) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new TicketSystemBusyException(TOO_MANY_SUBSCRIBERS, 1);
+        }
+        Feed feed = feeds.computeIfAbsent(ticketService, Feed::new);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> unsubscribe(feed, subscriber));
+        emitter.onTimeout(() -> unsubscribe(feed, subscriber));
+        feed.subscribers.add(subscriber);
+        // the full map goes out with the next messages, on a sender thread
+        feed.lagging = true;
+        return emitter;
+    }
+
+    public int getSubscribers() {
+        return subscribers.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        senders.shutdownNow();
+        for (Feed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    void broadcast() {
+        for (Feed feed : feeds.values()) {
+            try {
+                feed.broadcast();
+            } catch (RuntimeException ex) {
+                LOG.error("Failed to broadcast seat changes", ex);
+            }
+        }
+    }
+
+    private void unsubscribe(Feed feed, Subscriber subscriber) {
+        if (feed.subscribers.remove(subscriber)) {
+            subscribers.decrementAndGet();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final class Feed implements InventoryListener {
+        private final TicketService ticketService;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean changed = new AtomicBoolean();
+        // some subscribers are behind the last seat map, new or skipped while busy
+        private volatile boolean lagging;
+
+        private Feed(TicketService ticketService) {
+            this.ticketService = ticketService;
+            ticketService.addInventoryListener(this);
+        }
+
+        @Override
+        public void onHold(int seatHoldId, String customerEmail, List<Seat> seats, long expiresAtMillis) {
+            changed.lazySet(true);
+        }
+
+        @Override
+        public void onReserve(int seatHoldId, String confirmation) {
+            changed.lazySet(true);
+        }
+
+        @Override
+        public void onExpire(List<Integer> seatHoldIds) {
+            changed.lazySet(true);
+        }
+
+        private void broadcast() {
+            if (!changed.getAndSet(false) && !lagging) {
+                return;
+            }
+            lagging = false;
+            SeatMap seatMap = ticketService.getSeatMap(-1);
+            int seatCount = ticketService.numSeatsAvailable();
+            // subscribers mostly share the version they are at, build each delta once
+            Map<Long, SeatUpdate> updates = new HashMap<>();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.version == seatMap.getVersion()) {
+                    continue;
+                }
+                if (!subscriber.sending.compareAndSet(false, true)) {
+                    lagging = true;
+                    continue;
+                }
+                SeatUpdate update = updates.computeIfAbsent(subscriber.version,
+                        version -> new SeatUpdate(seatCount, version < 0 ? seatMap : ticketService.getSeatMap(version)));
+                senders.execute(() -> send(subscriber, update));
+            }
+        }
+
+        private void send(Subscriber subscriber, SeatUpdate update) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().name(SEATS_EVENT)
+                        .id(String.valueOf(update.getSeatMap().getVersion()))
+                        .data(update, MediaType.APPLICATION_JSON));
+                subscriber.version = update.getSeatMap().getVersion();
+            } catch (IOException | IllegalStateException ex) {
+                LOG.debug("Seat stream subscriber gone", ex);
+                unsubscribe(this, subscriber);
+                subscriber.emitter.completeWithError(ex);
+            } finally {
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // the version of the last seat map sent, -1 before the full map
+        private volatile long version = -1;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    /**
+     * One message of the stream: the seats changed, or the full map, and the number of seats available
+     */
+    public static final class SeatUpdate {
+        private final int seatCount;
+        private final SeatMap seatMap;
+
+        SeatUpdate(int seatCount, SeatMap seatMap) {
+            this.seatCount = seatCount;
+            this.seatMap = seatMap;
+        }
+
+        public int getSeatCount() {
+            return seatCount;
+        }
+
+        public SeatMap getSeatMap() {
+            return seatMap;
+        }
+    }
+}
@@ -1,14 +1,37 @@
 package com.acme.ticketing.controller;
 
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
 import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.SeatCounts;
 import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.SeatType;
+import com.acme.ticketing.entity.WaitlistTicket;
+import com.acme.ticketing.service.EventRegistry;
 import com.acme.ticketing.service.TicketService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 /**
  * Created by Mom and Dad on 3/30/2017.
@@ -17,42 +40,307 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/ticketing")
 public class TicketingController {
     private final TicketService ticketService;
+    private final EventRegistry eventRegistry;
+    private final SeatStreamBroadcaster seatStreamBroadcaster;
+    private final IdempotencyCache idempotencyCache;
 
-    public TicketingController(TicketService ticketService) {
+    public TicketingController(TicketService ticketService, EventRegistry eventRegistry,
+                               SeatStreamBroadcaster seatStreamBroadcaster, IdempotencyCache idempotencyCache) {
         this.ticketService = ticketService;
+        this.eventRegistry = eventRegistry;
+        this.seatStreamBroadcaster = seatStreamBroadcaster;
+        this.idempotencyCache = idempotencyCache;
     }
 
     @RequestMapping(method = RequestMethod.GET, value = "/seats/count")
     public ResponseEntity<SeatCount> numSeatsAvailable() {
-        return new ResponseEntity<SeatCount>(new SeatCount(ticketService.numSeatsAvailable()), HttpStatus.OK);
+        return numSeatsAvailable(ticketService);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/seats/map")
+    public ResponseEntity<SeatMap> seatMap(@RequestParam(required = false) Long sinceVersion,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return seatMap(ticketService, sinceVersion, ifNoneMatch);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter seatStream() {
+        return seatStreamBroadcaster.subscribe(ticketService);
     }
 
     @RequestMapping(method = RequestMethod.POST, value = "/seats/hold")
-    public ResponseEntity<SeatHold> holdSeats(@RequestParam int numOfSeats,
-                                              @RequestParam String customerEmail) {
+    public DeferredResult<ResponseEntity<SeatHold>> holdSeats(@RequestParam int numOfSeats,
+                                                              @RequestParam String customerEmail,
+                                                              @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return holdSeats(EventRegistry.DEFAULT_EVENT_ID, ticketService, numOfSeats, customerEmail, idempotencyKey);
+    }
 
-        SeatHold seatHold = ticketService.findAndHoldSeats(numOfSeats, customerEmail);
-        return new ResponseEntity(seatHold, seatHold == null ? HttpStatus.NOT_FOUND : HttpStatus.OK);
+    @RequestMapping(method = RequestMethod.POST, value = "/seats/hold/batch")
+    public DeferredResult<ResponseEntity<List<HoldResult>>> holdSeats(@RequestBody List<HoldRequest> holdRequests) {
+        return holdSeats(ticketService, holdRequests);
     }
 
     @RequestMapping(method = RequestMethod.POST, value = "/seats/reserve")
-    public ResponseEntity<Reservation> reserveSeats(@RequestParam int seatHoldId,
+    public DeferredResult<ResponseEntity<Reservation>> reserveSeats(@RequestParam int seatHoldId,
+                                                                    @RequestParam String customerEmail,
+                                                                    @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return reserveSeats(EventRegistry.DEFAULT_EVENT_ID, ticketService, seatHoldId, customerEmail, idempotencyKey);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/reservations/{confirmation}")
+    public ResponseEntity<Invoice> findReservation(@PathVariable String confirmation) {
+        return findReservation(ticketService, confirmation);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/reservations")
+    public ResponseEntity<List<Invoice>> findReservations(@RequestParam String customerEmail) {
+        return findReservations(ticketService, customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/holds")
+    public ResponseEntity<List<SeatHold>> findHolds(@RequestParam String customerEmail) {
+        return findHolds(ticketService, customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/waitlist")
+    public DeferredResult<ResponseEntity<WaitlistTicket>> joinWaitlist(@RequestParam int numOfSeats,
+                                                                       @RequestParam String customerEmail) {
+        return joinWaitlist(ticketService, numOfSeats, customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/waitlist/{ticketId}")
+    public ResponseEntity<WaitlistTicket> findWaitlistTicket(@PathVariable String ticketId) {
+        return findWaitlistTicket(ticketService, ticketId);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/events")
+    public ResponseEntity<Set<String>> events() {
+        return new ResponseEntity<Set<String>>(eventRegistry.getEventIds(), HttpStatus.OK);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/events/{eventId}")
+    public ResponseEntity<SeatCount> createEvent(@PathVariable String eventId,
+                                                 @RequestParam(required = false) Integer maxRow,
+                                                 @RequestParam(required = false) Integer maxColumn,
+                                                 @RequestParam(required = false) Integer bestRowStart,
+                                                 @RequestParam(required = false) Integer bestRowEnd,
+                                                 @RequestParam(required = false) Integer bestColumnStart,
+                                                 @RequestParam(required = false) Integer bestColumnEnd) {
+        TicketService eventTicketService = eventRegistry.createEvent(eventId, maxRow, maxColumn,
+                bestRowStart, bestRowEnd, bestColumnStart, bestColumnEnd);
+        return new ResponseEntity<SeatCount>(new SeatCount(eventTicketService.getSeatCounts()), HttpStatus.CREATED);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/events/{eventId}/seats/count")
+    public ResponseEntity<SeatCount> numSeatsAvailable(@PathVariable String eventId) {
+        return numSeatsAvailable(eventRegistry.getTicketService(eventId));
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/events/{eventId}/seats/map")
+    public ResponseEntity<SeatMap> seatMap(@PathVariable String eventId,
+                                           @RequestParam(required = false) Long sinceVersion,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return seatMap(eventRegistry.getTicketService(eventId), sinceVersion, ifNoneMatch);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/events/{eventId}/seats/stream",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter seatStream(@PathVariable String eventId) {
+        return seatStreamBroadcaster.subscribe(eventRegistry.getTicketService(eventId));
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/events/{eventId}/seats/hold")
+    public DeferredResult<ResponseEntity<SeatHold>> holdSeats(@PathVariable String eventId,
+                                                              @RequestParam int numOfSeats,
+                                                              @RequestParam String customerEmail,
+                                                              @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return holdSeats(eventId, eventRegistry.getTicketService(eventId), numOfSeats, customerEmail, idempotencyKey);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/events/{eventId}/seats/hold/batch")
+    public DeferredResult<ResponseEntity<List<HoldResult>>> holdSeats(@PathVariable String eventId,
+                                                                      @RequestBody List<HoldRequest> holdRequests) {
+        return holdSeats(eventRegistry.getTicketService(eventId), holdRequests);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/events/{eventId}/seats/reserve")
+    public DeferredResult<ResponseEntity<Reservation>> reserveSeats(@PathVariable String eventId,
+                                                                    @RequestParam int seatHoldId,
+                                                                    @RequestParam String customerEmail,
+                                                                    @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return reserveSeats(eventId, eventRegistry.getTicketService(eventId), seatHoldId, customerEmail, idempotencyKey);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/events/{eventId}/reservations/{confirmation}")
+    public ResponseEntity<Invoice> findReservation(@PathVariable String eventId,
+                                                   @PathVariable String confirmation) {
+        return findReservation(eventRegistry.getTicketService(eventId), confirmation);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/events/{eventId}/reservations")
+    public ResponseEntity<List<Invoice>> findReservations(@PathVariable String eventId,
+                                                          @RequestParam String customerEmail) {
+        return findReservations(eventRegistry.getTicketService(eventId), customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.GET, value = "/events/{eventId}/holds")
+    public ResponseEntity<List<SeatHold>> findHolds(@PathVariable String eventId,
                                                     @RequestParam String customerEmail) {
+        return findHolds(eventRegistry.getTicketService(eventId), customerEmail);
+    }
+
+    @RequestMapping(method = RequestMethod.POST, value = "/events/{eventId}/waitlist")
+    public DeferredResult<ResponseEntity<WaitlistTicket>> joinWaitlist(@PathVariable String eventId,
+                                                                       @RequestParam int numOfSeats,
+                                                                       @RequestParam String customerEmail) {
+        return joinWaitlist(eventRegistry.getTicketService(eventId), numOfSeats, customerEmail);
+    }
 
-        String confirmation = ticketService.reserveSeats(seatHoldId, customerEmail);
-        Reservation reservation = confirmation != null ? new Reservation(confirmation) : null;
-        return new ResponseEntity(reservation, confirmation == null ? HttpStatus.NOT_FOUND : HttpStatus.OK);
+    @RequestMapping(method = RequestMethod.GET, value = "/events/{eventId}/waitlist/{ticketId}")
+    public ResponseEntity<WaitlistTicket> findWaitlistTicket(@PathVariable String eventId,
+                                                             @PathVariable String ticketId) {
+        return findWaitlistTicket(eventRegistry.getTicketService(eventId), ticketId);
+    }
+
+    private ResponseEntity<SeatCount> numSeatsAvailable(TicketService ticketService) {
+        return new ResponseEntity<SeatCount>(new SeatCount(ticketService.getSeatCounts()), HttpStatus.OK);
+    }
+
+    private ResponseEntity<SeatMap> seatMap(TicketService ticketService, Long sinceVersion, String ifNoneMatch) {
+        SeatMap seatMap = ticketService.getSeatMap(sinceVersion != null ? sinceVersion : -1);
+        // a delta differs from the full map of the same version
+        String eTag = seatMap.getSinceVersion() == null ? "\"" + seatMap.getVersion() + "\""
+                : "\"" + seatMap.getSinceVersion() + "-" + seatMap.getVersion() + "\"";
+        if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(seatMap);
+    }
+
+    private DeferredResult<ResponseEntity<SeatHold>> holdSeats(String eventId, TicketService ticketService,
+                                                               int numOfSeats, String customerEmail,
+                                                               String idempotencyKey) {
+        CompletableFuture<SeatHold> booking = idempotencyCache.execute(eventId + "/hold", idempotencyKey,
+                numOfSeats + "/" + customerEmail,
+                () -> ticketService.findAndHoldSeatsAsync(numOfSeats, customerEmail));
+        return deferred(booking, seatHold ->
+                new ResponseEntity<SeatHold>(seatHold, seatHold == null ? HttpStatus.NOT_FOUND : HttpStatus.OK));
+    }
+
+    private DeferredResult<ResponseEntity<List<HoldResult>>> holdSeats(TicketService ticketService,
+                                                                       List<HoldRequest> holdRequests) {
+        return deferred(ticketService.findAndHoldSeatsAsync(holdRequests), holdResults ->
+                new ResponseEntity<List<HoldResult>>(holdResults, HttpStatus.OK));
+    }
+
+    private DeferredResult<ResponseEntity<Reservation>> reserveSeats(String eventId, TicketService ticketService,
+                                                                     int seatHoldId, String customerEmail,
+                                                                     String idempotencyKey) {
+        CompletableFuture<String> booking = idempotencyCache.execute(eventId + "/reserve", idempotencyKey,
+                seatHoldId + "/" + customerEmail,
+                () -> ticketService.reserveSeatsAsync(seatHoldId, customerEmail));
+        return deferred(booking, confirmation ->
+                confirmation != null
+                        ? new ResponseEntity<Reservation>(new Reservation(confirmation), HttpStatus.OK)
+                        : new ResponseEntity<Reservation>(HttpStatus.NOT_FOUND));
+    }
+
+    // accepted while the request waits for seats, the ticket is then polled until its seats are held
+    private DeferredResult<ResponseEntity<WaitlistTicket>> joinWaitlist(TicketService ticketService, int numOfSeats,
+                                                                        String customerEmail) {
+        return deferred(ticketService.joinWaitlistAsync(numOfSeats, customerEmail), ticket ->
+                new ResponseEntity<WaitlistTicket>(ticket,
+                        ticket.getStatus() == WaitlistTicket.Status.WAITING ? HttpStatus.ACCEPTED : HttpStatus.OK));
+    }
+
+    private ResponseEntity<WaitlistTicket> findWaitlistTicket(TicketService ticketService, String ticketId) {
+        WaitlistTicket ticket = ticketService.findWaitlistTicket(ticketId);
+        return new ResponseEntity<WaitlistTicket>(ticket, ticket == null ? HttpStatus.NOT_FOUND : HttpStatus.OK);
+    }
+
+    // the request thread is released at once, the response is written when the booking completes
+    private static <T, R> DeferredResult<ResponseEntity<R>> deferred(CompletableFuture<T> booking,
+                                                                     Function<T, ResponseEntity<R>> response) {
+        DeferredResult<ResponseEntity<R>> result = new DeferredResult<>();
+        booking.whenComplete((value, ex) -> {
+            if (ex != null) {
+                // unwrapped so the exception handlers match the cause
+                result.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            } else {
+                result.setResult(response.apply(value));
+            }
+        });
+        return result;
+    }
+
+    private ResponseEntity<Invoice> findReservation(TicketService ticketService, String confirmation) {
+        Invoice invoice = ticketService.findReservation(confirmation);
+        return new ResponseEntity<Invoice>(invoice, invoice == null ? HttpStatus.NOT_FOUND : HttpStatus.OK);
+    }
+
+    private ResponseEntity<List<Invoice>> findReservations(TicketService ticketService, String customerEmail) {
+        return new ResponseEntity<List<Invoice>>(ticketService.findReservations(customerEmail), HttpStatus.OK);
+    }
+
+    private ResponseEntity<List<SeatHold>> findHolds(TicketService ticketService, String customerEmail) {
+        return new ResponseEntity<List<SeatHold>>(ticketService.findHolds(customerEmail), HttpStatus.OK);
     }
 
     private static class SeatCount {
         private int seatCount;
-        public SeatCount(int seatCount) {
-            this.seatCount = seatCount;
+        private int heldCount;
+        private int soldCount;
+        private Map<SeatType, SeatTypeCount> seatTypes = new EnumMap<>(SeatType.class);
+
+        public SeatCount(SeatCounts seatCounts) {
+            this.seatCount = seatCounts.getAvailable();
+            this.heldCount = seatCounts.getHeld();
+            this.soldCount = seatCounts.getSold();
+            for (SeatType seatType : SeatType.values()) {
+                seatTypes.put(seatType, new SeatTypeCount(seatCounts.get(seatType, SeatStatus.AVAILABLE),
+                        seatCounts.get(seatType, SeatStatus.HOLD), seatCounts.get(seatType, SeatStatus.SOLD)));
+            }
         }
 
         public int getSeatCount() {
             return seatCount;
         }
+
+        public int getHeldCount() {
+            return heldCount;
+        }
+
+        public int getSoldCount() {
+            return soldCount;
+        }
+
+        public Map<SeatType, SeatTypeCount> getSeatTypes() {
+            return seatTypes;
+        }
+    }
+
+    private static class SeatTypeCount {
+        private int available;
+        private int held;
+        private int sold;
+
+        public SeatTypeCount(int available, int held, int sold) {
+            this.available = available;
+            this.held = held;
+            this.sold = sold;
+        }
+
+        public int getAvailable() {
+            return available;
+        }
+
+        public int getHeld() {
+            return held;
+        }
+
+        public int getSold() {
+            return sold;
+        }
     }
 
     private static class Reservation {
@@ -1,7 +1,9 @@
 package com.acme.ticketing.controller;
 
 import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.EventNotFoundException;
 import com.acme.ticketing.exception.TicketSystemBusyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -16,7 +18,11 @@ public class WebControllerAdvice {
     @ResponseStatus(HttpStatus.CONFLICT)  // 409
     @ExceptionHandler
     public ResponseEntity handleTicketSystemBusyException(TicketSystemBusyException exception) {
-        return new ResponseEntity(exception.getMessage(), HttpStatus.CONFLICT);
+        HttpHeaders headers = new HttpHeaders();
+        if (exception.getRetryAfterSeconds() > 0) {
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()));
+        }
+        return new ResponseEntity(exception.getMessage(), headers, HttpStatus.CONFLICT);
     }
 
     @ResponseStatus(HttpStatus.CONFLICT)  // 409
@@ -25,6 +31,12 @@ public class WebControllerAdvice {
         return new ResponseEntity(exception.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ResponseStatus(HttpStatus.NOT_FOUND)  // 404
+    @ExceptionHandler
+    public ResponseEntity handleEventNotFoundException(EventNotFoundException exception) {
+        return new ResponseEntity(exception.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST) // 400
     @ExceptionHandler()
     public ResponseEntity handleValidationException(BookingValidationException exception) {
@@ -0,0 +1,89 @@
+package com.acme.ticketing.entity;
+
+import com.acme.ticketing.metrics.TicketingMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes the first available seats in rank order by compare-and-set on the packed status array, no lock needed.
+ */
+class BestAvailableSeatAllocator implements SeatAllocator {
+    private static final long RELEASE = 1L << Integer.SIZE;
+    private static final long RELEASES = -RELEASE;
+
+    private final SeatLayout layout;
+    private final SeatStateArray seatStates;
+    // no seat ranked before this one is available, only a hint to start scanning from: the rank in the low
+    // bits and the number of releases in the high bits, so a scan moves it forward only if no release happened
+    private final AtomicLong firstAvailableRank = new AtomicLong();
+
+    BestAvailableSeatAllocator(SeatLayout layout) {
+        this.layout = layout;
+        this.seatStates = layout.states();
+    }
+
+    @Override
+    public List<Seat> allocate(int number) {
+        // the claim guarantees enough available seats, which are taken one by one by compare-and-set
+        List<Seat> seatsSelected = new ArrayList<>(number);
+        long hint = firstAvailableRank.get();
+        int rank = rank(hint);
+        while (seatsSelected.size() < number) {
+            rank = seatStates.nextAvailable(rank);
+            if (rank < 0) {
+                // seats were released behind the scan, start over from the hint they lowered
+                hint = firstAvailableRank.get();
+                rank = rank(hint);
+                TicketingMetrics.SEAT_STATUS_RETRIES.increment();
+                Thread.yield();
+                continue;
+            }
+            if (seatStates.compareAndSet(rank, SeatStatus.AVAILABLE, SeatStatus.HOLD)) {
+                seatsSelected.add(layout.seatOfRank(rank));
+            } else {
+                TicketingMetrics.SEAT_STATUS_RETRIES.increment();
+            }
+            rank++;
+        }
+
+        // move the hint forward unless a seat was released since it was read, same rank or not
+        firstAvailableRank.compareAndSet(hint, (hint & RELEASES) | rank);
+        return seatsSelected;
+    }
+
+    @Override
+    public List<List<Seat>> allocate(int[] numbers) {
+        // a single scan for all the seats, handed out in rank order
+        List<Seat> seatsSelected = allocate(Arrays.stream(numbers).sum());
+        List<List<Seat>> seatsByHold = new ArrayList<>(numbers.length);
+        int from = 0;
+        for (int number : numbers) {
+            seatsByHold.add(number > 0 ? new ArrayList<>(seatsSelected.subList(from, from + number)) : null);
+            from += number;
+        }
+        return seatsByHold;
+    }
+
+    @Override
+    public void release(List<Seat> seats) {
+        int lowestRank = layout.capacity();
+        for (Seat seat : seats) {
+            lowestRank = Math.min(lowestRank, seat.index());
+        }
+        int releasedRank = lowestRank;
+        firstAvailableRank.updateAndGet(hint ->
+                ((hint & RELEASES) + RELEASE) | Math.min(rank(hint), releasedRank));
+    }
+
+    @Override
+    public void take(List<Seat> seats) {
+        // the hint is only a lower bound of the available ranks, it stays valid
+    }
+
+    private static int rank(long hint) {
+        return (int) hint;
+    }
+}
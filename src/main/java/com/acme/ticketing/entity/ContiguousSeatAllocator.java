@@ -0,0 +1,272 @@
+package com.acme.ticketing.entity;
+
+import com.acme.ticketing.metrics.InstrumentedLock;
+import com.acme.ticketing.metrics.TicketingMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Holds blocks of adjacent seats.
+ *
+ * Every row is split into sections of adjacent seats of the same type, each with a {@link FreeRunTree} of
+ * its free runs. The sections are ordered by the rank of their best seat, best first, so the sections of
+ * every type follow each other, and trees over their longest runs and free seat counts find the best
+ * section fitting a block within a type in O(log sections). A hold is kept within the best type with enough
+ * free seats for it and takes the leftmost block in the best section fitting it, split into as few blocks of
+ * that type as possible when no block fits. Only when no type has enough free seats does it take the best
+ * type's seats first, then the next type's.
+ *
+ * The trees are not thread safe and are guarded by a lock of this venue only, seat statuses are still
+ * moved by compare-and-set so they stay consistent with the lock-free readers. A seat restored after the
+ * trees were last told makes its block fail as a whole, and the block is looked for again without it.
+ */
+class ContiguousSeatAllocator implements SeatAllocator {
+    private final SeatLayout layout;
+    private final Section[] sections;
+    // index in sections of the section of every seat, by seat position
+    private final int[] sectionBySeat;
+    // index in sections of the first section of every type, and the number of sections last
+    private final int[] sectionsByType;
+    private final int[] longestRuns;
+    private final int[] freeSeats;
+    private final int leafOffset;
+    private final InstrumentedLock lock =
+            new InstrumentedLock(TicketingMetrics.ALLOCATOR_LOCK_WAIT, TicketingMetrics.ALLOCATOR_LOCK_HELD);
+
+    ContiguousSeatAllocator(SeatLayout layout) {
+        this.layout = layout;
+        List<Section> sectionList = new ArrayList<>();
+        for (int row = 0; row < layout.getMaxRow(); row++) {
+            int start = 0;
+            for (int column = 1; column <= layout.getMaxColumn(); column++) {
+                if (column == layout.getMaxColumn() ||
+                        layout.type(layout.position(row, column)) != layout.type(layout.position(row, start))) {
+                    sectionList.add(new Section(layout, row, start, column - start));
+                    start = column;
+                }
+            }
+        }
+        sectionList.sort(Comparator.comparingInt(section -> section.bestRank));
+        sections = sectionList.toArray(new Section[sectionList.size()]);
+        sectionBySeat = new int[layout.capacity()];
+        int numTypes = SeatType.values().length;
+        sectionsByType = new int[numTypes + 1];
+        Arrays.fill(sectionsByType, sections.length);
+        for (int i = sections.length - 1; i >= 0; i--) {
+            Arrays.fill(sectionBySeat, sections[i].firstPosition, sections[i].firstPosition + sections[i].length, i);
+            int type = layout.type(sections[i].firstPosition).ordinal();
+            for (int t = 0; t <= type; t++) {
+                sectionsByType[t] = i;
+            }
+        }
+
+        int leaves = Integer.highestOneBit(Math.max(sections.length - 1, 1)) << 1;
+        leafOffset = leaves;
+        longestRuns = new int[2 * leaves];
+        freeSeats = new int[2 * leaves];
+        for (int i = 0; i < sections.length; i++) {
+            longestRuns[leafOffset + i] = sections[i].freeRuns.longestRun();
+            freeSeats[leafOffset + i] = sections[i].freeRuns.numFree();
+        }
+        for (int node = leafOffset - 1; node > 0; node--) {
+            longestRuns[node] = Math.max(longestRuns[2 * node], longestRuns[2 * node + 1]);
+            freeSeats[node] = freeSeats[2 * node] + freeSeats[2 * node + 1];
+        }
+    }
+
+    @Override
+    public List<Seat> allocate(int number) {
+        try {
+            lock.lock();
+            return allocateBlocks(number);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<List<Seat>> allocate(int[] numbers) {
+        List<List<Seat>> seatsByHold = new ArrayList<>(numbers.length);
+        try {
+            lock.lock();
+            for (int number : numbers) {
+                seatsByHold.add(number > 0 ? allocateBlocks(number) : null);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return seatsByHold;
+    }
+
+    private List<Seat> allocateBlocks(int number) {
+        List<Seat> seatsSelected = new ArrayList<>(number);
+        while (seatsSelected.size() < number) {
+            int type = bestType(number - seatsSelected.size());
+            if (type < 0) {
+                // the seats claimed were taken by a restore not yet reported to the allocator
+                releaseBlocks(seatsSelected);
+                return null;
+            }
+            int from = sectionsByType[type];
+            int blockSize = Math.min(number - seatsSelected.size(), longestRun(from, sectionsByType[type + 1]));
+            int sectionIndex = findFirstSection(1, 0, leafOffset, from, blockSize);
+            Section section = sections[sectionIndex];
+            List<Seat> block = holdBlock(section, section.freeRuns.findFirstRun(blockSize), blockSize);
+            updateSection(sectionIndex);
+            if (block == null) {
+                TicketingMetrics.SEAT_STATUS_RETRIES.increment();
+            } else {
+                seatsSelected.addAll(block);
+            }
+        }
+        return seatsSelected;
+    }
+
+    // all the seats of the block or none, the seat found taken is removed from the free runs for the next try
+    private List<Seat> holdBlock(Section section, int start, int blockSize) {
+        List<Seat> block = new ArrayList<>(blockSize);
+        for (int i = start; i < start + blockSize; i++) {
+            Seat seat = layout.seatAt(section.firstPosition + i);
+            if (!seat.compareAndSetStatus(SeatStatus.AVAILABLE, SeatStatus.HOLD)) {
+                section.freeRuns.setFree(i, false);
+                for (Seat seatHeld : block) {
+                    seatHeld.compareAndSetStatus(SeatStatus.HOLD, SeatStatus.AVAILABLE);
+                }
+                return null;
+            }
+            block.add(seat);
+        }
+        for (int i = start; i < start + blockSize; i++) {
+            section.freeRuns.setFree(i, false);
+        }
+        return block;
+    }
+
+    private void releaseBlocks(List<Seat> seatsSelected) {
+        for (Seat seat : seatsSelected) {
+            seat.compareAndSetStatus(SeatStatus.HOLD, SeatStatus.AVAILABLE);
+            int position = layout.position(seat.getRow(), seat.getColumn());
+            int sectionIndex = sectionBySeat[position];
+            sections[sectionIndex].freeRuns.setFree(position - sections[sectionIndex].firstPosition, true);
+            updateSection(sectionIndex);
+        }
+    }
+
+    @Override
+    public void release(List<Seat> seats) {
+        try {
+            lock.lock();
+            for (Seat seat : seats) {
+                int position = layout.position(seat.getRow(), seat.getColumn());
+                int sectionIndex = sectionBySeat[position];
+                sections[sectionIndex].freeRuns.setFree(position - sections[sectionIndex].firstPosition, true);
+                updateSection(sectionIndex);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void take(List<Seat> seats) {
+        try {
+            lock.lock();
+            for (Seat seat : seats) {
+                int position = layout.position(seat.getRow(), seat.getColumn());
+                int sectionIndex = sectionBySeat[position];
+                sections[sectionIndex].freeRuns.setFree(position - sections[sectionIndex].firstPosition, false);
+                updateSection(sectionIndex);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // best type with enough free seats for the number specified, else the best type with any, -1 if none
+    private int bestType(int number) {
+        int typeWithSeats = -1;
+        for (int type = 0; type < sectionsByType.length - 1; type++) {
+            int numFree = freeSeats(sectionsByType[type], sectionsByType[type + 1]);
+            if (numFree >= number) {
+                return type;
+            }
+            if (numFree > 0 && typeWithSeats < 0) {
+                typeWithSeats = type;
+            }
+        }
+        return typeWithSeats;
+    }
+
+    // first section in rank order from the one specified with a free run of the length specified, -1 if none
+    private int findFirstSection(int node, int lo, int hi, int from, int length) {
+        if (hi <= from || longestRuns[node] < length) {
+            return -1;
+        }
+        if (node >= leafOffset) {
+            return lo;
+        }
+        int mid = (lo + hi) >>> 1;
+        int section = findFirstSection(2 * node, lo, mid, from, length);
+        return section >= 0 ? section : findFirstSection(2 * node + 1, mid, hi, from, length);
+    }
+
+    // longest free run of the sections in [from, to)
+    private int longestRun(int from, int to) {
+        int longest = 0;
+        for (int lo = from + leafOffset, hi = to + leafOffset; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                longest = Math.max(longest, longestRuns[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                longest = Math.max(longest, longestRuns[--hi]);
+            }
+        }
+        return longest;
+    }
+
+    // free seats of the sections in [from, to)
+    private int freeSeats(int from, int to) {
+        int numFree = 0;
+        for (int lo = from + leafOffset, hi = to + leafOffset; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                numFree += freeSeats[lo++];
+            }
+            if ((hi & 1) == 1) {
+                numFree += freeSeats[--hi];
+            }
+        }
+        return numFree;
+    }
+
+    private void updateSection(int sectionIndex) {
+        int node = leafOffset + sectionIndex;
+        longestRuns[node] = sections[sectionIndex].freeRuns.longestRun();
+        freeSeats[node] = sections[sectionIndex].freeRuns.numFree();
+        for (node >>= 1; node > 0; node >>= 1) {
+            longestRuns[node] = Math.max(longestRuns[2 * node], longestRuns[2 * node + 1]);
+            freeSeats[node] = freeSeats[2 * node] + freeSeats[2 * node + 1];
+        }
+    }
+
+    private static final class Section {
+        private final int firstPosition;
+        private final int length;
+        private final FreeRunTree freeRuns;
+        private final int bestRank;
+
+        private Section(SeatLayout layout, int row, int firstColumn, int length) {
+            this.firstPosition = layout.position(row, firstColumn);
+            this.length = length;
+            this.freeRuns = new FreeRunTree(length);
+            int rank = Integer.MAX_VALUE;
+            for (int i = 0; i < length; i++) {
+                freeRuns.setFree(i, layout.status(firstPosition + i) == SeatStatus.AVAILABLE);
+                rank = Math.min(rank, layout.rank(firstPosition + i));
+            }
+            this.bestRank = rank;
+        }
+    }
+}
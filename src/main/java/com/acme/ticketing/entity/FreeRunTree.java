@@ -0,0 +1,113 @@
+package com.acme.ticketing.entity;
+
+/**
+ * Segment tree over a run of adjacent seats keeping, for every node, the free run at its start, the free
+ * run at its end and its longest free run. Marking a seat and finding the leftmost block of k free seats
+ * both take O(log seats).
+ */
+final class FreeRunTree {
+    private final int size;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] longest;
+    private int numFree;
+
+    /**
+     * @param size number of seats, all free
+     */
+    FreeRunTree(int size) {
+        this.size = size;
+        this.prefix = new int[4 * size];
+        this.suffix = new int[4 * size];
+        this.longest = new int[4 * size];
+        build(1, 0, size);
+        this.numFree = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the longest run of free seats
+     */
+    int longestRun() {
+        return longest[1];
+    }
+
+    /**
+     * @return the number of free seats
+     */
+    int numFree() {
+        return numFree;
+    }
+
+    void setFree(int position, boolean free) {
+        update(1, 0, size, position, free);
+    }
+
+    /**
+     * find the leftmost block of free seats of the length specified
+     *
+     * @return the position of the first seat of the block, or -1 if there is none
+     */
+    int findFirstRun(int length) {
+        if (length <= 0 || longest[1] < length) {
+            return -1;
+        }
+        int node = 1;
+        int lo = 0;
+        int hi = size;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            int left = 2 * node;
+            int right = left + 1;
+            if (longest[left] >= length) {
+                node = left;
+                hi = mid;
+            } else if (suffix[left] + prefix[right] >= length) {
+                return mid - suffix[left];
+            } else {
+                node = right;
+                lo = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void build(int node, int lo, int hi) {
+        if (hi - lo == 1) {
+            prefix[node] = suffix[node] = longest[node] = 1;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        build(2 * node, lo, mid);
+        build(2 * node + 1, mid, hi);
+        pull(node, mid - lo, hi - mid);
+    }
+
+    private void update(int node, int lo, int hi, int position, boolean free) {
+        if (hi - lo == 1) {
+            if ((longest[node] == 1) != free) {
+                numFree += free ? 1 : -1;
+            }
+            prefix[node] = suffix[node] = longest[node] = free ? 1 : 0;
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (position < mid) {
+            update(2 * node, lo, mid, position, free);
+        } else {
+            update(2 * node + 1, mid, hi, position, free);
+        }
+        pull(node, mid - lo, hi - mid);
+    }
+
+    private void pull(int node, int leftSize, int rightSize) {
+        int left = 2 * node;
+        int right = left + 1;
+        prefix[node] = prefix[left] == leftSize ? leftSize + prefix[right] : prefix[left];
+        suffix[node] = suffix[right] == rightSize ? rightSize + suffix[left] : suffix[right];
+        longest[node] = Math.max(Math.max(longest[left], longest[right]), suffix[left] + prefix[right]);
+    }
+}
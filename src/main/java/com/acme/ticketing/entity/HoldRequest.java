@@ -0,0 +1,27 @@
+package com.acme.ticketing.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One hold request of a batch
+ */
+public final class HoldRequest {
+    private final int numSeats;
+    private final String customerEmail;
+
+    @JsonCreator
+    public HoldRequest(@JsonProperty("numSeats") int numSeats,
+                       @JsonProperty("customerEmail") String customerEmail) {
+        this.numSeats = numSeats;
+        this.customerEmail = customerEmail;
+    }
+
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+}
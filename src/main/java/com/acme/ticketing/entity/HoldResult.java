@@ -0,0 +1,49 @@
+package com.acme.ticketing.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Outcome of one hold request of a batch, either the seats held or the reason of the failure
+ */
+public final class HoldResult {
+    private final SeatHold seatHold;
+    private final String error;
+    private final boolean invalid;
+
+    private HoldResult(SeatHold seatHold, String error, boolean invalid) {
+        this.seatHold = seatHold;
+        this.error = error;
+        this.invalid = invalid;
+    }
+
+    public static HoldResult held(SeatHold seatHold) {
+        return new HoldResult(seatHold, null, false);
+    }
+
+    /**
+     * @return the result of a valid request that could not be served, not enough seats being available
+     */
+    public static HoldResult failed(String error) {
+        return new HoldResult(null, error, false);
+    }
+
+    /**
+     * @return the result of a request rejected by validation
+     */
+    public static HoldResult invalid(String error) {
+        return new HoldResult(null, error, true);
+    }
+
+    public SeatHold getSeatHold() {
+        return seatHold;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public boolean isInvalid() {
+        return invalid;
+    }
+}
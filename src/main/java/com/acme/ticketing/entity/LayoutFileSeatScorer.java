@@ -0,0 +1,71 @@
+package com.acme.ticketing.entity;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Types and scores of the seats read from a layout file, one seat per line: {@code row,column,type,score},
+ * such as {@code 0,12,VIP,1.5}. Blank lines and lines starting with # are skipped. Seats not listed keep the
+ * type of the venue and are ranked after the seats listed.
+ */
+public class LayoutFileSeatScorer implements SeatScorer {
+    private static final String INVALID_LINE = "Invalid layout line %s: %s, expected row,column,type,score";
+
+    private final Map<Long, SeatType> typeBySeat = new HashMap<>();
+    private final Map<Long, Double> scoreBySeat = new HashMap<>();
+
+    public LayoutFileSeatScorer(Path path) {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    parse(lineNumber, line);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read layout file " + path, ex);
+        }
+    }
+
+    private void parse(int lineNumber, String line) {
+        List<String> fields = Splitter.on(',').trimResults().splitToList(line);
+        Preconditions.checkArgument(fields.size() == 4, INVALID_LINE, lineNumber, line);
+        try {
+            int row = Integer.parseInt(fields.get(0));
+            int column = Integer.parseInt(fields.get(1));
+            SeatType type = SeatType.valueOf(fields.get(2));
+            double score = Double.parseDouble(fields.get(3));
+            Preconditions.checkArgument(row >= 0 && column >= 0 && !Double.isNaN(score), INVALID_LINE, lineNumber, line);
+            typeBySeat.put(key(row, column), type);
+            scoreBySeat.put(key(row, column), score);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(String.format(INVALID_LINE, lineNumber, line), ex);
+        }
+    }
+
+    @Override
+    public SeatType type(int row, int column, SeatType venueType) {
+        return typeBySeat.getOrDefault(key(row, column), venueType);
+    }
+
+    @Override
+    public double score(int row, int column, SeatType type) {
+        return scoreBySeat.getOrDefault(key(row, column), Double.MAX_VALUE);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << Integer.SIZE) | column;
+    }
+}
@@ -7,12 +7,20 @@ public final class Seat {
     private final int row;
     private final int column;
     private final SeatType type;
-    private SeatStatus status = SeatStatus.AVAILABLE;
+    // the status lives in the venue's packed state array, this seat is a view over its slot
+    private final SeatStateArray states;
+    private final int index;
 
     public Seat(int row, int column, SeatType type) {
+        this(row, column, type, new SeatStateArray(1), 0);
+    }
+
+    Seat(int row, int column, SeatType type, SeatStateArray states, int index) {
         this.row = row;
         this.column = column;
         this.type = type;
+        this.states = states;
+        this.index = index;
     }
 
     public int getRow() {
@@ -28,11 +36,24 @@ public final class Seat {
     }
 
     public SeatStatus getStatus() {
-        return status;
+        return states.get(index);
     }
 
     public void setStatus(SeatStatus status) {
-        this.status = status;
+        states.set(index, status);
+    }
+
+    /**
+     * atomically move this seat from one status to another
+     *
+     * @return true if the seat was in the expected status and has been updated
+     */
+    public boolean compareAndSetStatus(SeatStatus expect, SeatStatus update) {
+        return states.compareAndSet(index, expect, update);
+    }
+
+    int index() {
+        return index;
     }
 
     @Override
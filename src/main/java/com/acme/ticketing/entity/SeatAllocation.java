@@ -0,0 +1,15 @@
+package com.acme.ticketing.entity;
+
+/**
+ * How a venue picks the seats of a hold
+ */
+public enum SeatAllocation {
+    /**
+     * the best seats in rank order, lock-free
+     */
+    BEST_AVAILABLE,
+    /**
+     * the best block of adjacent seats in a row, split into as few blocks as possible when no block fits
+     */
+    CONTIGUOUS
+}
@@ -0,0 +1,41 @@
+package com.acme.ticketing.entity;
+
+import java.util.List;
+
+/**
+ * Picks the seats of a hold. The venue claims the number of seats from its available count before calling
+ * {@link #allocate(int)}, so an allocator is always asked for seats that exist, unless a restore took some
+ * of them between the claim and the allocation.
+ */
+interface SeatAllocator {
+    /**
+     * move the number of seats specified from AVAILABLE to HOLD
+     *
+     * @param number number of seats, already claimed from the available count
+     * @return the seats on hold, or null if the seats were taken meanwhile, none of them being held then
+     */
+    List<Seat> allocate(int number);
+
+    /**
+     * move the seats of several holds from AVAILABLE to HOLD in one pass
+     *
+     * @param numbers number of seats of each hold, already claimed from the available count, 0 to skip a hold
+     * @return the seats on hold of each hold, null for the holds skipped or whose seats were taken meanwhile
+     */
+    List<List<Seat>> allocate(int[] numbers);
+
+    /**
+     * seats that have just been moved from HOLD back to AVAILABLE
+     *
+     * @param seats the seats released
+     */
+    void release(List<Seat> seats);
+
+    /**
+     * seats that have just been moved from AVAILABLE to another status outside of {@link #allocate(int)},
+     * when restoring the state of the venue
+     *
+     * @param seats the seats taken
+     */
+    void take(List<Seat> seats);
+}
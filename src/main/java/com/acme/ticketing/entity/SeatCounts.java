@@ -0,0 +1,104 @@
+package com.acme.ticketing.entity;
+
+/**
+ * Number of seats of a venue in each status, by seat type, taken at one instant.
+ *
+ * Instances are immutable: the venue swaps in a new one by compare-and-set for every change of statuses,
+ * so a reader gets counts that always add up to the capacity without taking any lock.
+ */
+public final class SeatCounts {
+    private static final SeatType[] TYPES = SeatType.values();
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    // indexed by type ordinal * number of statuses + status ordinal
+    private final int[] counts;
+
+    private SeatCounts(int[] counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * @param capacityByType the number of seats of each type, indexed by type ordinal
+     * @return the counts of a venue with all its seats available
+     */
+    public static SeatCounts available(int[] capacityByType) {
+        int[] counts = new int[TYPES.length * STATUSES.length];
+        for (SeatType type : TYPES) {
+            counts[index(type, SeatStatus.AVAILABLE)] = capacityByType[type.ordinal()];
+        }
+        return new SeatCounts(counts);
+    }
+
+    /**
+     * @param numSeatsByType the number of seats moved of each type, indexed by type ordinal
+     * @param from           the status the seats were in
+     * @param to             the status the seats are in now
+     * @return the counts after the move
+     */
+    public SeatCounts move(int[] numSeatsByType, SeatStatus from, SeatStatus to) {
+        int[] moved = counts.clone();
+        for (SeatType type : TYPES) {
+            moved[index(type, from)] -= numSeatsByType[type.ordinal()];
+            moved[index(type, to)] += numSeatsByType[type.ordinal()];
+        }
+        return new SeatCounts(moved);
+    }
+
+    /**
+     * @param counts the counts of {@link #toArray()}, possibly read on another node
+     * @return the counts
+     */
+    public static SeatCounts of(int[] counts) {
+        if (counts.length != TYPES.length * STATUSES.length) {
+            throw new IllegalArgumentException("Invalid seat counts");
+        }
+        return new SeatCounts(counts.clone());
+    }
+
+    /**
+     * @param other the counts of another part of the venue
+     * @return the counts of both parts
+     */
+    public SeatCounts plus(SeatCounts other) {
+        int[] sum = counts.clone();
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += other.counts[i];
+        }
+        return new SeatCounts(sum);
+    }
+
+    /**
+     * @return the counts indexed by type ordinal * number of statuses + status ordinal
+     */
+    public int[] toArray() {
+        return counts.clone();
+    }
+
+    public int get(SeatType type, SeatStatus status) {
+        return counts[index(type, status)];
+    }
+
+    public int getAvailable() {
+        return total(SeatStatus.AVAILABLE);
+    }
+
+    public int getHeld() {
+        return total(SeatStatus.HOLD);
+    }
+
+    public int getSold() {
+        return total(SeatStatus.SOLD);
+    }
+
+    private int total(SeatStatus status) {
+        int total = 0;
+        for (SeatType type : TYPES) {
+            total += counts[index(type, status)];
+        }
+        return total;
+    }
+
+    private static int index(SeatType type, SeatStatus status) {
+        return type.ordinal() * STATUSES.length + status.ordinal();
+    }
+}
@@ -1,8 +1,10 @@
 package com.acme.ticketing.entity;
 
+import com.acme.ticketing.scheduler.Timeout;
+import com.acme.ticketing.scheduler.TimingWheel;
+
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.function.Consumer;
 
 /**
  * Created by PC on 4/1/2017.
@@ -12,15 +14,20 @@ public class SeatHoldOrder {
     private final String customerEmail;
     private final List<Seat> seats;
     private final long expireInMillis;
-    private final TimerTask timerTask;
-    private Timer timer;
+    private final long expiresAtMillis;
+    private final TimingWheel timingWheel;
+    private final Consumer<List<SeatHoldOrder>> expiryHandler;
+    private volatile Timeout timeout;
 
-    public SeatHoldOrder(int id, String customerEmail, List<Seat> seats, long expireInMillis, TimerTask timerTask) {
+    public SeatHoldOrder(int id, String customerEmail, List<Seat> seats, long expireInMillis,
+                         TimingWheel timingWheel, Consumer<List<SeatHoldOrder>> expiryHandler) {
         this.id = id;
         this.customerEmail = customerEmail;
         this.seats = seats;
         this.expireInMillis = expireInMillis;
-        this.timerTask = timerTask;
+        this.expiresAtMillis = System.currentTimeMillis() + expireInMillis;
+        this.timingWheel = timingWheel;
+        this.expiryHandler = expiryHandler;
     }
 
     public int getId() {
@@ -35,26 +42,35 @@ public class SeatHoldOrder {
         return seats;
     }
 
+    /**
+     * @return wall clock time the hold expires at
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
     public SeatHold getSeatHold() {
         return new SeatHold(id, customerEmail, seats);
     }
 
     public void startTimer() {
-        timer = new Timer();
-        timer.schedule(timerTask, expireInMillis);
+        timeout = timingWheel.schedule(this, expireInMillis, expiryHandler);
     }
 
+    /**
+     * stop the expiration timer
+     *
+     * @return true if the timer was stopped before it expired
+     */
     public boolean cancelTimer() {
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
-            return true;
-        }
-
-        return false;
+        return timeout != null && timeout.cancel();
     }
 
     public boolean isCanceled() {
-        return timer == null;
+        return timeout == null || timeout.isCancelled();
+    }
+
+    public boolean isExpired() {
+        return timeout != null && timeout.isExpired();
     }
 }
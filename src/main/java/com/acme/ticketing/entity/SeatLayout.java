@@ -0,0 +1,175 @@
+package com.acme.ticketing.entity;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Seats of a venue in columnar form, no object is kept per seat.
+ *
+ * The type of every seat is a byte and its rank an int, both indexed by the position of the seat
+ * (row * maxColumn + column), and the statuses are packed by rank in a {@link SeatStateArray}. Ranks put the
+ * seats in best-first (type, row, column) order, or (type, score, row, column) order with a {@link SeatScorer}.
+ * {@link Seat}s are views over these arrays, created only when seats are handed out.
+ *
+ * The arrays are filled row by row in parallel: the seats of each type are counted per row, the counts are
+ * summed up into the first rank of each type in each row, then every row ranks its own seats. With a scorer
+ * every row writes the scores of its seats in their slots instead, as sort keys, and the ranks of each type
+ * are sorted by score with a parallel sort of primitives.
+ */
+final class SeatLayout {
+    private static final String INVALID_SCORE = "Invalid score of seat %s,%s, should be a number";
+    private static final SeatType[] TYPES = SeatType.values();
+
+    private final int maxRow;
+    private final int maxColumn;
+    private final byte[] typeByPosition;
+    private final int[] rankByPosition;
+    private final int[] positionByRank;
+    private final int[] capacityByType = new int[TYPES.length];
+    private final SeatStateArray states;
+
+    /**
+     * @param typeOf the type of the seat at a position, called from several threads
+     * @param scorer the scorer ranking the seats of each type, called from several threads, null to rank them
+     *               in (row, column) order
+     * @param states the statuses of the seats, indexed by rank
+     */
+    SeatLayout(int maxRow, int maxColumn, IntFunction<SeatType> typeOf, SeatScorer scorer, SeatStateArray states) {
+        this.maxRow = maxRow;
+        this.maxColumn = maxColumn;
+        this.states = states;
+        int capacity = Math.multiplyExact(maxRow, maxColumn);
+        typeByPosition = new byte[capacity];
+        rankByPosition = new int[capacity];
+        positionByRank = new int[capacity];
+
+        int[][] numSeatsByTypeAndRow = new int[TYPES.length][maxRow];
+        IntStream.range(0, maxRow).parallel().forEach(row -> {
+            for (int position = row * maxColumn; position < (row + 1) * maxColumn; position++) {
+                SeatType type = typeOf.apply(position);
+                typeByPosition[position] = (byte) type.ordinal();
+                numSeatsByTypeAndRow[type.ordinal()][row]++;
+            }
+        });
+
+        // turn the counts into the rank of the first seat of each type in each row
+        int rank = 0;
+        for (int type = 0; type < TYPES.length; type++) {
+            int[] firstRanks = numSeatsByTypeAndRow[type];
+            for (int row = 0; row < maxRow; row++) {
+                int numSeats = firstRanks[row];
+                firstRanks[row] = rank;
+                rank += numSeats;
+                capacityByType[type] += numSeats;
+            }
+        }
+
+        if (scorer == null) {
+            rankInRowOrder(numSeatsByTypeAndRow);
+        } else {
+            rankByScore(numSeatsByTypeAndRow, scorer);
+        }
+    }
+
+    private void rankInRowOrder(int[][] firstRanks) {
+        IntStream.range(0, maxRow).parallel().forEach(row -> {
+            int[] nextRanks = nextRanks(firstRanks, row);
+            for (int position = row * maxColumn; position < (row + 1) * maxColumn; position++) {
+                int seatRank = nextRanks[typeByPosition[position]]++;
+                rankByPosition[position] = seatRank;
+                positionByRank[seatRank] = position;
+            }
+        });
+    }
+
+    private void rankByScore(int[][] firstRanks, SeatScorer scorer) {
+        // the score in the high bits and the position in the low bits, sorting the keys sorts the seats
+        long[] keys = new long[capacity()];
+        IntStream.range(0, maxRow).parallel().forEach(row -> {
+            int[] nextRanks = nextRanks(firstRanks, row);
+            for (int position = row * maxColumn; position < (row + 1) * maxColumn; position++) {
+                double score = scorer.score(row, position - row * maxColumn, type(position));
+                Preconditions.checkArgument(!Double.isNaN(score), INVALID_SCORE, row, position - row * maxColumn);
+                keys[nextRanks[typeByPosition[position]]++] = ((long) sortableBits((float) score) << Integer.SIZE) | position;
+            }
+        });
+        int from = 0;
+        for (int numSeats : capacityByType) {
+            Arrays.parallelSort(keys, from, from + numSeats);
+            from += numSeats;
+        }
+        IntStream.range(0, keys.length).parallel().forEach(seatRank -> {
+            int position = (int) keys[seatRank];
+            rankByPosition[position] = seatRank;
+            positionByRank[seatRank] = position;
+        });
+    }
+
+    private static int[] nextRanks(int[][] firstRanks, int row) {
+        int[] nextRanks = new int[TYPES.length];
+        for (int type = 0; type < TYPES.length; type++) {
+            nextRanks[type] = firstRanks[type][row];
+        }
+        return nextRanks;
+    }
+
+    // bits of a float ordered as the float when compared as ints
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+
+    int getMaxRow() {
+        return maxRow;
+    }
+
+    int getMaxColumn() {
+        return maxColumn;
+    }
+
+    int capacity() {
+        return typeByPosition.length;
+    }
+
+    int[] capacityByType() {
+        return capacityByType.clone();
+    }
+
+    SeatStateArray states() {
+        return states;
+    }
+
+    int position(int row, int column) {
+        return row * maxColumn + column;
+    }
+
+    int rank(int position) {
+        return rankByPosition[position];
+    }
+
+    SeatType type(int position) {
+        return TYPES[typeByPosition[position]];
+    }
+
+    SeatStatus status(int position) {
+        return states.get(rankByPosition[position]);
+    }
+
+    /**
+     * @return a view of the seat at the position specified
+     */
+    Seat seatAt(int position) {
+        return new Seat(position / maxColumn, position % maxColumn, type(position), states,
+                rankByPosition[position]);
+    }
+
+    /**
+     * @return a view of the seat of the rank specified
+     */
+    Seat seatOfRank(int rank) {
+        return seatAt(positionByRank[rank]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.acme.ticketing.entity;
+
+import java.util.List;
+
+/**
+ * Seat availability of a venue at an inventory version, either the full map or the seats changed since an
+ * earlier version.
+ *
+ * A full map has the runs of every row, alternating available and taken seats and starting with available
+ * ones, so a row starting with a taken seat starts with an empty run. A delta lists the seats that became
+ * available and the ones that were taken since {@code sinceVersion}, as {@code row * maxColumn + column}.
+ */
+public final class SeatMap {
+    private final long version;
+    private final Long sinceVersion;
+    private final int maxRow;
+    private final int maxColumn;
+    private final List<int[]> rows;
+    private final int[] available;
+    private final int[] taken;
+
+    private SeatMap(long version, Long sinceVersion, int maxRow, int maxColumn, List<int[]> rows,
+                    int[] available, int[] taken) {
+        this.version = version;
+        this.sinceVersion = sinceVersion;
+        this.maxRow = maxRow;
+        this.maxColumn = maxColumn;
+        this.rows = rows;
+        this.available = available;
+        this.taken = taken;
+    }
+
+    public static SeatMap full(long version, int maxRow, int maxColumn, List<int[]> rows) {
+        return new SeatMap(version, null, maxRow, maxColumn, rows, null, null);
+    }
+
+    public static SeatMap delta(long version, long sinceVersion, int maxRow, int maxColumn,
+                                int[] available, int[] taken) {
+        return new SeatMap(version, sinceVersion, maxRow, maxColumn, null, available, taken);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the version the delta applies to, null for a full map
+     */
+    public Long getSinceVersion() {
+        return sinceVersion;
+    }
+
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    public int getMaxColumn() {
+        return maxColumn;
+    }
+
+    public List<int[]> getRows() {
+        return rows;
+    }
+
+    public int[] getAvailable() {
+        return available;
+    }
+
+    public int[] getTaken() {
+        return taken;
+    }
+}
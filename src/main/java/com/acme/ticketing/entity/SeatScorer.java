@@ -0,0 +1,46 @@
+package com.acme.ticketing.entity;
+
+/**
+ * Scores the quality of the seats of a venue, called for every seat once when the venue is initialized.
+ *
+ * The scores are compiled into the rank order of the venue: VIP seats first, then by ascending score, then
+ * in (row, column) order, so allocating seats never scores nor compares them. Scores are compared with float
+ * precision and must not be NaN. Any bean implementing this interface is used by the default venue.
+ */
+public interface SeatScorer {
+    /**
+     * @param row       row of the seat
+     * @param column    column of the seat
+     * @param venueType type of the seat given by the best rows and columns of the venue
+     * @return the type of the seat, the venue's by default
+     */
+    default SeatType type(int row, int column, SeatType venueType) {
+        return venueType;
+    }
+
+    /**
+     * @param row    row of the seat
+     * @param column column of the seat
+     * @param type   type of the seat
+     * @return the score of the seat, the lower the better
+     */
+    double score(int row, int column, SeatType type);
+
+    /**
+     * @return this scorer for the seats of a venue starting at the row specified of the venue scored
+     */
+    default SeatScorer fromRow(int rowStart) {
+        SeatScorer scorer = this;
+        return new SeatScorer() {
+            @Override
+            public SeatType type(int row, int column, SeatType venueType) {
+                return scorer.type(row + rowStart, column, venueType);
+            }
+
+            @Override
+            public double score(int row, int column, SeatType type) {
+                return scorer.score(row + rowStart, column, type);
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.acme.ticketing.entity;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat statuses packed 2 bits per seat into an {@link AtomicLongArray}, 32 seats per word.
+ *
+ * Status transitions are compare-and-set on the word holding the seat, so holding, expiring and
+ * reserving seats need no lock. AVAILABLE is encoded as 0, which lets {@link #nextAvailable(int)}
+ * skip a whole word of taken seats with a few bit operations.
+ */
+public final class SeatStateArray {
+    private static final int BITS_PER_SEAT = 2;
+    private static final int SEATS_PER_WORD = Long.SIZE / BITS_PER_SEAT;
+    private static final long SEAT_MASK = (1L << BITS_PER_SEAT) - 1;
+    private static final long LOW_BITS = 0x5555555555555555L;
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    private final AtomicLongArray words;
+    private final int length;
+
+    public SeatStateArray(int length) {
+        this.length = length;
+        this.words = new AtomicLongArray((length + SEATS_PER_WORD - 1) / SEATS_PER_WORD);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public SeatStatus get(int index) {
+        long word = words.get(wordIndex(index));
+        return STATUSES[(int) ((word >>> shift(index)) & SEAT_MASK)];
+    }
+
+    public void set(int index, SeatStatus status) {
+        int wordIndex = wordIndex(index);
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            long updated = (word & ~(SEAT_MASK << shift)) | ((long) status.ordinal() << shift);
+            if (words.compareAndSet(wordIndex, word, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * atomically move a seat from one status to another
+     *
+     * @return true if the seat was in the expected status and has been updated
+     */
+    public boolean compareAndSet(int index, SeatStatus expect, SeatStatus update) {
+        int wordIndex = wordIndex(index);
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            if (((word >>> shift) & SEAT_MASK) != expect.ordinal()) {
+                return false;
+            }
+            long updated = (word & ~(SEAT_MASK << shift)) | ((long) update.ordinal() << shift);
+            if (words.compareAndSet(wordIndex, word, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * find the first available seat at or after the index specified
+     *
+     * @return index of the seat, or -1 if none is available
+     */
+    public int nextAvailable(int fromIndex) {
+        if (fromIndex >= length) {
+            return -1;
+        }
+        int wordIndex = wordIndex(fromIndex);
+        long available = availableBits(words.get(wordIndex)) & (-1L << shift(fromIndex));
+        while (true) {
+            if (available != 0) {
+                int index = wordIndex * SEATS_PER_WORD + Long.numberOfTrailingZeros(available) / BITS_PER_SEAT;
+                return index < length ? index : -1;
+            }
+            if (++wordIndex == words.length()) {
+                return -1;
+            }
+            available = availableBits(words.get(wordIndex));
+        }
+    }
+
+    // one bit set at the low bit of every seat whose 2 bits are both 0
+    private static long availableBits(long word) {
+        return ~(word | (word >>> 1)) & LOW_BITS;
+    }
+
+    private static int wordIndex(int index) {
+        return index / SEATS_PER_WORD;
+    }
+
+    private static int shift(int index) {
+        return (index % SEATS_PER_WORD) * BITS_PER_SEAT;
+    }
+}
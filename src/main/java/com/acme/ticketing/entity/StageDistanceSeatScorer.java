@@ -0,0 +1,23 @@
+package com.acme.ticketing.entity;
+
+/**
+ * Scores seats by their distance to the center of the stage, in seats, the closest first.
+ */
+public class StageDistanceSeatScorer implements SeatScorer {
+    private final double stageRow;
+    private final double stageColumn;
+
+    /**
+     * @param stageRow    row of the center of the stage, may be outside the venue, -1 for a stage before row 0
+     * @param stageColumn column of the center of the stage
+     */
+    public StageDistanceSeatScorer(double stageRow, double stageColumn) {
+        this.stageRow = stageRow;
+        this.stageColumn = stageColumn;
+    }
+
+    @Override
+    public double score(int row, int column, SeatType type) {
+        return Math.hypot(row - stageRow, column - stageColumn);
+    }
+}
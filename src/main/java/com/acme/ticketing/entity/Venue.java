@@ -1,16 +1,18 @@
 package com.acme.ticketing.entity;
 
+import com.acme.ticketing.metrics.TicketingMetrics;
 import com.google.common.base.Preconditions;
-import org.apache.commons.lang3.builder.CompareToBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +26,7 @@ public class Venue {
     private static final String INVALID_BEST_ROW_END =  "Invalid best row end, should be a number between %s and %s";
     private static final String INVALID_BEST_COLUMN_START = "Invalid best column start, should be a number between %s and %s";
     private static final String INVALID_BEST_COLUMN_END =  "Invalid best colu\"Please provide a valid seat count between 1 and \" + maxSeatsmn end, should be a number between %s and %s";
+    private static final String NOT_ENOUGH_SEATS = "Not enough seats available, requested %s, available %s";
 
     private final int maxRow;
     private final int maxColumn;
@@ -31,22 +34,37 @@ public class Venue {
     private final int bestRowEnd;
     private final int bestColumnStart;
     private final int bestColumnEnd;
-    private final List<List<Seat>> seats;
+    private final SeatAllocation seatAllocation;
     private final int capacity;
 
-    private ReentrantLock lock = new ReentrantLock(true);
+    // statuses in best-first order, the rank of a seat is its slot
+    private final SeatStateArray seatStates;
+    private SeatScorer seatScorer;
+    // types and ranks of the seats in primitive arrays, seats are views created when handed out
+    private SeatLayout layout;
+    private SeatAllocator seatAllocator;
+    // seats available and not claimed yet by a hold in progress
+    private final AtomicInteger numSeatsAvailable = new AtomicInteger();
+    // seats by type and status, replaced as a whole once the statuses have changed
+    private final AtomicReference<SeatCounts> seatCounts = new AtomicReference<>();
 
+    public Venue(int maxRow, int maxColumn, int bestRowStart, int bestRowEnd, int bestColumnStart, int bestColumnEnd) {
+        this(maxRow, maxColumn, bestRowStart, bestRowEnd, bestColumnStart, bestColumnEnd, SeatAllocation.BEST_AVAILABLE);
+    }
+
+    @Autowired
     public Venue(@Value("${venue.maxRow:9}") int maxRow,
                  @Value("${venue.maxColumn:33}") int maxColumn,
                  @Value("${venue.bestRow.start:3}") int bestRowStart,
                  @Value("${venue.bestRow.end:5}") int bestRowEnd,
                  @Value("${venue.bestColumn.start:11}") int bestColumnStart,
-                 @Value("${venue.bestColumn.end:21}") int bestColumnEnd) {
+                 @Value("${venue.bestColumn.end:21}") int bestColumnEnd,
+                 @Value("${venue.seatAllocation:CONTIGUOUS}") SeatAllocation seatAllocation) {
 
         Preconditions.checkArgument(maxRow > 0, INVALID_MAX_ROW);
         Preconditions.checkArgument(maxColumn > 0, INVALID_MAX_COLUMN);
         Preconditions.checkArgument(bestRowStart >= 0 && bestRowStart < maxRow, INVALID_BEST_ROW_START, 0, maxRow);
-        Preconditions.checkArgument(bestRowEnd >= bestRowStart && bestRowEnd < maxRow, INVALID_BEST_ROW_END, bestRowStart, maxRow);
+        Preconditions.checkArgument(bestRowEnd >= bestRowStart && bestRowEnd <= maxRow, INVALID_BEST_ROW_END, bestRowStart, maxRow);
         Preconditions.checkArgument(bestColumnStart >= 0 && bestColumnStart < maxColumn, INVALID_BEST_COLUMN_START, 0, maxColumn);
         Preconditions.checkArgument(maxRow > 0, INVALID_BEST_COLUMN_END, bestColumnStart, maxColumn);
 
@@ -57,57 +75,293 @@ public class Venue {
         this.bestRowEnd = bestRowEnd;
         this.bestColumnStart = bestColumnStart;
         this.bestColumnEnd = bestColumnEnd;
-        seats = Collections.synchronizedList(new ArrayList<>(maxRow));
+        this.seatAllocation = seatAllocation;
+        seatStates = new SeatStateArray(capacity);
     }
 
     @PostConstruct
     public void init() {
+        layout = new SeatLayout(maxRow, maxColumn,
+                position -> seatTypeOf(position / maxColumn, position % maxColumn), seatScorer, seatStates);
+        seatAllocator = seatAllocation == SeatAllocation.CONTIGUOUS ?
+                new ContiguousSeatAllocator(layout) : new BestAvailableSeatAllocator(layout);
+        numSeatsAvailable.set(capacity);
+        seatCounts.set(SeatCounts.available(layout.capacityByType()));
+    }
 
-        for (int i = 0; i < maxRow; i++) {
-            List<Seat> seatRow = new ArrayList<>(maxColumn);
-            for (int j = 0; j < maxColumn; j++) {
-                SeatType type = i >= bestRowStart && i < bestRowEnd && j >= bestColumnStart && j < bestColumnEnd ?
-                        SeatType.VIP : SeatType.NORMAL;
+    private SeatType seatTypeOf(int row, int column) {
+        SeatType type = row >= bestRowStart && row < bestRowEnd && column >= bestColumnStart && column < bestColumnEnd ?
+                SeatType.VIP : SeatType.NORMAL;
+        return seatScorer != null ? seatScorer.type(row, column, type) : type;
+    }
 
-                seatRow.add(new Seat(i, j, type));
-            }
-            seats.add(seatRow);
+    /**
+     * rank the seats with the scorer specified, before {@link #init()}
+     * @param seatScorer the scorer, null to rank the seats in (type, row, column) order
+     */
+    @Autowired(required = false)
+    public void setSeatScorer(SeatScorer seatScorer) {
+        this.seatScorer = seatScorer;
+    }
+
+    public SeatScorer getSeatScorer() {
+        return seatScorer;
+    }
+
+    private Seat seatAt(Seat seat) {
+        return layout.seatAt(layout.position(seat.getRow(), seat.getColumn()));
+    }
+
+    /**
+     * @return the seat at the row and column specified, null if the venue has no such seat
+     */
+    public Seat getSeat(int row, int column) {
+        if (row < 0 || row >= maxRow || column < 0 || column >= maxColumn) {
+            return null;
         }
+        return layout.seatAt(layout.position(row, column));
     }
 
     public int getCapacity() {
         return capacity;
     }
 
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    public int getMaxColumn() {
+        return maxColumn;
+    }
+
+    public int getBestRowStart() {
+        return bestRowStart;
+    }
+
+    public int getBestRowEnd() {
+        return bestRowEnd;
+    }
+
+    public int getBestColumnStart() {
+        return bestColumnStart;
+    }
+
+    public int getBestColumnEnd() {
+        return bestColumnEnd;
+    }
+
+    public SeatAllocation getSeatAllocation() {
+        return seatAllocation;
+    }
+
+    public int getNumSeatsAvailable() {
+        return numSeatsAvailable.get();
+    }
+
     /**
-     * hold number of seats specified
+     * @return the seats by type and status, consistent with each other, seats being held count as available
+     * until they are picked
+     */
+    public SeatCounts getSeatCounts() {
+        return seatCounts.get();
+    }
+
+    /**
+     * hold number of seats specified, best seats first
      * @param number
      * @return
      */
     public List<Seat> holdSeats(int number) {
-        try {
-            lock.lock();
-            // find seats available
-            List<Seat> seatsAvailable = seats.stream()
-                    .flatMap(Collection::stream)
-                    .filter(seat -> seat.getStatus() == SeatStatus.AVAILABLE)
-                    .collect(Collectors.toList());
-
-            // find the best seats
-            List<Seat> seatsSelected = seatsAvailable.stream()
-                    .sorted((a, b) -> new CompareToBuilder().append(a.getType(), b.getType())
-                            .append(a.getRow(), b.getRow())
-                            .append(a.getColumn(), b.getColumn())
-                            .build())
-                    .collect(Collectors.toList())
-                    .subList(0, number);
-
-            // update seat status
-            seatsSelected.stream().forEach(seat -> seat.setStatus(SeatStatus.HOLD));
-
-            return seatsSelected;
-        } finally {
-            lock.unlock();
+        List<Seat> seatsSelected = tryHoldSeats(number);
+        Preconditions.checkState(seatsSelected != null, NOT_ENOUGH_SEATS, number, numSeatsAvailable.get());
+        return seatsSelected;
+    }
+
+    /**
+     * hold number of seats specified, best seats first
+     * @param number
+     * @return the seats on hold, or null if there are not enough seats available
+     */
+    public List<Seat> tryHoldSeats(int number) {
+        if (!claimSeats(number)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        List<Seat> seatsSelected = seatAllocator.allocate(number);
+        TicketingMetrics.SEAT_ALLOCATION.recordSince(start);
+        if (seatsSelected == null) {
+            // the seats claimed were restored meanwhile
+            numSeatsAvailable.addAndGet(number);
+            return null;
+        }
+        count(countByType(seatsSelected, new int[SeatType.values().length]), SeatStatus.AVAILABLE, SeatStatus.HOLD);
+        return seatsSelected;
+    }
+
+    /**
+     * hold seats for several requests in one pass, requests are served in order while seats last
+     * @param numbers number of seats of each request
+     * @return the seats on hold of each request, null for the requests that could not be served
+     */
+    public List<List<Seat>> tryHoldSeats(int[] numbers) {
+        int[] numbersClaimed = claimSeats(numbers);
+        if (Arrays.stream(numbersClaimed).allMatch(number -> number == 0)) {
+            return Arrays.stream(numbersClaimed).mapToObj(number -> (List<Seat>) null).collect(Collectors.toList());
+        }
+        long start = System.nanoTime();
+        List<List<Seat>> seatsByHold = seatAllocator.allocate(numbersClaimed);
+        TicketingMetrics.SEAT_ALLOCATION.recordSince(start);
+        int[] numSeatsByType = new int[SeatType.values().length];
+        for (int i = 0; i < numbersClaimed.length; i++) {
+            List<Seat> seatsSelected = seatsByHold.get(i);
+            if (seatsSelected != null) {
+                countByType(seatsSelected, numSeatsByType);
+            } else if (numbersClaimed[i] > 0) {
+                // the seats claimed were restored meanwhile
+                numSeatsAvailable.addAndGet(numbersClaimed[i]);
+            }
+        }
+        count(numSeatsByType, SeatStatus.AVAILABLE, SeatStatus.HOLD);
+        return seatsByHold;
+    }
+
+    // claim the seats of every request that still fits, in a single update of the available count
+    private int[] claimSeats(int[] numbers) {
+        while (true) {
+            int available = numSeatsAvailable.get();
+            int remaining = available;
+            int[] numbersClaimed = new int[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                if (numbers[i] > 0 && numbers[i] <= remaining) {
+                    numbersClaimed[i] = numbers[i];
+                    remaining -= numbers[i];
+                }
+            }
+            if (remaining == available || numSeatsAvailable.compareAndSet(available, remaining)) {
+                return numbersClaimed;
+            }
+            TicketingMetrics.SEAT_CLAIM_RETRIES.increment();
+        }
+    }
+
+    private boolean claimSeats(int number) {
+        while (true) {
+            int available = numSeatsAvailable.get();
+            if (available < number) {
+                return false;
+            }
+            if (numSeatsAvailable.compareAndSet(available, available - number)) {
+                return true;
+            }
+            TicketingMetrics.SEAT_CLAIM_RETRIES.increment();
+        }
+    }
+
+    /**
+     * release seats on hold and make them available again
+     * @param seatsOnHold
+     * @return number of seats released
+     */
+    public int releaseSeats(Collection<Seat> seatsOnHold) {
+        List<Seat> seatsReleased = new ArrayList<>(seatsOnHold.size());
+        for (Seat seat : seatsOnHold) {
+            Seat venueSeat = seatAt(seat);
+            if (venueSeat.compareAndSetStatus(SeatStatus.HOLD, SeatStatus.AVAILABLE)) {
+                seatsReleased.add(venueSeat);
+            }
+        }
+
+        if (!seatsReleased.isEmpty()) {
+            // statuses first, then the allocator, then the count, so a claimed count always finds its seats
+            seatAllocator.release(seatsReleased);
+            count(countByType(seatsReleased, new int[SeatType.values().length]), SeatStatus.HOLD, SeatStatus.AVAILABLE);
+            numSeatsAvailable.addAndGet(seatsReleased.size());
+        }
+        return seatsReleased.size();
+    }
+
+    /**
+     * statuses of all the seats, row by row, packed 2 bits per seat (4 seats per byte, first seat in the
+     * lowest bits), each seat being read atomically but not all of them at the same instant
+     * @return the packed statuses
+     */
+    public byte[] getSeatStatuses() {
+        byte[] statuses = new byte[(capacity + 3) / 4];
+        for (int position = 0; position < capacity; position++) {
+            statuses[position >> 2] |= layout.status(position).ordinal() << ((position & 3) << 1);
+        }
+        return statuses;
+    }
+
+    /**
+     * availability of all the seats, row by row, one bit per seat set when the seat is available, each seat
+     * being read atomically but not all of them at the same instant
+     * @return the availability bits, 64 seats per long
+     */
+    public long[] getAvailability() {
+        long[] availability = new long[(capacity + Long.SIZE - 1) / Long.SIZE];
+        for (int position = 0; position < capacity; position++) {
+            if (layout.status(position) == SeatStatus.AVAILABLE) {
+                availability[position >>> 6] |= 1L << position;
+            }
+        }
+        return availability;
+    }
+
+    /**
+     * move available seats straight to the status specified, when restoring the state of the venue
+     * @param seatsToRestore
+     * @param status HOLD or SOLD
+     * @return the seats restored, the ones no longer available are skipped
+     */
+    public List<Seat> restoreSeats(Collection<Seat> seatsToRestore, SeatStatus status) {
+        List<Seat> seatsRestored = new ArrayList<>(seatsToRestore.size());
+        for (Seat seat : seatsToRestore) {
+            Seat venueSeat = seatAt(seat);
+            if (venueSeat.compareAndSetStatus(SeatStatus.AVAILABLE, status)) {
+                seatsRestored.add(venueSeat);
+            }
+        }
+
+        if (!seatsRestored.isEmpty()) {
+            numSeatsAvailable.addAndGet(-seatsRestored.size());
+            seatAllocator.take(seatsRestored);
+            count(countByType(seatsRestored, new int[SeatType.values().length]), SeatStatus.AVAILABLE, status);
+        }
+        return seatsRestored;
+    }
+
+    /**
+     * mark seats on hold as sold
+     * @param seatsOnHold
+     * @return number of seats sold
+     */
+    public int sellSeats(Collection<Seat> seatsOnHold) {
+        int sold = 0;
+        int[] numSeatsByType = new int[SeatType.values().length];
+        for (Seat seat : seatsOnHold) {
+            Seat venueSeat = seatAt(seat);
+            if (venueSeat.compareAndSetStatus(SeatStatus.HOLD, SeatStatus.SOLD)) {
+                numSeatsByType[venueSeat.getType().ordinal()]++;
+                sold++;
+            }
+        }
+        count(numSeatsByType, SeatStatus.HOLD, SeatStatus.SOLD);
+        return sold;
+    }
+
+    private static int[] countByType(Collection<Seat> seats, int[] numSeatsByType) {
+        for (Seat seat : seats) {
+            numSeatsByType[seat.getType().ordinal()]++;
+        }
+        return numSeatsByType;
+    }
+
+    // one compare-and-set for all the seats moved, however many types and seats
+    private void count(int[] numSeatsByType, SeatStatus from, SeatStatus to) {
+        if (Arrays.stream(numSeatsByType).allMatch(number -> number == 0)) {
+            return;
         }
+        seatCounts.updateAndGet(counts -> counts.move(numSeatsByType, from, to));
     }
 }
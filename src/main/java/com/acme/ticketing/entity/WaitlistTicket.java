@@ -0,0 +1,86 @@
+package com.acme.ticketing.entity;
+
+/**
+ * A hold request waiting for seats, polled by the customer until the seats are held
+ */
+public final class WaitlistTicket {
+    public enum Status {
+        /**
+         * waiting for seats to be released
+         */
+        WAITING,
+        /**
+         * the seats are on hold, to be reserved before the hold expires
+         */
+        HELD,
+        /**
+         * no seats were released in time
+         */
+        EXPIRED,
+        /**
+         * the seats could not be held, see the error
+         */
+        FAILED
+    }
+
+    private final String id;
+    private final String customerEmail;
+    private final int numSeats;
+    private final long expiresAtMillis;
+    // the hold is set before the status, a reader seeing HELD sees the hold
+    private volatile SeatHold seatHold;
+    private volatile String error;
+    private volatile Status status = Status.WAITING;
+
+    /**
+     * @param expiresAtMillis wall clock time the request stops waiting at
+     */
+    public WaitlistTicket(String id, String customerEmail, int numSeats, long expiresAtMillis) {
+        this.id = id;
+        this.customerEmail = customerEmail;
+        this.numSeats = numSeats;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public void held(SeatHold seatHold) {
+        this.seatHold = seatHold;
+        this.status = Status.HELD;
+    }
+
+    public void expired() {
+        this.status = Status.EXPIRED;
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public SeatHold getSeatHold() {
+        return seatHold;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,7 @@
+package com.acme.ticketing.exception;
+
+public class EventNotFoundException extends RuntimeException {
+    public EventNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -4,7 +4,21 @@ package com.acme.ticketing.exception;
  * Created by Mom and Dad on 3/30/2017.
  */
 public class TicketSystemBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
     public TicketSystemBusyException(String message) {
+        this(message, 0);
+    }
+
+    public TicketSystemBusyException(String message, long retryAfterSeconds) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return seconds the client should wait before trying again, 0 if unknown
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
 }
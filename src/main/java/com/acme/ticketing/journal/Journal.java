@@ -0,0 +1,324 @@
+package com.acme.ticketing.journal;
+
+import com.acme.ticketing.metrics.TicketingMetrics;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of {@link JournalRecord}s with group commit.
+ *
+ * Appending only copies the record to an in-memory batch. One writer thread writes the batch to the file
+ * and forces it to disk, while the next batch fills up, so every request waiting for durability with
+ * {@link #awaitDurable(long)} during one sync shares the next one. Every record is framed with its length
+ * and a CRC32, and a torn record at the end of the file, left by a crash, is dropped when the journal is
+ * opened again.
+ */
+public class Journal implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(Journal.class);
+
+    private static final String JOURNAL_CLOSED = "Journal %s is closed";
+    private static final String JOURNAL_FAILED = "Journal %s failed";
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final int INITIAL_BATCH_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final Thread writer;
+    private final Object durableMonitor = new Object();
+    // futures of whenDurable, by position, guarded by durableMonitor
+    private final PriorityQueue<DurableWaiter> durableWaiters = new PriorityQueue<>();
+    private ByteBuffer batch = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private ByteBuffer batchWritten = ByteBuffer.allocate(INITIAL_BATCH_SIZE);
+    private int batchRecords;
+    private volatile long appendedPosition;
+    private volatile long durablePosition;
+    private volatile IOException failure;
+    private boolean closed;
+
+    private Journal(Path path, FileChannel channel, long position, boolean fsync) {
+        this.path = path;
+        this.channel = channel;
+        this.fsync = fsync;
+        this.appendedPosition = position;
+        this.durablePosition = position;
+        this.writer = new Thread(this::run, "journal-" + path.getFileName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Open a journal, replaying the records already in it
+     *
+     * @param path          the journal file, created if missing
+     * @param fsync         false to leave the data written in the OS cache, durable across a process crash
+     *                      but not across a machine crash
+     * @param replayHandler called with every record in the journal, in order, before this method returns
+     * @return the journal, ready to append records after the ones replayed
+     */
+    public static Journal open(Path path, boolean fsync, Consumer<JournalRecord> replayHandler) throws IOException {
+        return open(path, fsync, 0, replayHandler);
+    }
+
+    /**
+     * Open a journal, replaying the records after a position, the ones before being covered by a snapshot
+     *
+     * @param path          the journal file, created if missing
+     * @param fsync         false to leave the data written in the OS cache
+     * @param fromPosition  the position to replay from, a position returned by {@link #append(JournalRecord)}
+     * @param replayHandler called with every record after the position, in order, before this method returns
+     * @return the journal, ready to append records after the ones replayed
+     */
+    public static Journal open(Path path, boolean fsync, long fromPosition, Consumer<JournalRecord> replayHandler)
+            throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (fromPosition > channel.size()) {
+            LOG.warn("Journal {} is shorter than the snapshot position {}, replaying nothing", path, fromPosition);
+            fromPosition = channel.size();
+        }
+        long validEnd = replay(channel, fromPosition, replayHandler);
+        if (channel.size() > validEnd) {
+            LOG.warn("Dropping {} byte(s) of incomplete records at the end of journal {}", channel.size() - validEnd, path);
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        return new Journal(path, channel, validEnd, fsync);
+    }
+
+    private static long replay(FileChannel channel, long fromPosition, Consumer<JournalRecord> replayHandler)
+            throws IOException {
+        int[] records = new int[1];
+        long validEnd = read(channel, fromPosition, record -> {
+            replayHandler.accept(record);
+            records[0]++;
+        });
+        LOG.info("Replayed {} journal record(s)", records[0]);
+        return validEnd;
+    }
+
+    /**
+     * Read the complete records of a journal written by another process, from a position. A record still
+     * being written ends the read, the next read from the position returned picks it up once complete.
+     *
+     * @param channel       the journal file, open for reading
+     * @param fromPosition  the position to read from, 0 or a position returned by an earlier read
+     * @param recordHandler called with every complete record after the position, in order
+     * @return the position after the last complete record read
+     */
+    public static long read(FileChannel channel, long fromPosition, Consumer<JournalRecord> recordHandler)
+            throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(fromPosition))));
+        CRC32 crc = new CRC32();
+        long validEnd = fromPosition;
+        while (true) {
+            byte[] body;
+            int checksum;
+            try {
+                int length = input.readInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                checksum = input.readInt();
+                body = new byte[length];
+                input.readFully(body);
+            } catch (EOFException ex) {
+                break;
+            }
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            recordHandler.accept(JournalRecord.decode(ByteBuffer.wrap(body)));
+            validEnd += FRAME_HEADER_SIZE + body.length;
+        }
+        return validEnd;
+    }
+
+    /**
+     * Add a record at the end of the journal, the record is written in the background
+     *
+     * @param record the record
+     * @return the position of the journal once the record is written, to wait for with {@link #awaitDurable(long)}
+     */
+    public long append(JournalRecord record) {
+        byte[] body = record.encode();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        synchronized (this) {
+            Preconditions.checkState(!closed, JOURNAL_CLOSED, path);
+            if (batch.remaining() < FRAME_HEADER_SIZE + body.length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * batch.capacity(), batch.position() + FRAME_HEADER_SIZE + body.length));
+                batch.flip();
+                batch = larger.put(batch);
+            }
+            batch.putInt(body.length).putInt((int) crc.getValue()).put(body);
+            batchRecords++;
+            appendedPosition += FRAME_HEADER_SIZE + body.length;
+            notify();
+            return appendedPosition;
+        }
+    }
+
+    public long getAppendedPosition() {
+        return appendedPosition;
+    }
+
+    /**
+     * Wait until the journal is durable up to the position specified
+     *
+     * @param position a position returned by {@link #append(JournalRecord)} or {@link #getAppendedPosition()}
+     */
+    public void awaitDurable(long position) {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (durableMonitor) {
+            while (durablePosition < position) {
+                if (failure != null) {
+                    throw new UncheckedIOException(String.format(JOURNAL_FAILED, path), failure);
+                }
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(String.format(JOURNAL_CLOSED, path), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get notified once the journal is durable up to the position specified, without waiting
+     *
+     * @param position a position returned by {@link #append(JournalRecord)} or {@link #getAppendedPosition()}
+     * @return a future completed by the journal writer, keep its dependent actions short
+     */
+    public CompletableFuture<Void> whenDurable(long position) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        synchronized (durableMonitor) {
+            if (failure != null) {
+                durable.completeExceptionally(new UncheckedIOException(String.format(JOURNAL_FAILED, path), failure));
+            } else if (durablePosition >= position) {
+                durable.complete(null);
+            } else {
+                durableWaiters.add(new DurableWaiter(position, durable));
+            }
+        }
+        return durable;
+    }
+
+    /**
+     * Write the records appended so far and stop the journal
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notify();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                long position;
+                int records;
+                synchronized (this) {
+                    while (batch.position() == 0 && !closed) {
+                        wait();
+                    }
+                    if (batch.position() == 0) {
+                        return;
+                    }
+                    ByteBuffer full = batch;
+                    batch = batchWritten;
+                    batchWritten = full;
+                    position = appendedPosition;
+                    records = batchRecords;
+                    batchRecords = 0;
+                }
+
+                long start = System.nanoTime();
+                batchWritten.flip();
+                while (batchWritten.hasRemaining()) {
+                    channel.write(batchWritten);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+                batchWritten.clear();
+                TicketingMetrics.JOURNAL_SYNC.recordSince(start);
+                TicketingMetrics.JOURNAL_RECORDS.add(records);
+
+                List<CompletableFuture<Void>> durable = new ArrayList<>();
+                synchronized (durableMonitor) {
+                    durablePosition = position;
+                    durableMonitor.notifyAll();
+                    while (!durableWaiters.isEmpty() && durableWaiters.peek().position <= position) {
+                        durable.add(durableWaiters.poll().durable);
+                    }
+                }
+                for (CompletableFuture<Void> future : durable) {
+                    future.complete(null);
+                }
+            }
+        } catch (IOException ex) {
+            LOG.error("Failed to write journal {}", path, ex);
+            List<DurableWaiter> failed;
+            synchronized (durableMonitor) {
+                failure = ex;
+                durableMonitor.notifyAll();
+                failed = new ArrayList<>(durableWaiters);
+                durableWaiters.clear();
+            }
+            for (DurableWaiter waiter : failed) {
+                waiter.durable.completeExceptionally(new UncheckedIOException(String.format(JOURNAL_FAILED, path), ex));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class DurableWaiter implements Comparable<DurableWaiter> {
+        private final long position;
+        private final CompletableFuture<Void> durable;
+
+        private DurableWaiter(long position, CompletableFuture<Void> durable) {
+            this.position = position;
+            this.durable = durable;
+        }
+
+        @Override
+        public int compareTo(DurableWaiter other) {
+            return Long.compare(position, other.position);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.acme.ticketing.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A hold, reservation or expiration written to the {@link Journal}.
+ *
+ * Seats are identified by row and column, times are wall clock milliseconds so that they still make
+ * sense after a restart.
+ */
+public final class JournalRecord {
+    public enum Type {
+        HOLD, RESERVE, EXPIRE
+    }
+
+    private final Type type;
+    private final int[] seatHoldIds;
+    private final String customerEmail;
+    private final long expiresAtMillis;
+    private final int[] rows;
+    private final int[] columns;
+    private final String confirmation;
+
+    private JournalRecord(Type type, int[] seatHoldIds, String customerEmail, long expiresAtMillis,
+                          int[] rows, int[] columns, String confirmation) {
+        this.type = type;
+        this.seatHoldIds = seatHoldIds;
+        this.customerEmail = customerEmail;
+        this.expiresAtMillis = expiresAtMillis;
+        this.rows = rows;
+        this.columns = columns;
+        this.confirmation = confirmation;
+    }
+
+    public static JournalRecord hold(int seatHoldId, String customerEmail, long expiresAtMillis, int[] rows, int[] columns) {
+        return new JournalRecord(Type.HOLD, new int[]{seatHoldId}, customerEmail, expiresAtMillis, rows, columns, null);
+    }
+
+    public static JournalRecord reserve(int seatHoldId, String confirmation) {
+        return new JournalRecord(Type.RESERVE, new int[]{seatHoldId}, null, 0, null, null, confirmation);
+    }
+
+    public static JournalRecord expire(List<Integer> seatHoldIds) {
+        return new JournalRecord(Type.EXPIRE, seatHoldIds.stream().mapToInt(Integer::intValue).toArray(),
+                null, 0, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getSeatHoldId() {
+        return seatHoldIds[0];
+    }
+
+    /**
+     * @return the holds expired by an EXPIRE record
+     */
+    public int[] getSeatHoldIds() {
+        return seatHoldIds;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public int[] getRows() {
+        return rows;
+    }
+
+    public int[] getColumns() {
+        return columns;
+    }
+
+    public String getConfirmation() {
+        return confirmation;
+    }
+
+    byte[] encode() {
+        byte[] email = customerEmail == null ? null : customerEmail.getBytes(StandardCharsets.UTF_8);
+        byte[] code = confirmation == null ? null : confirmation.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer;
+        switch (type) {
+            case HOLD:
+                buffer = ByteBuffer.allocate(1 + 4 + 8 + 4 + email.length + 4 + 8 * rows.length);
+                buffer.put((byte) type.ordinal()).putInt(seatHoldIds[0]).putLong(expiresAtMillis);
+                buffer.putInt(email.length).put(email).putInt(rows.length);
+                for (int i = 0; i < rows.length; i++) {
+                    buffer.putInt(rows[i]).putInt(columns[i]);
+                }
+                break;
+            case RESERVE:
+                buffer = ByteBuffer.allocate(1 + 4 + 4 + code.length);
+                buffer.put((byte) type.ordinal()).putInt(seatHoldIds[0]).putInt(code.length).put(code);
+                break;
+            default:
+                buffer = ByteBuffer.allocate(1 + 4 + 4 * seatHoldIds.length);
+                buffer.put((byte) type.ordinal()).putInt(seatHoldIds.length);
+                for (int seatHoldId : seatHoldIds) {
+                    buffer.putInt(seatHoldId);
+                }
+        }
+        return buffer.array();
+    }
+
+    static JournalRecord decode(ByteBuffer buffer) {
+        Type type = Type.values()[buffer.get()];
+        switch (type) {
+            case HOLD:
+                int seatHoldId = buffer.getInt();
+                long expiresAtMillis = buffer.getLong();
+                String customerEmail = getString(buffer);
+                int[] rows = new int[buffer.getInt()];
+                int[] columns = new int[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = buffer.getInt();
+                    columns[i] = buffer.getInt();
+                }
+                return hold(seatHoldId, customerEmail, expiresAtMillis, rows, columns);
+            case RESERVE:
+                return reserve(buffer.getInt(), getString(buffer));
+            default:
+                int[] seatHoldIds = new int[buffer.getInt()];
+                for (int i = 0; i < seatHoldIds.length; i++) {
+                    seatHoldIds[i] = buffer.getInt();
+                }
+                return new JournalRecord(Type.EXPIRE, seatHoldIds, null, 0, null, null, null);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,195 @@
+package com.acme.ticketing.journal;
+
+import com.acme.ticketing.entity.SeatStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Point-in-time image of the inventory of an event: the status of every seat packed 2 bits per seat, and
+ * the table of the holds still open, stored as hold {@link JournalRecord}s with their expiry time, and the
+ * log of the invoices of the event.
+ *
+ * A snapshot also records the journal position it covers, so a restart loads the snapshot and only
+ * replays the journal after that position. Snapshots are written to a temporary file and moved over the
+ * previous one, so a crash while writing leaves the previous snapshot in place.
+ */
+public final class Snapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(Snapshot.class);
+
+    private static final int MAGIC = 0x54534e50;
+    private static final int VERSION = 2;
+
+    private final int maxRow;
+    private final int maxColumn;
+    private final long takenAtMillis;
+    private final long journalPosition;
+    private final int lastSeatHoldId;
+    private final byte[] seatStatuses;
+    private final List<JournalRecord> holds;
+    private final byte[] invoices;
+
+    /**
+     * @param journalPosition the journal position the snapshot covers, every change recorded after it
+     *                        may be missing from the snapshot, -1 if there is no journal
+     * @param seatStatuses    seat statuses row by row, 2 bits per seat
+     * @param holds           the holds still open
+     * @param invoices        the invoice log of the event
+     */
+    public Snapshot(int maxRow, int maxColumn, long takenAtMillis, long journalPosition, int lastSeatHoldId,
+                    byte[] seatStatuses, List<JournalRecord> holds, byte[] invoices) {
+        this.maxRow = maxRow;
+        this.maxColumn = maxColumn;
+        this.takenAtMillis = takenAtMillis;
+        this.journalPosition = journalPosition;
+        this.lastSeatHoldId = lastSeatHoldId;
+        this.seatStatuses = seatStatuses;
+        this.holds = holds;
+        this.invoices = invoices;
+    }
+
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    public int getMaxColumn() {
+        return maxColumn;
+    }
+
+    public long getTakenAtMillis() {
+        return takenAtMillis;
+    }
+
+    public long getJournalPosition() {
+        return journalPosition;
+    }
+
+    public int getLastSeatHoldId() {
+        return lastSeatHoldId;
+    }
+
+    public SeatStatus getSeatStatus(int row, int column) {
+        int position = row * maxColumn + column;
+        return SeatStatus.values()[(seatStatuses[position >> 2] >> ((position & 3) << 1)) & 3];
+    }
+
+    public List<JournalRecord> getHolds() {
+        return holds;
+    }
+
+    public byte[] getInvoices() {
+        return invoices;
+    }
+
+    /**
+     * Write the snapshot durably in place of the previous one
+     *
+     * @param path the snapshot file
+     */
+    public void write(Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(seatStatuses.length + 64 * holds.size()
+                + invoices.length + 64);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(maxRow);
+        output.writeInt(maxColumn);
+        output.writeLong(takenAtMillis);
+        output.writeLong(journalPosition);
+        output.writeInt(lastSeatHoldId);
+        output.writeInt(seatStatuses.length);
+        output.write(seatStatuses);
+        output.writeInt(holds.size());
+        for (JournalRecord hold : holds) {
+            byte[] record = hold.encode();
+            output.writeInt(record.length);
+            output.write(record);
+        }
+        output.writeInt(invoices.length);
+        output.write(invoices);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        output.writeInt((int) crc.getValue());
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a snapshot
+     *
+     * @param path the snapshot file
+     * @return the snapshot, null if there is none or it cannot be read
+     */
+    public static Snapshot read(Path path) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read snapshot " + path, ex);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, Math.max(bytes.length - 4, 0));
+        if (bytes.length < 4 || ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() != (int) crc.getValue()) {
+            LOG.warn("Ignoring corrupted snapshot {}", path);
+            return null;
+        }
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            int version = input.readInt() == MAGIC ? input.readInt() : -1;
+            if (version < 1 || version > VERSION) {
+                LOG.warn("Ignoring snapshot {} of an unknown format", path);
+                return null;
+            }
+            int maxRow = input.readInt();
+            int maxColumn = input.readInt();
+            long takenAtMillis = input.readLong();
+            long journalPosition = input.readLong();
+            int lastSeatHoldId = input.readInt();
+            byte[] seatStatuses = new byte[input.readInt()];
+            input.readFully(seatStatuses);
+            int numHolds = input.readInt();
+            List<JournalRecord> holds = new ArrayList<>(numHolds);
+            for (int i = 0; i < numHolds; i++) {
+                byte[] record = new byte[input.readInt()];
+                input.readFully(record);
+                holds.add(JournalRecord.decode(ByteBuffer.wrap(record)));
+            }
+            // version 1 snapshots have no invoices
+            byte[] invoices = new byte[version >= 2 ? input.readInt() : 0];
+            input.readFully(invoices);
+            return new Snapshot(maxRow, maxColumn, takenAtMillis, journalPosition, lastSeatHoldId, seatStatuses, holds,
+                    invoices);
+        } catch (IOException ex) {
+            LOG.warn("Ignoring unreadable snapshot {}", path, ex);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.acme.ticketing.metrics;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Non-reentrant use of a {@link ReentrantLock} recording how long threads wait for it and how long they
+ * keep it
+ */
+public class InstrumentedLock {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LatencyTimer waitTimer;
+    private final LatencyTimer heldTimer;
+    // only written and read by the thread owning the lock
+    private long acquiredAt;
+
+    public InstrumentedLock(LatencyTimer waitTimer, LatencyTimer heldTimer) {
+        this.waitTimer = waitTimer;
+        this.heldTimer = heldTimer;
+    }
+
+    public void lock() {
+        long start = System.nanoTime();
+        if (lock.tryLock()) {
+            acquiredAt = start;
+            waitTimer.record(0);
+            return;
+        }
+        lock.lock();
+        acquiredAt = System.nanoTime();
+        waitTimer.record(acquiredAt - start);
+    }
+
+    public void unlock() {
+        heldTimer.recordSince(acquiredAt);
+        lock.unlock();
+    }
+}
@@ -0,0 +1,50 @@
+package com.acme.ticketing.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, mean and max of a duration, recorded on striped counters so that recording threads do not
+ * contend with each other
+ */
+public class LatencyTimer {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * record the time elapsed since the start specified
+     *
+     * @param startNanos the start, from {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        // the max only moves up between reads, so most recordings skip the compare-and-set
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the longest duration recorded since the previous call, in milliseconds
+     */
+    public double getAndResetMaxMillis() {
+        return (double) maxNanos.getAndSet(0) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
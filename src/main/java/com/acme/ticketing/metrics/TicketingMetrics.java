@@ -0,0 +1,61 @@
+package com.acme.ticketing.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot path timers and counters of the ticket service, process-wide: every event records into the same ones,
+ * so they are totals over all the events and have no per-event breakdown, the seat counts of each event
+ * being served by its own endpoints.
+ *
+ * They are static so the venues and allocators built outside of the Spring context record into them as
+ * well, and are exported by {@link TicketingPublicMetrics}. The requests of a batch are counted one by one,
+ * a request rejected by validation as invalid and one left without seats as a failed hold.
+ */
+public final class TicketingMetrics {
+    public static final LatencyTimer HOLD = new LatencyTimer();
+    public static final LatencyTimer HOLD_BATCH = new LatencyTimer();
+    public static final LatencyTimer RESERVE = new LatencyTimer();
+    public static final LatencyTimer COUNT = new LatencyTimer();
+    public static final LatencyTimer SEAT_MAP = new LatencyTimer();
+    public static final LatencyTimer RESERVATION_LOOKUP = new LatencyTimer();
+    public static final LatencyTimer HOLD_LOOKUP = new LatencyTimer();
+    public static final LatencyTimer WAITLIST_JOIN = new LatencyTimer();
+    public static final LatencyTimer WAITLIST_LOOKUP = new LatencyTimer();
+
+    // holds served with no seats, not enough seats available
+    public static final LongAdder HOLDS_FAILED = new LongAdder();
+    // holds and reservations rejected by validation
+    public static final LongAdder REQUESTS_INVALID = new LongAdder();
+    // holds and reservations rejected because the system is busy
+    public static final LongAdder REQUESTS_REJECTED = new LongAdder();
+    public static final LongAdder RESERVATIONS_NOT_FOUND = new LongAdder();
+    // holds and reservations answered from the result of an earlier request with the same idempotency key
+    public static final LongAdder REQUESTS_REPLAYED = new LongAdder();
+
+    public static final LongAdder HOLDS_OPEN = new LongAdder();
+    public static final LongAdder SEATS_ON_HOLD = new LongAdder();
+    public static final LongAdder HOLDS_EXPIRED = new LongAdder();
+    // holds released by their owner before they expired, such as the parts of an aborted cluster hold
+    public static final LongAdder HOLDS_CANCELLED = new LongAdder();
+    // hold requests waiting for seats, and the ones served since from seats released
+    public static final LongAdder WAITLIST_WAITING = new LongAdder();
+    public static final LongAdder WAITLIST_FULFILLED = new LongAdder();
+
+    // time spent picking seats once they are claimed
+    public static final LatencyTimer SEAT_ALLOCATION = new LatencyTimer();
+    public static final LatencyTimer ALLOCATOR_LOCK_WAIT = new LatencyTimer();
+    public static final LatencyTimer ALLOCATOR_LOCK_HELD = new LatencyTimer();
+    // compare-and-set retries on the available seat count and on seat statuses
+    public static final LongAdder SEAT_CLAIM_RETRIES = new LongAdder();
+    public static final LongAdder SEAT_STATUS_RETRIES = new LongAdder();
+
+    public static final LatencyTimer ADMISSION_WAIT = new LatencyTimer();
+    public static final LatencyTimer ENGINE_QUEUE_WAIT = new LatencyTimer();
+
+    // one write and sync of the journal per batch of records, records / syncs is the group commit size
+    public static final LatencyTimer JOURNAL_SYNC = new LatencyTimer();
+    public static final LongAdder JOURNAL_RECORDS = new LongAdder();
+
+    private TicketingMetrics() {
+    }
+}
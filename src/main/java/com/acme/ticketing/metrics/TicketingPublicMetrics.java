@@ -0,0 +1,86 @@
+package com.acme.ticketing.metrics;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exports the {@link TicketingMetrics} on the actuator metrics endpoint.
+ *
+ * Timers are exported as {@code timer.ticketing.<name>.count}, {@code .mean} and {@code .max} in
+ * milliseconds, the max being the longest duration since the previous read. The expiration rate is the
+ * average number of holds expired per second since the previous read.
+ */
+@Component
+public class TicketingPublicMetrics implements PublicMetrics {
+    private static final String TIMER = "timer.ticketing.";
+    private static final String COUNTER = "counter.ticketing.";
+    private static final String GAUGE = "gauge.ticketing.";
+
+    private long lastReadNanos = System.nanoTime();
+    private long lastHoldsExpired;
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        addTimer(metrics, "hold", TicketingMetrics.HOLD);
+        addTimer(metrics, "hold.batch", TicketingMetrics.HOLD_BATCH);
+        addTimer(metrics, "reserve", TicketingMetrics.RESERVE);
+        addTimer(metrics, "count", TicketingMetrics.COUNT);
+        addTimer(metrics, "seat.map", TicketingMetrics.SEAT_MAP);
+        addTimer(metrics, "reservation.lookup", TicketingMetrics.RESERVATION_LOOKUP);
+        addTimer(metrics, "hold.lookup", TicketingMetrics.HOLD_LOOKUP);
+        addTimer(metrics, "waitlist.join", TicketingMetrics.WAITLIST_JOIN);
+        addTimer(metrics, "waitlist.lookup", TicketingMetrics.WAITLIST_LOOKUP);
+        addTimer(metrics, "seat.allocation", TicketingMetrics.SEAT_ALLOCATION);
+        addTimer(metrics, "lock.allocator.wait", TicketingMetrics.ALLOCATOR_LOCK_WAIT);
+        addTimer(metrics, "lock.allocator.held", TicketingMetrics.ALLOCATOR_LOCK_HELD);
+        addTimer(metrics, "admission.wait", TicketingMetrics.ADMISSION_WAIT);
+        addTimer(metrics, "engine.queue.wait", TicketingMetrics.ENGINE_QUEUE_WAIT);
+        addTimer(metrics, "journal.sync", TicketingMetrics.JOURNAL_SYNC);
+
+        addCounter(metrics, "holds.failed", TicketingMetrics.HOLDS_FAILED);
+        addCounter(metrics, "requests.invalid", TicketingMetrics.REQUESTS_INVALID);
+        addCounter(metrics, "requests.rejected", TicketingMetrics.REQUESTS_REJECTED);
+        addCounter(metrics, "reservations.notFound", TicketingMetrics.RESERVATIONS_NOT_FOUND);
+        addCounter(metrics, "requests.replayed", TicketingMetrics.REQUESTS_REPLAYED);
+        addCounter(metrics, "holds.expired", TicketingMetrics.HOLDS_EXPIRED);
+        addCounter(metrics, "holds.cancelled", TicketingMetrics.HOLDS_CANCELLED);
+        addCounter(metrics, "waitlist.fulfilled", TicketingMetrics.WAITLIST_FULFILLED);
+        addCounter(metrics, "seat.claim.retries", TicketingMetrics.SEAT_CLAIM_RETRIES);
+        addCounter(metrics, "seat.status.retries", TicketingMetrics.SEAT_STATUS_RETRIES);
+        addCounter(metrics, "journal.records", TicketingMetrics.JOURNAL_RECORDS);
+
+        metrics.add(new Metric<>(GAUGE + "holds.open", TicketingMetrics.HOLDS_OPEN.sum()));
+        metrics.add(new Metric<>(GAUGE + "seats.onHold", TicketingMetrics.SEATS_ON_HOLD.sum()));
+        metrics.add(new Metric<>(GAUGE + "waitlist.waiting", TicketingMetrics.WAITLIST_WAITING.sum()));
+        metrics.add(new Metric<>(GAUGE + "holds.expired.perSecond", expirationRate()));
+        return metrics;
+    }
+
+    private synchronized double expirationRate() {
+        long now = System.nanoTime();
+        long holdsExpired = TicketingMetrics.HOLDS_EXPIRED.sum();
+        double seconds = (double) (now - lastReadNanos) / TimeUnit.SECONDS.toNanos(1);
+        double rate = seconds > 0 ? (holdsExpired - lastHoldsExpired) / seconds : 0;
+        lastReadNanos = now;
+        lastHoldsExpired = holdsExpired;
+        return rate;
+    }
+
+    private static void addTimer(List<Metric<?>> metrics, String name, LatencyTimer timer) {
+        metrics.add(new Metric<>(TIMER + name + ".count", timer.getCount()));
+        metrics.add(new Metric<>(TIMER + name + ".mean", timer.getMeanMillis()));
+        metrics.add(new Metric<>(TIMER + name + ".max", timer.getAndResetMaxMillis()));
+    }
+
+    private static void addCounter(List<Metric<?>> metrics, String name, LongAdder counter) {
+        metrics.add(new Metric<>(COUNTER + name, counter.sum()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.acme.ticketing.scheduler;
+
+/**
+ * Handle of a task scheduled on the {@link TimingWheel}
+ */
+public interface Timeout {
+    /**
+     * cancel the task if it has not expired yet
+     *
+     * @return true if the task was pending and is now cancelled, false if it already expired or was cancelled
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    boolean isExpired();
+}
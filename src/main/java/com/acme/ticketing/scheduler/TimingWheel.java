@@ -0,0 +1,299 @@
+package com.acme.ticketing.scheduler;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel shared by all hold expirations.
+ *
+ * One worker thread advances the wheel every tick. Scheduling and cancelling are O(1): new and cancelled
+ * timeouts are handed to the worker through lock-free queues, and a timeout further away than one wheel
+ * revolution just waits a number of rounds in its bucket. All timeouts expiring in the same tick are handed
+ * to their expiry handler as one batch, so the handler can release them under a single lock acquisition.
+ */
+@Component
+public class TimingWheel {
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final String INVALID_TICK = "Invalid tick duration, should be a positive number";
+    private static final String INVALID_WHEEL_SIZE = "Invalid wheel size, should be a power of two";
+    private static final String WHEEL_STOPPED = "Timing wheel is stopped";
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry<?>> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry<?>> cancelledEntries = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
+    private final Thread worker;
+
+    private volatile boolean stopped;
+    private volatile long startTime;
+    private long tick;
+
+    public TimingWheel() {
+        this(100, 512);
+    }
+
+    @Autowired
+    public TimingWheel(@Value("${order.hold.expiry.tick:100}") long tickMillis,
+                       @Value("${order.hold.expiry.wheelSize:512}") int wheelSize) {
+        Preconditions.checkArgument(tickMillis > 0, INVALID_TICK);
+        Preconditions.checkArgument(wheelSize > 0 && Integer.bitCount(wheelSize) == 1, INVALID_WHEEL_SIZE);
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheelSize - 1;
+        this.worker = new Thread(this::run, "hold-expiry-wheel");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * schedule an item to expire after the delay specified
+     *
+     * @param item         the item to expire
+     * @param delayMillis  delay in milliseconds
+     * @param expiryHandler handler receiving all items of the same handler expiring in the same tick
+     * @return handle to cancel the expiration
+     */
+    public <T> Timeout schedule(T item, long delayMillis, Consumer<List<T>> expiryHandler) {
+        Preconditions.checkState(!stopped, WHEEL_STOPPED);
+        start();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0)) - startTime;
+        Entry<T> entry = new Entry<>(this, item, deadline, expiryHandler);
+        pendingEntries.add(entry);
+        return entry;
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            worker.start();
+        }
+
+        // an interrupted caller still waits for the worker, and keeps its interrupt status
+        boolean interrupted = false;
+        while (startTime == 0) {
+            try {
+                startTimeInitialized.await();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        startTime = System.nanoTime();
+        if (startTime == 0) {
+            // 0 marks the start time as not initialized
+            startTime = 1;
+        }
+        startTimeInitialized.countDown();
+
+        while (!stopped) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                continue;
+            }
+            removeCancelledEntries();
+            transferPendingEntries();
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+        LOG.debug("Timing wheel stopped");
+    }
+
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long currentTime = System.nanoTime() - startTime;
+            long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999999);
+            if (sleepMillis <= 0) {
+                return currentTime;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException ex) {
+                if (stopped) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void removeCancelledEntries() {
+        Entry<?> entry;
+        while ((entry = cancelledEntries.poll()) != null) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    private void transferPendingEntries() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Entry<?> entry = pendingEntries.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.state != Entry.PENDING) {
+                continue;
+            }
+
+            long expiryTick = entry.deadline / tickNanos;
+            entry.remainingRounds = (expiryTick - tick) / wheel.length;
+            wheel[(int) (Math.max(expiryTick, tick) & mask)].add(entry);
+        }
+    }
+
+    private void expire(Bucket bucket, long deadline) {
+        Map<Consumer<?>, List<Object>> batches = new IdentityHashMap<>();
+        Entry<?> entry = bucket.head;
+        while (entry != null) {
+            Entry<?> next = entry.next;
+            if (entry.state != Entry.PENDING) {
+                bucket.remove(entry);
+            } else if (entry.remainingRounds <= 0 && entry.deadline <= deadline) {
+                bucket.remove(entry);
+                if (entry.expire()) {
+                    batches.computeIfAbsent(entry.expiryHandler, handler -> new ArrayList<>()).add(entry.item);
+                }
+            } else {
+                entry.remainingRounds--;
+            }
+            entry = next;
+        }
+
+        batches.forEach(this::dispatch);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(Consumer<?> expiryHandler, List<Object> items) {
+        try {
+            ((Consumer<List<Object>>) expiryHandler).accept(items);
+        } catch (Throwable ex) {
+            // the worker must survive a handler failing, or no item of any handler ever expires again
+            LOG.error("Failed to expire {} item(s)", items.size(), ex);
+        }
+    }
+
+    // the state of an entry, in a class of its own as field updaters cannot be typed by a generic class
+    private abstract static class EntryState {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        static final AtomicIntegerFieldUpdater<EntryState> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(EntryState.class, "state");
+
+        volatile int state = PENDING;
+    }
+
+    private static final class Entry<T> extends EntryState implements Timeout {
+        private final TimingWheel timingWheel;
+        private final T item;
+        private final long deadline;
+        private final Consumer<List<T>> expiryHandler;
+
+        // accessed by the worker thread only
+        private long remainingRounds;
+        private Bucket bucket;
+        private Entry<?> prev;
+        private Entry<?> next;
+
+        private Entry(TimingWheel timingWheel, T item, long deadline, Consumer<List<T>> expiryHandler) {
+            this.timingWheel = timingWheel;
+            this.item = item;
+            this.deadline = deadline;
+            this.expiryHandler = expiryHandler;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            timingWheel.cancelledEntries.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private boolean expire() {
+            return STATE.compareAndSet(this, PENDING, EXPIRED);
+        }
+    }
+
+    private static final class Bucket {
+        private Entry<?> head;
+        private Entry<?> tail;
+
+        private void add(Entry<?> entry) {
+            entry.bucket = this;
+            if (head == null) {
+                head = tail = entry;
+            } else {
+                tail.next = entry;
+                entry.prev = tail;
+                tail = entry;
+            }
+        }
+
+        private void remove(Entry<?> entry) {
+            if (entry.bucket != this) {
+                return;
+            }
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                tail = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.SeatCounts;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.WaitlistTicket;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ticket service admitting holds and reservations through an {@link AdmissionController}, seat counts are
+ * read without waiting.
+ */
+public class AdmissionControlledTicketService implements TicketService {
+    private final TicketService ticketService;
+    private final AdmissionController admissionController;
+
+    public AdmissionControlledTicketService(TicketService ticketService, AdmissionController admissionController) {
+        this.ticketService = ticketService;
+        this.admissionController = admissionController;
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    @Override
+    public SeatCounts getSeatCounts() {
+        return ticketService.getSeatCounts();
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        return admissionController.call(() -> ticketService.findAndHoldSeats(numSeats, customerEmail));
+    }
+
+    @Override
+    public List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests) {
+        return admissionController.call(() -> ticketService.findAndHoldSeats(holdRequests));
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        return admissionController.call(() -> ticketService.reserveSeats(seatHoldId, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+        return admissionController.callAsync(() -> ticketService.findAndHoldSeatsAsync(numSeats, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<List<HoldResult>> findAndHoldSeatsAsync(List<HoldRequest> holdRequests) {
+        return admissionController.callAsync(() -> ticketService.findAndHoldSeatsAsync(holdRequests));
+    }
+
+    @Override
+    public CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+        return admissionController.callAsync(() -> ticketService.reserveSeatsAsync(seatHoldId, customerEmail));
+    }
+
+    @Override
+    public SeatMap getSeatMap(long sinceVersion) {
+        return ticketService.getSeatMap(sinceVersion);
+    }
+
+    @Override
+    public Invoice findReservation(String confirmation) {
+        return ticketService.findReservation(confirmation);
+    }
+
+    @Override
+    public List<Invoice> findReservations(String customerEmail) {
+        return ticketService.findReservations(customerEmail);
+    }
+
+    @Override
+    public List<SeatHold> findHolds(String customerEmail) {
+        return ticketService.findHolds(customerEmail);
+    }
+
+    @Override
+    public WaitlistTicket joinWaitlist(int numSeats, String customerEmail) {
+        return admissionController.call(() -> ticketService.joinWaitlist(numSeats, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<WaitlistTicket> joinWaitlistAsync(int numSeats, String customerEmail) {
+        return admissionController.callAsync(() -> ticketService.joinWaitlistAsync(numSeats, customerEmail));
+    }
+
+    @Override
+    public WaitlistTicket findWaitlistTicket(String ticketId) {
+        return ticketService.findWaitlistTicket(ticketId);
+    }
+
+    @Override
+    public void addInventoryListener(InventoryListener inventoryListener) {
+        ticketService.addInventoryListener(inventoryListener);
+    }
+}
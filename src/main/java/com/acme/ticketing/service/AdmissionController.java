@@ -0,0 +1,290 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.metrics.TicketingMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Virtual waiting room in front of the booking paths.
+ *
+ * At most {@code maxInFlight} bookings run at once. Other requests wait in FIFO order in a bounded queue
+ * for up to {@code maxWaitMillis}, and requests finding the queue full, or waiting too long, fail fast with
+ * a {@link TicketSystemBusyException} carrying a Retry-After estimate. This keeps the latency of the
+ * requests admitted bounded instead of letting every request pile up on the inventory.
+ *
+ * Waiting requests hold no thread when admitted asynchronously: a slot freed is handed to the next request
+ * in the queue on a pool of {@code maxInFlight} booking threads, which then starts its booking, so the
+ * bookings admitted from the queue run as concurrently as the bookings admitted right away. The admission
+ * thread only times out the requests waiting.
+ *
+ * The controller is shared by all the events, as it bounds the work of the whole process, so its fast path
+ * takes no lock: while nobody waits, a slot is taken by compare-and-set on the free slot count. The queue
+ * lock is only taken by the requests that have to wait and by the releases handing their slot over.
+ */
+@Component
+public class AdmissionController {
+    private static final String SYSTEM_BUSY = "Too many bookings in progress, your position in the queue was %s, please try again later";
+    private static final double SERVICE_TIME_WEIGHT = 0.1;
+
+    private final int maxInFlight;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    private final ScheduledExecutorService admissionThread;
+    private final ThreadPoolExecutor bookingThreads;
+    private final AtomicInteger permits;
+    // guarded by waiters
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    // size of waiters, read without the lock by the fast paths
+    private volatile int queued;
+    private final AtomicLong nextTicket = new AtomicLong();
+    // moving average of the time a booking holds its permit, used for the Retry-After estimate
+    private volatile long averageServiceNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Autowired
+    public AdmissionController(@Value("${admission.maxInFlight:256}") int maxInFlight,
+                               @Value("${admission.maxQueue:4096}") int maxQueue,
+                               @Value("${admission.maxWaitMillis:2000}") long maxWaitMillis) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueue = maxQueue;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new AtomicInteger(Math.max(maxInFlight, 1));
+        this.admissionThread = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "admission"));
+        // a slot is handed over to one booking at a time, so no more threads than slots are ever busy
+        AtomicInteger bookingThreadIds = new AtomicInteger();
+        this.bookingThreads = new ThreadPoolExecutor(permits.get(), permits.get(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> daemon(runnable, "admission-booking-" + bookingThreadIds.incrementAndGet()));
+        this.bookingThreads.allowCoreThreadTimeOut(true);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * @return false if admission control is turned off
+     */
+    public boolean isEnabled() {
+        return maxInFlight > 0;
+    }
+
+    public int getInFlight() {
+        return Math.max(maxInFlight, 1) - permits.get();
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * run a booking once admitted
+     *
+     * @param booking the booking
+     * @return the result of the booking
+     */
+    public <T> T call(Supplier<T> booking) {
+        AdmissionToken token = admit();
+        try {
+            return booking.get();
+        } finally {
+            token.close();
+        }
+    }
+
+    /**
+     * run an asynchronous booking once admitted, without waiting
+     *
+     * @param booking the booking, started on a booking thread of the controller when the request had to wait
+     * @return the result of the booking
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> booking) {
+        return admitAsync().thenCompose(token -> {
+            CompletableFuture<T> result;
+            try {
+                result = booking.get();
+            } catch (RuntimeException ex) {
+                token.close();
+                throw ex;
+            }
+            return result.whenComplete((value, ex) -> token.close());
+        });
+    }
+
+    /**
+     * wait for a booking slot, the token must be closed when the booking is done
+     *
+     * @return the admission token
+     */
+    public AdmissionToken admit() {
+        CompletableFuture<AdmissionToken> admission = admitAsync();
+        try {
+            return admission.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            // give the slot back if it was granted meanwhile
+            admission.thenAccept(AdmissionToken::close);
+            throw systemBusy(1);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * queue for a booking slot, the token must be closed when the booking is done
+     *
+     * @return the admission token, failed with {@link TicketSystemBusyException} when the queue is full or
+     * the wait too long
+     */
+    public CompletableFuture<AdmissionToken> admitAsync() {
+        long start = System.nanoTime();
+        long ticket = nextTicket.incrementAndGet();
+        if (queued == 0 && tryAcquire()) {
+            TicketingMetrics.ADMISSION_WAIT.recordSince(start);
+            return CompletableFuture.completedFuture(new AdmissionToken(ticket, 1));
+        }
+
+        Waiter waiter;
+        synchronized (waiters) {
+            if (waiters.isEmpty() && tryAcquire()) {
+                TicketingMetrics.ADMISSION_WAIT.recordSince(start);
+                return CompletableFuture.completedFuture(new AdmissionToken(ticket, 1));
+            }
+            int position = waiters.size() + 1;
+            if (position > maxQueue) {
+                CompletableFuture<AdmissionToken> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(systemBusy(position));
+                return rejected;
+            }
+            waiter = new Waiter(ticket, position, start);
+            waiters.addLast(waiter);
+            queued = waiters.size();
+            waiter.timeout = admissionThread.schedule(() -> expire(waiter), maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        // a slot released while queueing went back to the free count, as the queue looked empty
+        handOver();
+        return waiter.admission;
+    }
+
+    private boolean tryAcquire() {
+        for (int available = permits.get(); available > 0; available = permits.get()) {
+            if (permits.compareAndSet(available, available - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (waiters) {
+            if (!waiters.remove(waiter)) {
+                return;
+            }
+            queued = waiters.size();
+        }
+        waiter.admission.completeExceptionally(systemBusy(waiter.position));
+    }
+
+    private TicketSystemBusyException systemBusy(int position) {
+        long waitNanos = (long) position * averageServiceNanos / Math.max(maxInFlight, 1);
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        return new TicketSystemBusyException(String.format(SYSTEM_BUSY, position), retryAfterSeconds);
+    }
+
+    private void release(long serviceNanos) {
+        // racy on purpose, an estimate is good enough
+        averageServiceNanos += (long) ((serviceNanos - averageServiceNanos) * SERVICE_TIME_WEIGHT);
+
+        permits.incrementAndGet();
+        if (queued > 0) {
+            handOver();
+        }
+    }
+
+    // hand the free slots over to the requests waiting, first come first served
+    private void handOver() {
+        while (true) {
+            Waiter next;
+            synchronized (waiters) {
+                if (waiters.isEmpty() || !tryAcquire()) {
+                    return;
+                }
+                next = waiters.pollFirst();
+                queued = waiters.size();
+                next.timeout.cancel(false);
+            }
+            // on a booking thread, the booking it starts must not run on this one
+            bookingThreads.execute(() -> {
+                TicketingMetrics.ADMISSION_WAIT.recordSince(next.queuedAt);
+                AdmissionToken token = new AdmissionToken(next.ticket, next.position);
+                if (!next.admission.complete(token)) {
+                    token.close();
+                }
+            });
+        }
+    }
+
+    /**
+     * A booking slot, identified by its ticket number and the position it had in the queue
+     */
+    public final class AdmissionToken implements AutoCloseable {
+        private final long ticket;
+        private final int queuePosition;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private AdmissionToken(long ticket, int queuePosition) {
+            this.ticket = ticket;
+            this.queuePosition = queuePosition;
+        }
+
+        public long getTicket() {
+            return ticket;
+        }
+
+        public int getQueuePosition() {
+            return queuePosition;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(System.nanoTime() - admittedAt);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final long ticket;
+        private final int position;
+        private final long queuedAt;
+        private final CompletableFuture<AdmissionToken> admission = new CompletableFuture<>();
+        private ScheduledFuture<?> timeout;
+
+        private Waiter(long ticket, int position, long queuedAt) {
+            this.ticket = ticket;
+            this.position = position;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer, single-consumer ring buffer of commands.
+ *
+ * Producers claim a sequence by compare-and-set and fail fast with {@link TicketSystemBusyException} when
+ * the buffer is full. One consumer thread applies the commands in sequence order, so the state they
+ * mutate is only ever touched by that thread. A command failing, even with an {@link Error}, is logged and
+ * the consumer moves on to the next one; should the consumer die anyway, the buffer stops and producers
+ * fail fast instead of queueing commands nobody applies.
+ */
+public class CommandRingBuffer {
+    private static final Logger LOG = LoggerFactory.getLogger(CommandRingBuffer.class);
+
+    private static final String INVALID_CAPACITY = "Invalid ring buffer capacity, should be a power of two";
+    private static final String BUFFER_FULL = "Too many bookings in progress, please try again later";
+    private static final String BUFFER_STOPPED = "Booking engine is stopped";
+    private static final String CONSUMER_DIED = "Booking engine consumer died, rejecting new commands";
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicReferenceArray<Runnable> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean consumerParked;
+    private volatile boolean stopped;
+
+    public CommandRingBuffer(int capacity, String name) {
+        Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, INVALID_CAPACITY);
+
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.consumer = new Thread(this::run, name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * queue a command to be applied by the consumer thread
+     *
+     * @param command the command
+     */
+    public void publish(Runnable command) {
+        Preconditions.checkState(!stopped, BUFFER_STOPPED);
+
+        long sequence;
+        do {
+            sequence = nextSequence.get();
+            if (sequence - consumedSequence.get() > mask) {
+                throw new TicketSystemBusyException(BUFFER_FULL);
+            }
+        } while (!nextSequence.compareAndSet(sequence, sequence + 1));
+
+        slots.lazySet((int) (sequence & mask), command);
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * queue a command that must not be dropped, waiting for room when the buffer is full
+     *
+     * @param command the command
+     */
+    public void publishAwaitingRoom(Runnable command) {
+        while (true) {
+            try {
+                publish(command);
+                return;
+            } catch (TicketSystemBusyException ex) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+    }
+
+    public int size() {
+        return (int) (nextSequence.get() - consumedSequence.get());
+    }
+
+    public void stop() {
+        stopped = true;
+        LockSupport.unpark(consumer);
+    }
+
+    private void run() {
+        try {
+            consume();
+        } finally {
+            if (!stopped) {
+                LOG.error(CONSUMER_DIED);
+                stopped = true;
+            }
+        }
+    }
+
+    private void consume() {
+        int idleSpins = 0;
+        while (!stopped) {
+            int slot = (int) (consumedSequence.get() & mask);
+            Runnable command = slots.get(slot);
+            if (command == null) {
+                idle(idleSpins++);
+                continue;
+            }
+
+            idleSpins = 0;
+            // free the slot before moving the cursor, so the producer wrapping around finds it empty
+            slots.lazySet(slot, null);
+            consumedSequence.lazySet(consumedSequence.get() + 1);
+            try {
+                command.run();
+            } catch (Throwable ex) {
+                LOG.error("Failed to apply booking command", ex);
+            }
+        }
+    }
+
+    private void idle(int idleSpins) {
+        if (idleSpins < SPINS_BEFORE_PARK) {
+            Thread.yield();
+            return;
+        }
+        consumerParked = true;
+        // check again, a producer may have published before seeing the flag
+        if (slots.get((int) (consumedSequence.get() & mask)) == null) {
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        consumerParked = false;
+    }
+}
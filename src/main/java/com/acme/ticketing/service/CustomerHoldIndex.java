@@ -0,0 +1,159 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.SeatHoldOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open holds of every customer, with caps on the holds and the seats a customer may have on hold at once.
+ *
+ * The entry of a customer is immutable and replaced by {@link ConcurrentHashMap#compute}, which also puts
+ * the hold in, or removes it from, the holds by identifier: the two maps change together under the lock of
+ * the customer only, so bookings of different customers never wait for each other. A hold takes its share
+ * of the caps before its seats are picked, and gives it back if none are found.
+ */
+class CustomerHoldIndex {
+    private final int maxHolds;
+    private final int maxSeats;
+    private final Map<Integer, SeatHoldOrder> seatHoldOrderById;
+    private final Map<String, CustomerHolds> holdsByCustomer = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxHolds          the max holds open per customer, 0 for no cap
+     * @param maxSeats          the max seats on hold per customer, 0 for no cap
+     * @param seatHoldOrderById the holds by identifier, updated along with the customers
+     */
+    CustomerHoldIndex(int maxHolds, int maxSeats, Map<Integer, SeatHoldOrder> seatHoldOrderById) {
+        this.maxHolds = maxHolds > 0 ? maxHolds : Integer.MAX_VALUE;
+        this.maxSeats = maxSeats > 0 ? maxSeats : Integer.MAX_VALUE;
+        this.seatHoldOrderById = seatHoldOrderById;
+    }
+
+    /**
+     * Take a hold and seats from the caps of a customer, before the seats are picked
+     *
+     * @param customerEmail the customer
+     * @param numSeats      the seats of the hold
+     * @return false if the customer would go over a cap
+     */
+    boolean tryAcquire(String customerEmail, int numSeats) {
+        boolean[] acquired = new boolean[1];
+        holdsByCustomer.compute(key(customerEmail), (customer, holds) -> {
+            CustomerHolds current = holds != null ? holds : CustomerHolds.EMPTY;
+            if (current.holds >= maxHolds || numSeats > maxSeats - current.seats) {
+                return holds;
+            }
+            acquired[0] = true;
+            return current.with(1, numSeats, null);
+        });
+        return acquired[0];
+    }
+
+    /**
+     * Give back what {@link #tryAcquire(String, int)} took, when no seats were found
+     */
+    void release(String customerEmail, int numSeats) {
+        holdsByCustomer.computeIfPresent(key(customerEmail), (customer, holds) -> holds.with(-1, -numSeats, null));
+    }
+
+    /**
+     * Open a hold acquired by {@link #tryAcquire(String, int)}
+     *
+     * @param seatHoldOrder the hold
+     * @param numSeats      the seats acquired for the hold, some may not have been found
+     */
+    void add(SeatHoldOrder seatHoldOrder, int numSeats) {
+        holdsByCustomer.compute(key(seatHoldOrder.getCustomerEmail()), (customer, holds) -> {
+            seatHoldOrderById.put(seatHoldOrder.getId(), seatHoldOrder);
+            CustomerHolds current = holds != null ? holds : CustomerHolds.EMPTY;
+            return current.with(0, seatHoldOrder.getSeats().size() - numSeats, seatHoldOrder);
+        });
+    }
+
+    /**
+     * Open a hold restored from a journal or a snapshot, whatever the caps
+     *
+     * @param seatHoldOrder the hold
+     */
+    void restore(SeatHoldOrder seatHoldOrder) {
+        holdsByCustomer.compute(key(seatHoldOrder.getCustomerEmail()), (customer, holds) -> {
+            seatHoldOrderById.put(seatHoldOrder.getId(), seatHoldOrder);
+            CustomerHolds current = holds != null ? holds : CustomerHolds.EMPTY;
+            return current.with(1, seatHoldOrder.getSeats().size(), seatHoldOrder);
+        });
+    }
+
+    /**
+     * Close a hold reserved or expired
+     *
+     * @param seatHoldOrder the hold
+     * @return false if the hold was closed already
+     */
+    boolean remove(SeatHoldOrder seatHoldOrder) {
+        boolean[] removed = new boolean[1];
+        holdsByCustomer.compute(key(seatHoldOrder.getCustomerEmail()), (customer, holds) -> {
+            removed[0] = seatHoldOrderById.remove(seatHoldOrder.getId(), seatHoldOrder);
+            if (!removed[0] || holds == null) {
+                return holds;
+            }
+            return holds.without(seatHoldOrder);
+        });
+        return removed[0];
+    }
+
+    /**
+     * @param customerEmail the customer, case insensitive
+     * @return the open holds of the customer, oldest first
+     */
+    List<SeatHoldOrder> find(String customerEmail) {
+        CustomerHolds holds = holdsByCustomer.get(key(customerEmail));
+        return holds != null ? Collections.unmodifiableList(Arrays.asList(holds.orders)) : Collections.emptyList();
+    }
+
+    private static String key(String customerEmail) {
+        return customerEmail.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class CustomerHolds {
+        private static final CustomerHolds EMPTY = new CustomerHolds(0, 0, new SeatHoldOrder[0]);
+
+        // holds and seats counted against the caps, including the holds still picking their seats
+        private final int holds;
+        private final int seats;
+        private final SeatHoldOrder[] orders;
+
+        private CustomerHolds(int holds, int seats, SeatHoldOrder[] orders) {
+            this.holds = holds;
+            this.seats = seats;
+            this.orders = orders;
+        }
+
+        // null once the customer has nothing left, so the entry is removed
+        private CustomerHolds with(int moreHolds, int moreSeats, SeatHoldOrder order) {
+            SeatHoldOrder[] newOrders = orders;
+            if (order != null) {
+                newOrders = Arrays.copyOf(orders, orders.length + 1);
+                newOrders[orders.length] = order;
+            }
+            return of(holds + moreHolds, seats + moreSeats, newOrders);
+        }
+
+        private CustomerHolds without(SeatHoldOrder order) {
+            List<SeatHoldOrder> newOrders = new ArrayList<>(Arrays.asList(orders));
+            if (!newOrders.remove(order)) {
+                return this;
+            }
+            return of(holds - 1, seats - order.getSeats().size(), newOrders.toArray(new SeatHoldOrder[newOrders.size()]));
+        }
+
+        private static CustomerHolds of(int holds, int seats, SeatHoldOrder[] orders) {
+            return holds <= 0 && orders.length == 0 ? null : new CustomerHolds(holds, seats, orders);
+        }
+    }
+}
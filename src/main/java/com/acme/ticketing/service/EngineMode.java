@@ -0,0 +1,15 @@
+package com.acme.ticketing.service;
+
+/**
+ * How the inventory of an event is mutated
+ */
+public enum EngineMode {
+    /**
+     * request threads and the expiry wheel update the inventory concurrently, by compare-and-set
+     */
+    CONCURRENT,
+    /**
+     * all updates are queued on a ring buffer and applied by a single thread per event
+     */
+    SEQUENCED
+}
@@ -0,0 +1,154 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.journal.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The journals and snapshots of the events, one file of each per event, when enabled.
+ *
+ * Snapshots are taken every {@code snapshot.intervalSeconds} and on shutdown, without stopping the events.
+ * With a journal, a restart loads the snapshot and replays the journal from the position the snapshot
+ * covers. Without one, a restart loads the snapshot only, losing the changes made since it was taken.
+ */
+@Component
+public class EventPersistence {
+    private static final Logger LOG = LoggerFactory.getLogger(EventPersistence.class);
+
+    private final boolean journalEnabled;
+    private final Path journalDirectory;
+    private final boolean fsync;
+    private final boolean snapshotEnabled;
+    private final Path snapshotDirectory;
+    private final Map<String, PersistentEvent> events = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService snapshotScheduler;
+
+    @Autowired
+    public EventPersistence(@Value("${journal.enabled:false}") boolean journalEnabled,
+                            @Value("${journal.dir:journal}") String journalDirectory,
+                            @Value("${journal.fsync:true}") boolean fsync,
+                            @Value("${snapshot.enabled:false}") boolean snapshotEnabled,
+                            @Value("${snapshot.dir:${journal.dir:journal}}") String snapshotDirectory,
+                            @Value("${snapshot.intervalSeconds:60}") long snapshotIntervalSeconds) {
+        this.journalEnabled = journalEnabled;
+        this.journalDirectory = journalDirectory == null ? null : Paths.get(journalDirectory);
+        this.fsync = fsync;
+        this.snapshotEnabled = snapshotEnabled;
+        this.snapshotDirectory = snapshotDirectory == null ? null : Paths.get(snapshotDirectory);
+        if (snapshotEnabled && snapshotIntervalSeconds > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshot, snapshotIntervalSeconds,
+                    snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            snapshotScheduler = null;
+        }
+    }
+
+    /**
+     * Restore the state of an event from its snapshot and journal, and persist its changes from now on
+     *
+     * @param eventId           the event identifier
+     * @param ticketServiceImpl the service holding the state of the event, not serving requests yet
+     * @param ticketService     the service serving the requests of the event
+     * @return the service to expose, the one specified if journaling is disabled
+     */
+    public TicketService persist(String eventId, TicketServiceImpl ticketServiceImpl, TicketService ticketService) {
+        if (!journalEnabled && !snapshotEnabled) {
+            return ticketService;
+        }
+        try {
+            Snapshot snapshot = snapshotEnabled ? Snapshot.read(snapshotPath(eventId)) : null;
+            JournaledTicketService journaledTicketService = null;
+            if (journalEnabled) {
+                Files.createDirectories(journalDirectory);
+                journaledTicketService = new JournaledTicketService(ticketServiceImpl, ticketService,
+                        journalDirectory.resolve(eventId + ".journal"), fsync, snapshot);
+                ticketService = journaledTicketService;
+            } else if (snapshot != null) {
+                InventoryRecovery recovery = new InventoryRecovery(ticketServiceImpl.getVenue());
+                recovery.load(snapshot);
+                recovery.restore(ticketServiceImpl);
+            }
+            if (snapshotEnabled) {
+                Files.createDirectories(snapshotDirectory);
+            }
+            events.put(eventId, new PersistentEvent(ticketServiceImpl, journaledTicketService));
+            return ticketService;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to restore event " + eventId, ex);
+        }
+    }
+
+    /**
+     * Take a snapshot of every event
+     */
+    public void snapshot() {
+        if (!snapshotEnabled) {
+            return;
+        }
+        for (Map.Entry<String, PersistentEvent> event : events.entrySet()) {
+            try {
+                event.getValue().snapshot().write(snapshotPath(event.getKey()));
+            } catch (IOException | RuntimeException ex) {
+                LOG.error("Failed to take a snapshot of event {}", event.getKey(), ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        snapshot();
+        for (PersistentEvent event : events.values()) {
+            if (event.journaledTicketService == null) {
+                continue;
+            }
+            try {
+                event.journaledTicketService.close();
+            } catch (IOException ex) {
+                LOG.error("Failed to close journal", ex);
+            }
+        }
+    }
+
+    private Path snapshotPath(String eventId) {
+        return snapshotDirectory.resolve(eventId + ".snapshot");
+    }
+
+    private static final class PersistentEvent {
+        private final TicketServiceImpl ticketServiceImpl;
+        private final JournaledTicketService journaledTicketService;
+
+        private PersistentEvent(TicketServiceImpl ticketServiceImpl, JournaledTicketService journaledTicketService) {
+            this.ticketServiceImpl = ticketServiceImpl;
+            this.journaledTicketService = journaledTicketService;
+        }
+
+        // read the journal position first, the changes journaled before it are applied by then
+        private Snapshot snapshot() {
+            long journalPosition = journaledTicketService != null ? journaledTicketService.getJournalPosition() : -1;
+            return ticketServiceImpl.snapshot(journalPosition);
+        }
+    }
+}
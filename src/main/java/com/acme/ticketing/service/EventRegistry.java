@@ -0,0 +1,131 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.EventNotFoundException;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the events (performances or showtimes) on sale.
+ *
+ * Every event owns an independent inventory engine, a venue plus its own hold and reservation state, so
+ * bookings for different events never contend with each other. The default event is the one served by
+ * the {@code /ticketing/seats/*} endpoints. An event id is reserved before its venue is built, so concurrent
+ * creations of the same event build one inventory engine, and venues are capped at {@code venue.maxCapacity}
+ * seats.
+ */
+@Component
+public class EventRegistry {
+    public static final String DEFAULT_EVENT_ID = "default";
+
+    private static final String INVALID_EVENT_ID = "Invalid event id, please use up to 64 letters, digits, '-' or '_'";
+    private static final String EVENT_NOT_FOUND = "Event %s not found";
+    private static final String EVENT_EXISTS = "Event %s already exists";
+    private static final String INVALID_CAPACITY = "Invalid venue size, should be at most %s seats";
+    private static final Pattern EVENT_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventRegistry.class);
+
+    private final Venue defaultVenue;
+    private final TicketServiceFactory ticketServiceFactory;
+    private final int maxCapacity;
+    private final Map<String, TicketService> ticketServiceByEvent = Maps.newConcurrentMap();
+    // ids of the events created or being created
+    private final Set<String> reservedEventIds = Sets.newConcurrentHashSet();
+
+    @Autowired
+    public EventRegistry(TicketService defaultTicketService,
+                         Venue defaultVenue,
+                         TicketServiceFactory ticketServiceFactory,
+                         @Value("${ticketing.events:}") String[] eventIds,
+                         @Value("${venue.maxCapacity:1000000}") int maxCapacity) {
+        this.defaultVenue = defaultVenue;
+        this.ticketServiceFactory = ticketServiceFactory;
+        this.maxCapacity = maxCapacity;
+
+        reservedEventIds.add(DEFAULT_EVENT_ID);
+        ticketServiceByEvent.put(DEFAULT_EVENT_ID, defaultTicketService);
+        for (String eventId : eventIds) {
+            createEvent(eventId.trim(), null, null, null, null, null, null);
+        }
+    }
+
+    public Set<String> getEventIds() {
+        return ImmutableSortedSet.copyOf(ticketServiceByEvent.keySet());
+    }
+
+    /**
+     * Find the ticket service of an event
+     *
+     * @param eventId the event identifier
+     * @return the ticket service selling the event
+     */
+    public TicketService getTicketService(String eventId) {
+        TicketService ticketService = ticketServiceByEvent.get(eventId);
+        if (ticketService == null) {
+            throw new EventNotFoundException(String.format(EVENT_NOT_FOUND, eventId));
+        }
+        return ticketService;
+    }
+
+    /**
+     * Create an event with its own venue, layout values not provided are taken from the default venue
+     *
+     * @param eventId the event identifier
+     * @return the ticket service selling the event
+     */
+    public TicketService createEvent(String eventId, Integer maxRow, Integer maxColumn,
+                                     Integer bestRowStart, Integer bestRowEnd,
+                                     Integer bestColumnStart, Integer bestColumnEnd) {
+        if (eventId == null || !EVENT_ID_PATTERN.matcher(eventId).matches()) {
+            throw new BookingValidationException(INVALID_EVENT_ID);
+        }
+        int rows = maxRow != null ? maxRow : defaultVenue.getMaxRow();
+        int columns = maxColumn != null ? maxColumn : defaultVenue.getMaxColumn();
+        if (!isValidCapacity(rows, columns)) {
+            throw new BookingValidationException(String.format(INVALID_CAPACITY, maxCapacity));
+        }
+        Preconditions.checkState(reservedEventIds.add(eventId), EVENT_EXISTS, eventId);
+
+        Venue venue;
+        TicketService ticketService;
+        try {
+            venue = new Venue(rows, columns,
+                    bestRowStart != null ? bestRowStart : defaultVenue.getBestRowStart(),
+                    bestRowEnd != null ? bestRowEnd : defaultVenue.getBestRowEnd(),
+                    bestColumnStart != null ? bestColumnStart : defaultVenue.getBestColumnStart(),
+                    bestColumnEnd != null ? bestColumnEnd : defaultVenue.getBestColumnEnd(),
+                    defaultVenue.getSeatAllocation());
+            venue.setSeatScorer(defaultVenue.getSeatScorer());
+            venue.init();
+            ticketService = ticketServiceFactory.create(eventId, venue);
+        } catch (RuntimeException | Error ex) {
+            reservedEventIds.remove(eventId);
+            throw ex;
+        }
+        ticketServiceByEvent.put(eventId, ticketService);
+        LOG.info("Event {} created with {} seats", eventId, venue.getCapacity());
+        return ticketService;
+    }
+
+    private boolean isValidCapacity(int rows, int columns) {
+        // rows and columns not positive are rejected by the venue
+        try {
+            return rows <= 0 || columns <= 0 || Math.multiplyExact(rows, columns) <= maxCapacity;
+        } catch (ArithmeticException ex) {
+            return false;
+        }
+    }
+}
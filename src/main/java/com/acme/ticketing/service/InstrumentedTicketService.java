@@ -0,0 +1,186 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.SeatCounts;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.WaitlistTicket;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.metrics.LatencyTimer;
+import com.acme.ticketing.metrics.TicketingMetrics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Ticket service recording the latency and the outcome of every request in {@link TicketingMetrics},
+ * measured end to end, admission and engine queueing included
+ */
+public class InstrumentedTicketService implements TicketService {
+    private final TicketService ticketService;
+
+    public InstrumentedTicketService(TicketService ticketService) {
+        this.ticketService = ticketService;
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        long start = System.nanoTime();
+        try {
+            return ticketService.numSeatsAvailable();
+        } finally {
+            TicketingMetrics.COUNT.recordSince(start);
+        }
+    }
+
+    @Override
+    public SeatCounts getSeatCounts() {
+        return time(TicketingMetrics.COUNT, ticketService::getSeatCounts);
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        return countHold(time(TicketingMetrics.HOLD, () -> ticketService.findAndHoldSeats(numSeats, customerEmail)));
+    }
+
+    @Override
+    public List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests) {
+        return countHolds(time(TicketingMetrics.HOLD_BATCH, () -> ticketService.findAndHoldSeats(holdRequests)));
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        return countReservation(time(TicketingMetrics.RESERVE, () -> ticketService.reserveSeats(seatHoldId, customerEmail)));
+    }
+
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+        return timeAsync(TicketingMetrics.HOLD, () -> ticketService.findAndHoldSeatsAsync(numSeats, customerEmail))
+                .thenApply(InstrumentedTicketService::countHold);
+    }
+
+    @Override
+    public CompletableFuture<List<HoldResult>> findAndHoldSeatsAsync(List<HoldRequest> holdRequests) {
+        return timeAsync(TicketingMetrics.HOLD_BATCH, () -> ticketService.findAndHoldSeatsAsync(holdRequests))
+                .thenApply(InstrumentedTicketService::countHolds);
+    }
+
+    @Override
+    public CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+        return timeAsync(TicketingMetrics.RESERVE, () -> ticketService.reserveSeatsAsync(seatHoldId, customerEmail))
+                .thenApply(InstrumentedTicketService::countReservation);
+    }
+
+    @Override
+    public SeatMap getSeatMap(long sinceVersion) {
+        long start = System.nanoTime();
+        try {
+            return ticketService.getSeatMap(sinceVersion);
+        } finally {
+            TicketingMetrics.SEAT_MAP.recordSince(start);
+        }
+    }
+
+    @Override
+    public Invoice findReservation(String confirmation) {
+        return time(TicketingMetrics.RESERVATION_LOOKUP, () -> ticketService.findReservation(confirmation));
+    }
+
+    @Override
+    public List<Invoice> findReservations(String customerEmail) {
+        return time(TicketingMetrics.RESERVATION_LOOKUP, () -> ticketService.findReservations(customerEmail));
+    }
+
+    @Override
+    public List<SeatHold> findHolds(String customerEmail) {
+        return time(TicketingMetrics.HOLD_LOOKUP, () -> ticketService.findHolds(customerEmail));
+    }
+
+    @Override
+    public WaitlistTicket joinWaitlist(int numSeats, String customerEmail) {
+        return time(TicketingMetrics.WAITLIST_JOIN, () -> ticketService.joinWaitlist(numSeats, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<WaitlistTicket> joinWaitlistAsync(int numSeats, String customerEmail) {
+        return timeAsync(TicketingMetrics.WAITLIST_JOIN, () -> ticketService.joinWaitlistAsync(numSeats, customerEmail));
+    }
+
+    @Override
+    public WaitlistTicket findWaitlistTicket(String ticketId) {
+        return time(TicketingMetrics.WAITLIST_LOOKUP, () -> ticketService.findWaitlistTicket(ticketId));
+    }
+
+    @Override
+    public void addInventoryListener(InventoryListener inventoryListener) {
+        ticketService.addInventoryListener(inventoryListener);
+    }
+
+    private static SeatHold countHold(SeatHold seatHold) {
+        if (seatHold == null) {
+            TicketingMetrics.HOLDS_FAILED.increment();
+        }
+        return seatHold;
+    }
+
+    private static List<HoldResult> countHolds(List<HoldResult> holdResults) {
+        for (HoldResult holdResult : holdResults) {
+            if (holdResult.isInvalid()) {
+                TicketingMetrics.REQUESTS_INVALID.increment();
+            } else {
+                countHold(holdResult.getSeatHold());
+            }
+        }
+        return holdResults;
+    }
+
+    private static String countReservation(String confirmation) {
+        if (confirmation == null) {
+            TicketingMetrics.RESERVATIONS_NOT_FOUND.increment();
+        }
+        return confirmation;
+    }
+
+    private static <T> T time(LatencyTimer timer, Supplier<T> request) {
+        long start = System.nanoTime();
+        try {
+            return request.get();
+        } catch (RuntimeException ex) {
+            countFailure(ex);
+            throw ex;
+        } finally {
+            timer.recordSince(start);
+        }
+    }
+
+    private static <T> CompletableFuture<T> timeAsync(LatencyTimer timer, Supplier<CompletableFuture<T>> request) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = request.get();
+        } catch (RuntimeException ex) {
+            countFailure(ex);
+            timer.recordSince(start);
+            throw ex;
+        }
+        return result.whenComplete((value, ex) -> {
+            timer.recordSince(start);
+            if (ex != null) {
+                countFailure(ex instanceof CompletionException ? ex.getCause() : ex);
+            }
+        });
+    }
+
+    private static void countFailure(Throwable ex) {
+        if (ex instanceof BookingValidationException) {
+            TicketingMetrics.REQUESTS_INVALID.increment();
+        } else if (ex instanceof TicketSystemBusyException) {
+            TicketingMetrics.REQUESTS_REJECTED.increment();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Seat;
+
+import java.util.List;
+
+/**
+ * Notified of the changes of the inventory of an event, on the thread applying them, so implementations
+ * should be quick and must not call back into the ticket service
+ */
+public interface InventoryListener {
+    /**
+     * seats have been put on hold
+     *
+     * @param seatHoldId      the hold identifier
+     * @param customerEmail   the customer holding the seats
+     * @param seats           the seats on hold
+     * @param expiresAtMillis wall clock time the hold expires at
+     */
+    default void onHold(int seatHoldId, String customerEmail, List<Seat> seats, long expiresAtMillis) {
+    }
+
+    /**
+     * the seats of a hold have been sold
+     *
+     * @param seatHoldId   the hold identifier
+     * @param confirmation the reservation confirmation code
+     */
+    default void onReserve(int seatHoldId, String confirmation) {
+    }
+
+    /**
+     * seats of expired or cancelled holds are available again, notified before {@link #onExpire(List)}
+     *
+     * @param seats the seats released
+     */
+    default void onRelease(List<Seat> seats) {
+    }
+
+    /**
+     * holds have expired and their seats are available again
+     *
+     * @param seatHoldIds the identifiers of the holds expired
+     */
+    default void onExpire(List<Integer> seatHoldIds) {
+    }
+}
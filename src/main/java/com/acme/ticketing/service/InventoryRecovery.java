@@ -0,0 +1,138 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.journal.JournalRecord;
+import com.acme.ticketing.journal.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Rebuilds the inventory of an event from a snapshot and the journal records written after it.
+ *
+ * Records are folded by hold: a hold stays open until a reservation sells its seats or an expiration
+ * drops it. Applying a record already covered by the snapshot changes nothing, so the snapshot does not
+ * need to be an exact cut of the journal. Seats on hold are taken from the hold table only, the HOLD
+ * statuses of the snapshot are ignored, and reservations replayed store their invoice unless the snapshot
+ * has it already.
+ */
+class InventoryRecovery {
+    private static final Logger LOG = LoggerFactory.getLogger(InventoryRecovery.class);
+
+    private final Venue venue;
+    private final Map<Integer, JournalRecord> openHolds = new TreeMap<>();
+    // a set, a reservation replayed from the journal may sell seats the snapshot has sold already
+    private final Set<Seat> seatsSold = new LinkedHashSet<>();
+    private final List<Invoice> invoices = new ArrayList<>();
+    private byte[] snapshotInvoices = new byte[0];
+    private int lastSeatHoldId;
+
+    InventoryRecovery(Venue venue) {
+        this.venue = venue;
+    }
+
+    void load(Snapshot snapshot) {
+        if (snapshot.getMaxRow() != venue.getMaxRow() || snapshot.getMaxColumn() != venue.getMaxColumn()) {
+            LOG.warn("Snapshot layout {}x{} differs from the venue, restoring the seats within the venue",
+                    snapshot.getMaxRow(), snapshot.getMaxColumn());
+        }
+        for (int row = 0; row < snapshot.getMaxRow(); row++) {
+            for (int column = 0; column < snapshot.getMaxColumn(); column++) {
+                Seat seat = venue.getSeat(row, column);
+                if (seat != null && snapshot.getSeatStatus(row, column) == SeatStatus.SOLD) {
+                    seatsSold.add(seat);
+                }
+            }
+        }
+        for (JournalRecord hold : snapshot.getHolds()) {
+            openHolds.put(hold.getSeatHoldId(), hold);
+        }
+        snapshotInvoices = snapshot.getInvoices();
+        lastSeatHoldId = Math.max(lastSeatHoldId, snapshot.getLastSeatHoldId());
+    }
+
+    void apply(JournalRecord record) {
+        switch (record.getType()) {
+            case HOLD:
+                openHolds.put(record.getSeatHoldId(), record);
+                lastSeatHoldId = Math.max(lastSeatHoldId, record.getSeatHoldId());
+                break;
+            case RESERVE:
+                JournalRecord hold = openHolds.remove(record.getSeatHoldId());
+                if (hold != null) {
+                    List<Seat> seats = seatsOf(hold);
+                    seatsSold.addAll(seats);
+                    invoices.add(new Invoice(record.getConfirmation(), hold.getCustomerEmail(), seats));
+                }
+                break;
+            case EXPIRE:
+                for (int seatHoldId : record.getSeatHoldIds()) {
+                    openHolds.remove(seatHoldId);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Apply the state rebuilt to a ticket service not serving requests yet
+     *
+     * @param ticketServiceImpl the ticket service, with a venue just initialized
+     * @return the identifiers of the holds expired while the service was down, not restored and not known as
+     * expired by the journal yet
+     */
+    List<Integer> restore(TicketServiceImpl ticketServiceImpl) {
+        ticketServiceImpl.restoreSeatHoldId(lastSeatHoldId);
+        InvoiceStore invoiceStore = ticketServiceImpl.getInvoiceStore();
+        invoiceStore.load(snapshotInvoices);
+        for (Invoice invoice : invoices) {
+            invoiceStore.add(invoice);
+        }
+        if (!ticketServiceImpl.restoreSale(new ArrayList<>(seatsSold))) {
+            LOG.warn("Some of the {} seat(s) sold could not be restored", seatsSold.size());
+        }
+
+        long now = System.currentTimeMillis();
+        int holdsRestored = 0;
+        List<Integer> expiredSeatHoldIds = new ArrayList<>();
+        for (JournalRecord hold : openHolds.values()) {
+            // holds expired while the service was down are not restored
+            if (hold.getExpiresAtMillis() <= now) {
+                expiredSeatHoldIds.add(hold.getSeatHoldId());
+                continue;
+            }
+            List<Seat> seats = seatsOf(hold);
+            // a hold reserved while the snapshot was taken shows with its seats sold
+            if (seats.stream().anyMatch(seatsSold::contains)) {
+                continue;
+            }
+            if (!ticketServiceImpl.restoreHold(hold.getSeatHoldId(), hold.getCustomerEmail(), seats,
+                    hold.getExpiresAtMillis())) {
+                LOG.warn("Some seat(s) of hold {} could not be restored", hold.getSeatHoldId());
+            }
+            holdsRestored++;
+        }
+        LOG.info("Restored {} seat(s) sold, {} invoice(s) and {} hold(s)", seatsSold.size(), invoiceStore.size(),
+                holdsRestored);
+        return expiredSeatHoldIds;
+    }
+
+    private List<Seat> seatsOf(JournalRecord hold) {
+        List<Seat> seats = new ArrayList<>(hold.getRows().length);
+        for (int i = 0; i < hold.getRows().length; i++) {
+            Seat seat = venue.getSeat(hold.getRows()[i], hold.getColumns()[i]);
+            if (seat != null) {
+                seats.add(seat);
+            }
+        }
+        return seats;
+    }
+}
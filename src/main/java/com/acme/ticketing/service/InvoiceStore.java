@@ -0,0 +1,284 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.Venue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only store of the invoices of an event.
+ *
+ * Invoices are appended to an off-heap log, 4 bytes per seat, and indexed by two open addressing tables of
+ * primitive arrays: confirmation code, as the two longs of its UUID, to the offset of the invoice, and
+ * customer to the offset of the last invoice of the customer. Every invoice links to the previous one of
+ * its customer, so listing the invoices of a customer only reads them. Nothing is ever removed.
+ */
+public class InvoiceStore {
+    private static final int INITIAL_LOG_SIZE = 64 * 1024;
+    private static final int INITIAL_SLOTS = 1024;
+    // an offset of 0 marks an empty slot or the end of a list, offsets are stored plus one
+    private static final int NONE = 0;
+
+    private final Venue venue;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ByteBuffer log = ByteBuffer.allocateDirect(INITIAL_LOG_SIZE);
+    private long[] confirmationKeys = new long[2 * INITIAL_SLOTS];
+    private int[] confirmationOffsets = new int[INITIAL_SLOTS];
+    private long[] customerKeys = new long[INITIAL_SLOTS];
+    private int[] customerOffsets = new int[INITIAL_SLOTS];
+    private int size;
+    private int customers;
+
+    public InvoiceStore(Venue venue) {
+        this.venue = venue;
+    }
+
+    /**
+     * Store an invoice
+     *
+     * @param invoice the invoice, with a UUID confirmation code
+     * @return false if the invoice is stored already
+     */
+    public boolean add(Invoice invoice) {
+        UUID confirmation = UUID.fromString(invoice.getConfirmation());
+        String customer = invoice.getCustomerEmail().toLowerCase(Locale.ROOT);
+        byte[] email = invoice.getCustomerEmail().getBytes(StandardCharsets.UTF_8);
+        long customerKey = hash(customer);
+        lock.writeLock().lock();
+        try {
+            if (findSlot(confirmation.getMostSignificantBits(), confirmation.getLeastSignificantBits()) >= 0) {
+                return false;
+            }
+
+            int recordSize = 4 + 16 + 2 + email.length + 4 + 4 * invoice.getSeats().size();
+            ensureLogCapacity(recordSize);
+            int offset = log.position();
+            int customerSlot = customerSlot(customerKey);
+            log.putInt(customerOffsets[customerSlot]);
+            log.putLong(confirmation.getMostSignificantBits());
+            log.putLong(confirmation.getLeastSignificantBits());
+            log.putShort((short) email.length);
+            log.put(email);
+            log.putInt(invoice.getSeats().size());
+            for (Seat seat : invoice.getSeats()) {
+                log.putInt(seat.getRow() * venue.getMaxColumn() + seat.getColumn());
+            }
+
+            if (customerOffsets[customerSlot] == NONE) {
+                customers++;
+            }
+            customerKeys[customerSlot] = customerKey;
+            customerOffsets[customerSlot] = offset + 1;
+            int slot = -findSlot(confirmation.getMostSignificantBits(), confirmation.getLeastSignificantBits()) - 1;
+            confirmationKeys[2 * slot] = confirmation.getMostSignificantBits();
+            confirmationKeys[2 * slot + 1] = confirmation.getLeastSignificantBits();
+            confirmationOffsets[slot] = offset + 1;
+            size++;
+            if (2 * size > confirmationOffsets.length) {
+                growConfirmations();
+            }
+            if (2 * customers > customerOffsets.length) {
+                growCustomers();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find an invoice by its confirmation code
+     *
+     * @param confirmation the confirmation code
+     * @return the invoice, null if there is none or the code is not a UUID
+     */
+    public Invoice find(String confirmation) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(confirmation);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            return slot >= 0 ? read(confirmationOffsets[slot] - 1) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the invoices of a customer
+     *
+     * @param customerEmail the email address of the customer, case insensitive
+     * @return the invoices of the customer, oldest first
+     */
+    public List<Invoice> findByCustomer(String customerEmail) {
+        String customer = customerEmail.toLowerCase(Locale.ROOT);
+        long customerKey = hash(customer);
+        List<Invoice> invoices = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int offset = customerOffsets[customerSlot(customerKey)];
+            while (offset != NONE) {
+                Invoice invoice = read(offset - 1);
+                // the key is a hash, another customer may share it
+                if (invoice.getCustomerEmail().toLowerCase(Locale.ROOT).equals(customer)) {
+                    invoices.add(invoice);
+                }
+                offset = log.getInt(offset - 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.reverse(invoices);
+        return invoices;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the log, loaded back by {@link #load(byte[])}
+     */
+    public byte[] toByteArray() {
+        lock.readLock().lock();
+        try {
+            ByteBuffer copy = log.duplicate();
+            copy.flip();
+            byte[] bytes = new byte[copy.remaining()];
+            copy.get(bytes);
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Store the invoices of a log copied by {@link #toByteArray()}
+     *
+     * @param bytes the log
+     */
+    public void load(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            add(decode(buffer));
+        }
+    }
+
+    private Invoice read(int offset) {
+        ByteBuffer buffer = log.duplicate();
+        buffer.position(offset);
+        return decode(buffer);
+    }
+
+    private Invoice decode(ByteBuffer buffer) {
+        buffer.getInt();
+        String confirmation = new UUID(buffer.getLong(), buffer.getLong()).toString();
+        byte[] email = new byte[buffer.getShort()];
+        buffer.get(email);
+        int numSeats = buffer.getInt();
+        List<Seat> seats = new ArrayList<>(numSeats);
+        for (int i = 0; i < numSeats; i++) {
+            int index = buffer.getInt();
+            Seat seat = venue.getSeat(index / venue.getMaxColumn(), index % venue.getMaxColumn());
+            if (seat != null) {
+                seats.add(seat);
+            }
+        }
+        return new Invoice(confirmation, new String(email, StandardCharsets.UTF_8), seats);
+    }
+
+    // slot of the confirmation code if found, otherwise -(empty slot) - 1
+    private int findSlot(long mostSignificantBits, long leastSignificantBits) {
+        int mask = confirmationOffsets.length - 1;
+        int slot = mix(mostSignificantBits ^ leastSignificantBits) & mask;
+        while (confirmationOffsets[slot] != NONE) {
+            if (confirmationKeys[2 * slot] == mostSignificantBits && confirmationKeys[2 * slot + 1] == leastSignificantBits) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    // slot of the customer if found, otherwise an empty slot
+    private int customerSlot(long customerKey) {
+        int mask = customerOffsets.length - 1;
+        int slot = mix(customerKey) & mask;
+        while (customerOffsets[slot] != NONE && customerKeys[slot] != customerKey) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void ensureLogCapacity(int recordSize) {
+        if (log.remaining() >= recordSize) {
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(2 * log.capacity(), log.position() + recordSize));
+        log.flip();
+        log = larger.put(log);
+    }
+
+    private void growConfirmations() {
+        long[] oldConfirmationKeys = confirmationKeys;
+        int[] oldConfirmationOffsets = confirmationOffsets;
+        confirmationKeys = new long[2 * oldConfirmationKeys.length];
+        confirmationOffsets = new int[2 * oldConfirmationOffsets.length];
+        for (int i = 0; i < oldConfirmationOffsets.length; i++) {
+            if (oldConfirmationOffsets[i] != NONE) {
+                int slot = -findSlot(oldConfirmationKeys[2 * i], oldConfirmationKeys[2 * i + 1]) - 1;
+                confirmationKeys[2 * slot] = oldConfirmationKeys[2 * i];
+                confirmationKeys[2 * slot + 1] = oldConfirmationKeys[2 * i + 1];
+                confirmationOffsets[slot] = oldConfirmationOffsets[i];
+            }
+        }
+    }
+
+    private void growCustomers() {
+        long[] oldCustomerKeys = customerKeys;
+        int[] oldCustomerOffsets = customerOffsets;
+        customerKeys = new long[2 * oldCustomerKeys.length];
+        customerOffsets = new int[2 * oldCustomerOffsets.length];
+        for (int i = 0; i < oldCustomerOffsets.length; i++) {
+            if (oldCustomerOffsets[i] != NONE) {
+                int slot = customerSlot(oldCustomerKeys[i]);
+                customerKeys[slot] = oldCustomerKeys[i];
+                customerOffsets[slot] = oldCustomerOffsets[i];
+            }
+        }
+    }
+
+    // 64-bit FNV-1a
+    private static long hash(String customer) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < customer.length(); i++) {
+            hash = (hash ^ customer.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,186 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.SeatCounts;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.WaitlistTicket;
+import com.acme.ticketing.journal.Journal;
+import com.acme.ticketing.journal.JournalRecord;
+import com.acme.ticketing.journal.Snapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ticket service writing every hold, reservation and expiration of an event to a {@link Journal}, and
+ * rebuilding the state of the event from its latest snapshot and the journal written after it when it is
+ * created.
+ *
+ * A request returns once its changes are durable. Expirations are written without waiting, an expiration
+ * lost in a crash is applied again on restart since the hold has expired by then, and written again for the
+ * replicas following the journal.
+ */
+public class JournaledTicketService implements TicketService {
+    private final TicketService ticketService;
+    private final Journal journal;
+
+    /**
+     * @param ticketServiceImpl the service holding the state of the event, not serving requests yet
+     * @param ticketService     the service to serve requests with, wrapping the one above
+     * @param path              the journal file of the event
+     * @param fsync             false to skip syncing the journal to disk
+     * @param snapshot          the latest snapshot of the event, null to rebuild the state from the whole journal
+     */
+    public JournaledTicketService(TicketServiceImpl ticketServiceImpl, TicketService ticketService, Path path,
+                                  boolean fsync, Snapshot snapshot) throws IOException {
+        this.ticketService = ticketService;
+
+        InventoryRecovery recovery = new InventoryRecovery(ticketServiceImpl.getVenue());
+        long fromPosition = 0;
+        if (snapshot != null) {
+            recovery.load(snapshot);
+            fromPosition = Math.max(snapshot.getJournalPosition(), 0);
+        }
+        this.journal = Journal.open(path, fsync, fromPosition, recovery::apply);
+        List<Integer> expiredSeatHoldIds = recovery.restore(ticketServiceImpl);
+        if (!expiredSeatHoldIds.isEmpty()) {
+            // the replicas following the journal still have these holds open
+            journal.append(JournalRecord.expire(expiredSeatHoldIds));
+        }
+
+        ticketServiceImpl.addInventoryListener(new InventoryListener() {
+            @Override
+            public void onHold(int seatHoldId, String customerEmail, List<Seat> seats, long expiresAtMillis) {
+                int[] rows = new int[seats.size()];
+                int[] columns = new int[seats.size()];
+                for (int i = 0; i < seats.size(); i++) {
+                    rows[i] = seats.get(i).getRow();
+                    columns[i] = seats.get(i).getColumn();
+                }
+                journal.append(JournalRecord.hold(seatHoldId, customerEmail, expiresAtMillis, rows, columns));
+            }
+
+            @Override
+            public void onReserve(int seatHoldId, String confirmation) {
+                journal.append(JournalRecord.reserve(seatHoldId, confirmation));
+            }
+
+            @Override
+            public void onExpire(List<Integer> seatHoldIds) {
+                journal.append(JournalRecord.expire(seatHoldIds));
+            }
+        });
+    }
+
+    /**
+     * @return the position of the last record appended, a snapshot taken after reading it covers that record
+     */
+    public long getJournalPosition() {
+        return journal.getAppendedPosition();
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    @Override
+    public SeatCounts getSeatCounts() {
+        return ticketService.getSeatCounts();
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        return durable(ticketService.findAndHoldSeats(numSeats, customerEmail));
+    }
+
+    @Override
+    public List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests) {
+        return durable(ticketService.findAndHoldSeats(holdRequests));
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        return durable(ticketService.reserveSeats(seatHoldId, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+        return ticketService.findAndHoldSeatsAsync(numSeats, customerEmail).thenCompose(this::whenDurable);
+    }
+
+    @Override
+    public CompletableFuture<List<HoldResult>> findAndHoldSeatsAsync(List<HoldRequest> holdRequests) {
+        return ticketService.findAndHoldSeatsAsync(holdRequests).thenCompose(this::whenDurable);
+    }
+
+    @Override
+    public CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+        return ticketService.reserveSeatsAsync(seatHoldId, customerEmail).thenCompose(this::whenDurable);
+    }
+
+    @Override
+    public SeatMap getSeatMap(long sinceVersion) {
+        return ticketService.getSeatMap(sinceVersion);
+    }
+
+    @Override
+    public Invoice findReservation(String confirmation) {
+        return ticketService.findReservation(confirmation);
+    }
+
+    @Override
+    public List<Invoice> findReservations(String customerEmail) {
+        return ticketService.findReservations(customerEmail);
+    }
+
+    @Override
+    public List<SeatHold> findHolds(String customerEmail) {
+        return ticketService.findHolds(customerEmail);
+    }
+
+    @Override
+    public WaitlistTicket joinWaitlist(int numSeats, String customerEmail) {
+        return durable(ticketService.joinWaitlist(numSeats, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<WaitlistTicket> joinWaitlistAsync(int numSeats, String customerEmail) {
+        return ticketService.joinWaitlistAsync(numSeats, customerEmail).thenCompose(this::whenDurable);
+    }
+
+    @Override
+    public WaitlistTicket findWaitlistTicket(String ticketId) {
+        return ticketService.findWaitlistTicket(ticketId);
+    }
+
+    @Override
+    public void addInventoryListener(InventoryListener inventoryListener) {
+        ticketService.addInventoryListener(inventoryListener);
+    }
+
+    // wait for the records of the request, written by now, and the ones of other requests written with them
+    private <T> T durable(T result) {
+        if (result != null) {
+            journal.awaitDurable(journal.getAppendedPosition());
+        }
+        return result;
+    }
+
+    private <T> CompletableFuture<T> whenDurable(T result) {
+        if (result == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return journal.whenDurable(journal.getAppendedPosition()).thenApply(durable -> result);
+    }
+
+    public void close() throws IOException {
+        journal.close();
+    }
+}
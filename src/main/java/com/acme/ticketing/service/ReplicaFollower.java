@@ -0,0 +1,107 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Venue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs this instance as a read-only follower of a primary, with {@code replica.enabled=true}.
+ *
+ * The events are served by {@link ReplicaTicketService}s following the journals the primary writes to
+ * {@code journal.dir}, a directory shared with the primary. One thread polls every journal each
+ * {@code replica.pollMillis}, so a follower serves counts, seat maps and reservations at most
+ * {@code replica.maxStalenessMillis} behind the primary, or answers busy.
+ */
+@Component
+public class ReplicaFollower {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaFollower.class);
+
+    private final boolean enabled;
+    private final Path journalDirectory;
+    private final long maxStalenessMillis;
+    private final List<ReplicaTicketService> replicas = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller;
+
+    @Autowired
+    public ReplicaFollower(@Value("${replica.enabled:false}") boolean enabled,
+                           @Value("${journal.dir:journal}") String journalDirectory,
+                           @Value("${replica.pollMillis:20}") long pollMillis,
+                           @Value("${replica.maxStalenessMillis:1000}") long maxStalenessMillis) {
+        this.enabled = enabled;
+        this.journalDirectory = journalDirectory == null ? null : Paths.get(journalDirectory);
+        this.maxStalenessMillis = maxStalenessMillis;
+        if (enabled) {
+            poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-follower");
+                thread.setDaemon(true);
+                return thread;
+            });
+            poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        } else {
+            poller = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Follow the journal of an event, catching up with it before returning
+     *
+     * @param eventId the event identifier
+     * @param venue   a venue with the layout of the event on the primary, initialized
+     * @return the read-only ticket service of the event
+     */
+    public ReplicaTicketService follow(String eventId, Venue venue) {
+        ReplicaTicketService replica = new ReplicaTicketService(venue, journalDirectory.resolve(eventId + ".journal"),
+                maxStalenessMillis);
+        try {
+            replica.poll();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to follow event " + eventId, ex);
+        }
+        // polled by the poller thread only from now on
+        replicas.add(replica);
+        return replica;
+    }
+
+    private void poll() {
+        for (ReplicaTicketService replica : replicas) {
+            try {
+                replica.poll();
+            } catch (IOException | RuntimeException ex) {
+                LOG.error("Failed to follow journal", ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdownNow();
+        for (ReplicaTicketService replica : replicas) {
+            try {
+                replica.close();
+            } catch (IOException ex) {
+                LOG.error("Failed to close journal", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatCounts;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.journal.Journal;
+import com.acme.ticketing.journal.JournalRecord;
+import com.google.common.collect.Maps;
+import org.apache.commons.validator.routines.EmailValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only copy of the inventory of an event, following the journal written by the primary.
+ *
+ * The journal is the ordered stream of the changes of the event: {@link #poll()} applies the records
+ * appended since the last poll to a venue of its own, on one thread, while requests read the venue, its
+ * seat map and the invoices without touching the primary. Holds are not expired here, the expirations are
+ * journaled by the primary like the other changes. The primary journals a change after the status change
+ * it reports, so a hold may come before the expiration that freed its seats: every seat on hold belongs to
+ * the last hold of the journal taking it, and an expiration only releases the seats still belonging to its
+ * holds. Reads fail as busy once the copy has not caught up with
+ * the journal for longer than the max staleness, bookings are refused.
+ */
+public class ReplicaTicketService implements TicketService {
+    private static final String READ_ONLY = "Read-only replica, please send bookings to the primary";
+    private static final String REPLICA_BEHIND = "Replica behind the primary, please try again later";
+    private static final String INVALID_EMAIL_INPUT = "Invalid email";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaTicketService.class);
+
+    private final Venue venue;
+    private final Path journalPath;
+    private final long maxStalenessMillis;
+    private final SeatMapCache seatMapCache;
+    private final InvoiceStore invoiceStore;
+    private final Map<Integer, JournalRecord> openHolds = Maps.newConcurrentMap();
+    // hold owning every seat on hold by position, used by the thread polling the journal only
+    private final Map<Integer, Integer> seatHoldIdBySeat = new HashMap<>();
+    private final List<InventoryListener> inventoryListeners = new CopyOnWriteArrayList<>();
+    private FileChannel channel;
+    private long position;
+    private volatile long caughtUpAtMillis;
+    private volatile boolean diverged;
+
+    /**
+     * @param venue              a venue with the layout of the event, initialized
+     * @param journalPath        the journal of the event written by the primary
+     * @param maxStalenessMillis the max time reads are served without having caught up with the journal
+     */
+    public ReplicaTicketService(Venue venue, Path journalPath, long maxStalenessMillis) {
+        this.venue = venue;
+        this.journalPath = journalPath;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.seatMapCache = new SeatMapCache(venue);
+        this.inventoryListeners.add(seatMapCache);
+        this.invoiceStore = new InvoiceStore(venue);
+    }
+
+    /**
+     * Apply the records appended to the journal since the last poll, called by one thread only
+     */
+    void poll() throws IOException {
+        long startedAt = System.currentTimeMillis();
+        if (channel == null) {
+            if (!Files.exists(journalPath)) {
+                return;
+            }
+            channel = FileChannel.open(journalPath, StandardOpenOption.READ);
+        }
+        long size = channel.size();
+        if (size < position) {
+            // the journal was replaced, the copy no longer matches it
+            if (!diverged) {
+                LOG.error("Journal {} is shorter than the {} byte(s) applied, restart the replica", journalPath, position);
+                diverged = true;
+            }
+            return;
+        }
+        position = Journal.read(channel, position, this::apply);
+        // every record complete when the poll started is applied
+        if (position >= size) {
+            caughtUpAtMillis = startedAt;
+        }
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the milliseconds since the copy last caught up with the journal
+     */
+    public long getStalenessMillis() {
+        return System.currentTimeMillis() - caughtUpAtMillis;
+    }
+
+    private void apply(JournalRecord record) {
+        switch (record.getType()) {
+            case HOLD:
+                List<Seat> seatsOnHold = seatsOf(record);
+                // a seat still held by an expiration not applied yet is taken over as is
+                venue.restoreSeats(seatsOnHold, SeatStatus.HOLD);
+                seatsOnHold.removeIf(seat -> seat.getStatus() != SeatStatus.HOLD);
+                for (Seat seat : seatsOnHold) {
+                    seatHoldIdBySeat.put(position(seat), record.getSeatHoldId());
+                }
+                openHolds.put(record.getSeatHoldId(), record);
+                for (InventoryListener inventoryListener : inventoryListeners) {
+                    inventoryListener.onHold(record.getSeatHoldId(), record.getCustomerEmail(), seatsOnHold,
+                            record.getExpiresAtMillis());
+                }
+                break;
+            case RESERVE:
+                JournalRecord hold = openHolds.remove(record.getSeatHoldId());
+                if (hold != null) {
+                    List<Seat> seats = seatsOf(hold);
+                    venue.sellSeats(ownedSeats(hold));
+                    invoiceStore.add(new Invoice(record.getConfirmation(), hold.getCustomerEmail(), seats));
+                    for (InventoryListener inventoryListener : inventoryListeners) {
+                        inventoryListener.onReserve(record.getSeatHoldId(), record.getConfirmation());
+                    }
+                }
+                break;
+            case EXPIRE:
+                List<Integer> seatHoldIds = new ArrayList<>(record.getSeatHoldIds().length);
+                List<Seat> seatsReleased = new ArrayList<>();
+                for (int seatHoldId : record.getSeatHoldIds()) {
+                    JournalRecord expired = openHolds.remove(seatHoldId);
+                    if (expired != null) {
+                        // the seats taken over by a later hold stay on hold
+                        List<Seat> seats = ownedSeats(expired);
+                        venue.releaseSeats(seats);
+                        seatsReleased.addAll(seats);
+                        seatHoldIds.add(seatHoldId);
+                    }
+                }
+                if (!seatHoldIds.isEmpty()) {
+                    for (InventoryListener inventoryListener : inventoryListeners) {
+                        inventoryListener.onRelease(seatsReleased);
+                        inventoryListener.onExpire(seatHoldIds);
+                    }
+                }
+                break;
+        }
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return getSeatCounts().getAvailable();
+    }
+
+    @Override
+    public SeatCounts getSeatCounts() {
+        checkFresh();
+        return venue.getSeatCounts();
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        throw new IllegalStateException(READ_ONLY);
+    }
+
+    @Override
+    public List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests) {
+        throw new IllegalStateException(READ_ONLY);
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        throw new IllegalStateException(READ_ONLY);
+    }
+
+    @Override
+    public SeatMap getSeatMap(long sinceVersion) {
+        checkFresh();
+        return seatMapCache.getSeatMap(sinceVersion);
+    }
+
+    @Override
+    public Invoice findReservation(String confirmation) {
+        checkFresh();
+        return invoiceStore.find(confirmation);
+    }
+
+    @Override
+    public List<Invoice> findReservations(String customerEmail) {
+        validateCustomerEmail(customerEmail);
+        checkFresh();
+        return invoiceStore.findByCustomer(customerEmail);
+    }
+
+    @Override
+    public List<SeatHold> findHolds(String customerEmail) {
+        validateCustomerEmail(customerEmail);
+        checkFresh();
+        return openHolds.values().stream()
+                .filter(hold -> hold.getCustomerEmail().equalsIgnoreCase(customerEmail))
+                .sorted(Comparator.comparingInt(JournalRecord::getSeatHoldId))
+                .map(hold -> new SeatHold(hold.getSeatHoldId(), hold.getCustomerEmail(), seatsOf(hold)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Notify a listener of every change applied from the journal, on the thread polling it
+     */
+    @Override
+    public void addInventoryListener(InventoryListener inventoryListener) {
+        inventoryListeners.add(inventoryListener);
+    }
+
+    private void checkFresh() {
+        if (diverged || getStalenessMillis() > maxStalenessMillis) {
+            throw new TicketSystemBusyException(REPLICA_BEHIND, 1);
+        }
+    }
+
+    private List<Seat> seatsOf(JournalRecord hold) {
+        List<Seat> seats = new ArrayList<>(hold.getRows().length);
+        for (int i = 0; i < hold.getRows().length; i++) {
+            Seat seat = venue.getSeat(hold.getRows()[i], hold.getColumns()[i]);
+            if (seat != null) {
+                seats.add(seat);
+            }
+        }
+        return seats;
+    }
+
+    // the seats of the hold not taken over by a later hold, no longer owned by any hold
+    private List<Seat> ownedSeats(JournalRecord hold) {
+        List<Seat> seats = seatsOf(hold);
+        seats.removeIf(seat -> !seatHoldIdBySeat.remove(position(seat), hold.getSeatHoldId()));
+        return seats;
+    }
+
+    private int position(Seat seat) {
+        return seat.getRow() * venue.getMaxColumn() + seat.getColumn();
+    }
+
+    private void validateCustomerEmail(String customerEmail) {
+        if (!EmailValidator.getInstance().isValid(customerEmail)) {
+            throw new BookingValidationException(INVALID_EMAIL_INPUT);
+        }
+    }
+}
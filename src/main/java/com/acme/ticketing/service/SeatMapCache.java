@@ -0,0 +1,166 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.Venue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seat map of a venue, maintained by the write path.
+ *
+ * Registered as an {@link InventoryListener}, and told of the seats restored, it keeps the availability of
+ * every seat and the runs of every row, recomputing only the rows changed since the last map built, and a
+ * log of the seats changed by the last writes to answer deltas with no capacity-sized buffer. A version
+ * older than the log gets the full map. The callbacks of several threads may arrive in any order after the
+ * status changes they report, so every seat told is read again under the lock of the map instead of
+ * trusting the direction of the callback: the last callback of a seat always sees its last status. Versions start from a random epoch drawn at startup, so a version
+ * from before a restart is not mistaken for one of this process.
+ */
+class SeatMapCache implements InventoryListener {
+    private static final int MIN_LOG_SIZE = 4096;
+    // below 2^53 with a few partitions summed up, so versions stay exact in JavaScript clients
+    private static final long EPOCH = (long) ThreadLocalRandom.current().nextInt(1, 1 << 16) << Integer.SIZE;
+
+    private final int maxRow;
+    private final int maxColumn;
+    // guarded by this
+    private final long[] availability;
+    private final int[][] runsByRow;
+    private final boolean[] rowChanged;
+    private final int[] logPositions;
+    private final long[] logVersions;
+    private long logSize;
+    // changes up to this version may have been overwritten in the log
+    private long logTruncatedVersion = EPOCH;
+    private long version = EPOCH;
+    private SeatMap seatMap;
+
+    SeatMapCache(Venue venue) {
+        this.maxRow = venue.getMaxRow();
+        this.maxColumn = venue.getMaxColumn();
+        this.availability = venue.getAvailability();
+        this.runsByRow = new int[maxRow][];
+        this.rowChanged = new boolean[maxRow];
+        Arrays.fill(rowChanged, true);
+        int logCapacity = Math.max(MIN_LOG_SIZE, Integer.highestOneBit(Math.max(venue.getCapacity() / 8, 1)));
+        this.logPositions = new int[logCapacity];
+        this.logVersions = new long[logCapacity];
+    }
+
+    @Override
+    public void onHold(int seatHoldId, String customerEmail, List<Seat> seats, long expiresAtMillis) {
+        taken(seats);
+    }
+
+    @Override
+    public void onRelease(List<Seat> seats) {
+        update(seats);
+    }
+
+    /**
+     * seats no longer available, held or sold, including the ones restored
+     *
+     * @param seats the seats taken
+     */
+    void taken(List<Seat> seats) {
+        update(seats);
+    }
+
+    private synchronized void update(List<Seat> seats) {
+        if (seats.isEmpty()) {
+            return;
+        }
+        version++;
+        for (Seat seat : seats) {
+            int position = seat.getRow() * maxColumn + seat.getColumn();
+            if (seat.getStatus() == SeatStatus.AVAILABLE) {
+                availability[position >>> 6] |= 1L << position;
+            } else {
+                availability[position >>> 6] &= ~(1L << position);
+            }
+            rowChanged[seat.getRow()] = true;
+
+            int slot = (int) (logSize++ % logPositions.length);
+            if (logSize > logPositions.length) {
+                logTruncatedVersion = Math.max(logTruncatedVersion, logVersions[slot]);
+            }
+            logPositions[slot] = position;
+            logVersions[slot] = version;
+        }
+    }
+
+    /**
+     * @param sinceVersion the version known by the client, negative for the full map
+     * @return the seats changed since the version specified, or the full map if that version is unknown
+     */
+    synchronized SeatMap getSeatMap(long sinceVersion) {
+        if (sinceVersion < logTruncatedVersion || sinceVersion > version) {
+            return fullMap();
+        }
+
+        // the seats changed since, each with its availability now
+        int numChanges = 0;
+        while (numChanges < logSize && numChanges < logPositions.length
+                && logVersions[(int) ((logSize - 1 - numChanges) % logPositions.length)] > sinceVersion) {
+            numChanges++;
+        }
+        int[] changed = new int[numChanges];
+        for (int i = 0; i < numChanges; i++) {
+            changed[i] = logPositions[(int) ((logSize - 1 - i) % logPositions.length)];
+        }
+        Arrays.sort(changed);
+        int[] available = new int[numChanges];
+        int[] taken = new int[numChanges];
+        int numAvailable = 0;
+        int numTaken = 0;
+        for (int i = 0; i < numChanges; i++) {
+            int position = changed[i];
+            if (i > 0 && position == changed[i - 1]) {
+                continue;
+            }
+            if ((availability[position >>> 6] & (1L << position)) != 0) {
+                available[numAvailable++] = position;
+            } else {
+                taken[numTaken++] = position;
+            }
+        }
+        return SeatMap.delta(version, sinceVersion, maxRow, maxColumn,
+                Arrays.copyOf(available, numAvailable), Arrays.copyOf(taken, numTaken));
+    }
+
+    // rebuilt at most once per version, from the runs of the rows not changed and of the ones changed
+    private SeatMap fullMap() {
+        if (seatMap != null && seatMap.getVersion() == version) {
+            return seatMap;
+        }
+        int[] runs = new int[maxColumn + 1];
+        for (int row = 0; row < maxRow; row++) {
+            if (rowChanged[row]) {
+                runsByRow[row] = runs(row, runs);
+                rowChanged[row] = false;
+            }
+        }
+        seatMap = SeatMap.full(version, maxRow, maxColumn, Arrays.asList(runsByRow.clone()));
+        return seatMap;
+    }
+
+    private int[] runs(int row, int[] runs) {
+        int numRuns = 0;
+        int length = 0;
+        boolean available = true;
+        for (int position = row * maxColumn; position < (row + 1) * maxColumn; position++) {
+            if (((availability[position >>> 6] >>> position) & 1) != (available ? 1 : 0)) {
+                runs[numRuns++] = length;
+                length = 0;
+                available = !available;
+            }
+            length++;
+        }
+        runs[numRuns++] = length;
+        return Arrays.copyOf(runs, numRuns);
+    }
+}
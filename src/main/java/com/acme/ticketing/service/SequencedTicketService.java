@@ -0,0 +1,146 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.SeatCounts;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.WaitlistTicket;
+import com.acme.ticketing.metrics.TicketingMetrics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer engine for the inventory of one event.
+ *
+ * Holds, reservations and hold expirations are queued as commands on a {@link CommandRingBuffer} and
+ * applied in sequence by its one consumer thread, so request threads and the expiry wheel never mutate the
+ * inventory concurrently. Reads are served directly from the underlying service.
+ */
+public class SequencedTicketService implements TicketService {
+    private final TicketServiceImpl ticketService;
+    private final CommandRingBuffer commands;
+
+    public SequencedTicketService(TicketServiceImpl ticketService, int ringBufferSize, String name) {
+        this.ticketService = ticketService;
+        this.commands = new CommandRingBuffer(ringBufferSize, name);
+        // expirations are never dropped, they wait for room when the buffer is full
+        ticketService.setExpiryExecutor(commands::publishAwaitingRoom);
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    @Override
+    public SeatCounts getSeatCounts() {
+        return ticketService.getSeatCounts();
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        return join(findAndHoldSeatsAsync(numSeats, customerEmail));
+    }
+
+    @Override
+    public List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests) {
+        return join(findAndHoldSeatsAsync(holdRequests));
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        return join(reserveSeatsAsync(seatHoldId, customerEmail));
+    }
+
+    @Override
+    public SeatMap getSeatMap(long sinceVersion) {
+        return ticketService.getSeatMap(sinceVersion);
+    }
+
+    @Override
+    public Invoice findReservation(String confirmation) {
+        return ticketService.findReservation(confirmation);
+    }
+
+    @Override
+    public List<Invoice> findReservations(String customerEmail) {
+        return ticketService.findReservations(customerEmail);
+    }
+
+    @Override
+    public List<SeatHold> findHolds(String customerEmail) {
+        return ticketService.findHolds(customerEmail);
+    }
+
+    @Override
+    public WaitlistTicket joinWaitlist(int numSeats, String customerEmail) {
+        return join(joinWaitlistAsync(numSeats, customerEmail));
+    }
+
+    @Override
+    public WaitlistTicket findWaitlistTicket(String ticketId) {
+        return ticketService.findWaitlistTicket(ticketId);
+    }
+
+    @Override
+    public void addInventoryListener(InventoryListener inventoryListener) {
+        ticketService.addInventoryListener(inventoryListener);
+    }
+
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+        return submit(() -> ticketService.findAndHoldSeats(numSeats, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<List<HoldResult>> findAndHoldSeatsAsync(List<HoldRequest> holdRequests) {
+        return submit(() -> ticketService.findAndHoldSeats(holdRequests));
+    }
+
+    @Override
+    public CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+        return submit(() -> ticketService.reserveSeats(seatHoldId, customerEmail));
+    }
+
+    @Override
+    public CompletableFuture<WaitlistTicket> joinWaitlistAsync(int numSeats, String customerEmail) {
+        return submit(() -> ticketService.joinWaitlist(numSeats, customerEmail));
+    }
+
+    public void stop() {
+        commands.stop();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long publishedAt = System.nanoTime();
+        commands.publish(() -> {
+            TicketingMetrics.ENGINE_QUEUE_WAIT.recordSince(publishedAt);
+            try {
+                result.complete(command.get());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
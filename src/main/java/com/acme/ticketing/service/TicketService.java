@@ -1,7 +1,16 @@
 package com.acme.ticketing.service;
 
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
 import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.SeatCounts;
 import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.WaitlistTicket;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Created by Weihong on 3/30/2017.
@@ -13,6 +22,12 @@ public interface TicketService {
      * @return the number of tickets available in the venue
      */
     int numSeatsAvailable();
+    /**
+     * The number of seats of each type available, held and sold, read at the same instant
+     *
+     * @return the seat counts of the venue
+     */
+    SeatCounts getSeatCounts();
     /**
      * Find and hold the best available seats for a customer
      *
@@ -22,6 +37,15 @@ public interface TicketService {
     information
      */
     SeatHold findAndHoldSeats(int numSeats, String customerEmail);
+    /**
+     * Find and hold the best available seats for several customers in one pass,
+     * requests are served in order while seats last
+     *
+     * @param holdRequests the number of seats and the customer of each hold
+     * @return the SeatHold or the reason of the failure of each request, in the
+    order of the requests
+     */
+    List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests);
     /**
      * Commit seats held for a specific customer
      *
@@ -31,4 +55,103 @@ public interface TicketService {
      * @return a reservation confirmation code
      */
     String reserveSeats(int seatHoldId, String customerEmail);
+    /**
+     * Asynchronous {@link #findAndHoldSeats(int, String)}, the caller does not wait for the inventory. The
+     * default implementation holds the seats on the calling thread.
+     *
+     * @return the SeatHold, the future fails with the exception the hold would throw
+     */
+    default CompletableFuture<SeatHold> findAndHoldSeatsAsync(int numSeats, String customerEmail) {
+        return supply(() -> findAndHoldSeats(numSeats, customerEmail));
+    }
+    /**
+     * Asynchronous {@link #findAndHoldSeats(List)}
+     *
+     * @return the results of the hold requests
+     */
+    default CompletableFuture<List<HoldResult>> findAndHoldSeatsAsync(List<HoldRequest> holdRequests) {
+        return supply(() -> findAndHoldSeats(holdRequests));
+    }
+    /**
+     * Asynchronous {@link #reserveSeats(int, String)}
+     *
+     * @return the reservation confirmation code, null if the hold was not found
+     */
+    default CompletableFuture<String> reserveSeatsAsync(int seatHoldId, String customerEmail) {
+        return supply(() -> reserveSeats(seatHoldId, customerEmail));
+    }
+    /**
+     * The availability of the seats, as a full map or as the seats changed since a version of the map
+     *
+     * @param sinceVersion the version of a map received earlier, negative for the full map
+     * @return the seat map, full if the version specified is too old
+     */
+    SeatMap getSeatMap(long sinceVersion);
+    /**
+     * Find a reservation by its confirmation code
+     *
+     * @param confirmation the reservation confirmation code
+     * @return the invoice of the reservation, null if not found
+     */
+    Invoice findReservation(String confirmation);
+    /**
+     * Find the reservations of a customer
+     *
+     * @param customerEmail the email address of the customer
+     * @return the invoices of the customer, oldest first
+     */
+    List<Invoice> findReservations(String customerEmail);
+    /**
+     * Find the holds still open of a customer
+     *
+     * @param customerEmail the email address of the customer, case insensitive
+     * @return the open holds of the customer, oldest first
+     */
+    List<SeatHold> findHolds(String customerEmail);
+    /**
+     * Wait in line for seats when there are not enough available: the seats are held as soon as holds
+     * expiring or cancelled release enough of them, requests being served in the order they joined. The
+     * default implementation has no waitlist.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return the ticket to poll with {@link #findWaitlistTicket(String)}, held already if the seats were
+    available
+     */
+    default WaitlistTicket joinWaitlist(int numSeats, String customerEmail) {
+        throw new IllegalStateException("Waitlist not available for this event");
+    }
+    /**
+     * Asynchronous {@link #joinWaitlist(int, String)}
+     *
+     * @return the ticket of the request
+     */
+    default CompletableFuture<WaitlistTicket> joinWaitlistAsync(int numSeats, String customerEmail) {
+        return supply(() -> joinWaitlist(numSeats, customerEmail));
+    }
+    /**
+     * Find a ticket of the waitlist
+     *
+     * @param ticketId the ticket identifier
+     * @return the ticket, null if not found or forgotten after its hold has expired
+     */
+    default WaitlistTicket findWaitlistTicket(String ticketId) {
+        return null;
+    }
+    /**
+     * Notify a listener of every hold, reservation and expiration from now on
+     *
+     * @param inventoryListener the listener, called on the booking threads
+     */
+    void addInventoryListener(InventoryListener inventoryListener);
+
+    static <T> CompletableFuture<T> supply(Supplier<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(request.get());
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.cluster.Cluster;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.scheduler.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the ticket service of an event according to the configured engine mode, partitioned across the
+ * cluster or following a primary, behind admission control and metrics
+ */
+@Component
+public class TicketServiceFactory {
+    private final TimingWheel timingWheel;
+    private final long seatHoldTTL;
+    private final int maxHoldsPerCustomer;
+    private final int maxSeatsPerCustomer;
+    private final int waitlistMaxSize;
+    private final long waitlistMaxWaitSeconds;
+    private final EngineMode engineMode;
+    private final int ringBufferSize;
+    private final AdmissionController admissionController;
+    private final EventPersistence eventPersistence;
+    private final Cluster cluster;
+    private final ReplicaFollower replicaFollower;
+
+    @Autowired
+    public TicketServiceFactory(TimingWheel timingWheel,
+                                @Value("${order.hold.ttl:86400}") long seatHoldTTL,
+                                @Value("${order.hold.maxPerCustomer:0}") int maxHoldsPerCustomer,
+                                @Value("${order.hold.maxSeatsPerCustomer:0}") int maxSeatsPerCustomer,
+                                @Value("${waitlist.maxSize:0}") int waitlistMaxSize,
+                                @Value("${waitlist.maxWaitSeconds:600}") long waitlistMaxWaitSeconds,
+                                @Value("${ticketing.engine.mode:CONCURRENT}") EngineMode engineMode,
+                                @Value("${ticketing.engine.ringBufferSize:65536}") int ringBufferSize,
+                                AdmissionController admissionController,
+                                EventPersistence eventPersistence,
+                                Cluster cluster,
+                                ReplicaFollower replicaFollower) {
+        this.timingWheel = timingWheel;
+        this.seatHoldTTL = seatHoldTTL;
+        this.maxHoldsPerCustomer = maxHoldsPerCustomer;
+        this.maxSeatsPerCustomer = maxSeatsPerCustomer;
+        this.waitlistMaxSize = waitlistMaxSize;
+        this.waitlistMaxWaitSeconds = waitlistMaxWaitSeconds;
+        this.engineMode = engineMode;
+        this.ringBufferSize = ringBufferSize;
+        this.admissionController = admissionController;
+        this.eventPersistence = eventPersistence;
+        this.cluster = cluster;
+        this.replicaFollower = replicaFollower;
+    }
+
+    /**
+     * Create the ticket service of a new event
+     *
+     * @param eventId the event identifier
+     * @param venue   the venue of the event, initialized
+     * @return the ticket service selling the event
+     */
+    public TicketService create(String eventId, Venue venue) {
+        if (replicaFollower.isEnabled()) {
+            return expose(replicaFollower.follow(eventId, venue));
+        }
+        if (cluster.isEnabled()) {
+            return expose(cluster.join(eventId, venue, timingWheel, seatHoldTTL));
+        }
+        return wrap(eventId, new TicketServiceImpl(venue, timingWheel, seatHoldTTL,
+                maxHoldsPerCustomer, maxSeatsPerCustomer));
+    }
+
+    /**
+     * Put a ticket service behind the configured engine, in a cluster or a follower only the layout of its
+     * venue is used
+     *
+     * @param eventId       the event identifier
+     * @param ticketService the ticket service
+     * @return the ticket service to expose
+     */
+    public TicketService wrap(String eventId, TicketServiceImpl ticketService) {
+        if (cluster.isEnabled() || replicaFollower.isEnabled()) {
+            return create(eventId, ticketService.getVenue());
+        }
+        if (waitlistMaxSize > 0) {
+            ticketService.enableWaitlist(waitlistMaxSize, TimeUnit.SECONDS.toMillis(waitlistMaxWaitSeconds));
+        }
+        TicketService engine = ticketService;
+        if (engineMode == EngineMode.SEQUENCED) {
+            engine = new SequencedTicketService(ticketService, ringBufferSize, "booking-engine-" + eventId);
+        }
+        engine = eventPersistence.persist(eventId, ticketService, engine);
+        return expose(engine);
+    }
+
+    private TicketService expose(TicketService engine) {
+        if (admissionController.isEnabled()) {
+            engine = new AdmissionControlledTicketService(engine, admissionController);
+        }
+        return new InstrumentedTicketService(engine);
+    }
+}
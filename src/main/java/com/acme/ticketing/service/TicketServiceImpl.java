@@ -2,6 +2,10 @@ package com.acme.ticketing.service;
 
 import com.acme.ticketing.entity.*;
 import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.journal.JournalRecord;
+import com.acme.ticketing.journal.Snapshot;
+import com.acme.ticketing.metrics.TicketingMetrics;
+import com.acme.ticketing.scheduler.TimingWheel;
 import com.google.common.collect.Maps;
 import org.apache.commons.validator.routines.EmailValidator;
 import org.slf4j.Logger;
@@ -10,12 +14,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * Created by Mom and Dad on 3/30/2017.
@@ -23,25 +32,161 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 @Service
 public class TicketServiceImpl implements TicketService {
 
-    private static final String INVALID_SEAT_INPUT = "Invalid seat count, please provide a number between % and %s";
+    private static final String INVALID_SEAT_INPUT = "Invalid seat count, please provide a number between %s and %s";
     private static final String INVALID_EMAIL_INPUT = "Invalid email";
+    private static final String INVALID_BATCH_INPUT = "Invalid batch size, please provide between 1 and %s hold requests";
+    private static final String INVALID_HOLD_REQUEST = "Invalid hold request";
+    private static final String NOT_ENOUGH_SEATS = "Not enough seats available, please try another showtime";
+    private static final String HOLD_LIMIT_REACHED = "Too many seats on hold for this customer, please reserve the seats held first";
+    private static final String WAITLIST_DISABLED = "Waitlist not available for this event";
+    private static final int MAX_BATCH_SIZE = 1000;
 
     private static final Logger LOG = LoggerFactory.getLogger(TicketServiceImpl.class);
 
     private final Venue venue;
-    private volatile int numSeatOnHold;
-    private volatile int numSeatSold;
     Map<Integer, SeatHoldOrder> seatHoldOrderById = Maps.newConcurrentMap();
     private AtomicInteger idGen = new AtomicInteger();
 
-    private ReentrantReadWriteLock onHoldLock = new ReentrantReadWriteLock(true);
-    private ReentrantReadWriteLock reservationLock = new ReentrantReadWriteLock(true);
+    private final TimingWheel timingWheel;
+    private volatile Executor expiryExecutor = Runnable::run;
+    // a single handler instance, so that orders expiring in the same tick are released as one batch
+    private final Consumer<List<SeatHoldOrder>> expiryHandler =
+            expiredOrders -> expiryExecutor.execute(() -> expireSeatHolds(expiredOrders));
     private final long seatHoldTTL;
+    private final List<InventoryListener> inventoryListeners = new CopyOnWriteArrayList<>();
+    private final InvoiceStore invoiceStore;
+    private final SeatMapCache seatMapCache;
+    private final CustomerHoldIndex customerHolds;
+    private volatile Waitlist waitlist;
+
+    public TicketServiceImpl(Venue venue, long seatHoldTTL) {
+        this(venue, new TimingWheel(), seatHoldTTL);
+    }
+
+    public TicketServiceImpl(Venue venue, TimingWheel timingWheel, long seatHoldTTL) {
+        this(venue, timingWheel, seatHoldTTL, 0, 0);
+    }
 
     @Autowired
-    public TicketServiceImpl(Venue venue, @Value("${order.hold.ttl:86400}") long seatHoldTTL ) {
+    public TicketServiceImpl(Venue venue, TimingWheel timingWheel, @Value("${order.hold.ttl:86400}") long seatHoldTTL,
+                             @Value("${order.hold.maxPerCustomer:0}") int maxHoldsPerCustomer,
+                             @Value("${order.hold.maxSeatsPerCustomer:0}") int maxSeatsPerCustomer) {
         this.venue = venue;
+        this.timingWheel = timingWheel;
         this.seatHoldTTL = seatHoldTTL;
+        this.invoiceStore = new InvoiceStore(venue);
+        this.seatMapCache = new SeatMapCache(venue);
+        this.inventoryListeners.add(seatMapCache);
+        this.customerHolds = new CustomerHoldIndex(maxHoldsPerCustomer, maxSeatsPerCustomer, seatHoldOrderById);
+    }
+
+    /**
+     * Run hold expirations on another executor than the timing wheel thread
+     *
+     * @param expiryExecutor the executor applying expirations
+     */
+    void setExpiryExecutor(Executor expiryExecutor) {
+        this.expiryExecutor = expiryExecutor;
+    }
+
+    /**
+     * Let hold requests wait for seats released by expired or cancelled holds
+     *
+     * @param maxSize       the max number of requests waiting
+     * @param maxWaitMillis the max time a request waits for seats
+     */
+    void enableWaitlist(int maxSize, long maxWaitMillis) {
+        this.waitlist = new Waitlist(maxSize, maxWaitMillis, seatHoldTTL * 1000);
+    }
+
+    @Override
+    public void addInventoryListener(InventoryListener inventoryListener) {
+        inventoryListeners.add(inventoryListener);
+    }
+
+    Venue getVenue() {
+        return venue;
+    }
+
+    InvoiceStore getInvoiceStore() {
+        return invoiceStore;
+    }
+
+    /**
+     * Put seats back on hold when restoring the state of the service, the hold expires at the time specified
+     *
+     * @param seatHoldId      the hold identifier
+     * @param customerEmail   the customer holding the seats
+     * @param seats           the seats to hold
+     * @param expiresAtMillis wall clock time the hold expires at
+     * @return false if some of the seats were not available
+     */
+    boolean restoreHold(int seatHoldId, String customerEmail, List<Seat> seats, long expiresAtMillis) {
+        idGen.accumulateAndGet(seatHoldId, Math::max);
+        List<Seat> seatsOnHold = venue.restoreSeats(seats, SeatStatus.HOLD);
+        if (seatsOnHold.isEmpty()) {
+            return false;
+        }
+        seatMapCache.taken(seatsOnHold);
+        TicketingMetrics.HOLDS_OPEN.increment();
+        TicketingMetrics.SEATS_ON_HOLD.add(seatsOnHold.size());
+
+        long expireInMillis = Math.max(0, expiresAtMillis - System.currentTimeMillis());
+        SeatHoldOrder seatHoldOrder = new SeatHoldOrder(seatHoldId, customerEmail, seatsOnHold, expireInMillis,
+                timingWheel, expiryHandler);
+        customerHolds.restore(seatHoldOrder);
+        seatHoldOrder.startTimer();
+        return seatsOnHold.size() == seats.size();
+    }
+
+    /**
+     * Mark seats sold when restoring the state of the service
+     *
+     * @param seats the seats sold
+     * @return false if some of the seats were not available
+     */
+    boolean restoreSale(List<Seat> seats) {
+        List<Seat> seatsSold = venue.restoreSeats(seats, SeatStatus.SOLD);
+        seatMapCache.taken(seatsSold);
+        return seatsSold.size() == seats.size();
+    }
+
+    /**
+     * Keep hold identifiers above the ones used before restoring the state of the service
+     *
+     * @param seatHoldId a hold identifier used already
+     */
+    void restoreSeatHoldId(int seatHoldId) {
+        idGen.accumulateAndGet(seatHoldId, Math::max);
+    }
+
+    /**
+     * Capture the state of the service without stopping it. Every change is applied before it is notified
+     * to the listeners, so the snapshot includes at least the changes journaled up to the position specified.
+     *
+     * @param journalPosition the journal position read before calling this method, -1 if there is no journal
+     * @return the snapshot
+     */
+    Snapshot snapshot(long journalPosition) {
+        int lastSeatHoldId = idGen.get();
+        // holds first, a hold reserved in between then shows as open with its seats sold, which the
+        // reservation journaled after the position resolves
+        List<JournalRecord> holds = new ArrayList<>(seatHoldOrderById.size());
+        for (SeatHoldOrder seatHoldOrder : seatHoldOrderById.values()) {
+            List<Seat> seats = seatHoldOrder.getSeats();
+            int[] rows = new int[seats.size()];
+            int[] columns = new int[seats.size()];
+            for (int i = 0; i < seats.size(); i++) {
+                rows[i] = seats.get(i).getRow();
+                columns[i] = seats.get(i).getColumn();
+            }
+            holds.add(JournalRecord.hold(seatHoldOrder.getId(), seatHoldOrder.getCustomerEmail(),
+                    seatHoldOrder.getExpiresAtMillis(), rows, columns));
+        }
+        byte[] seatStatuses = venue.getSeatStatuses();
+        // invoices last, every seat sold by then has its invoice or a reservation journaled after the position
+        return new Snapshot(venue.getMaxRow(), venue.getMaxColumn(), System.currentTimeMillis(), journalPosition,
+                lastSeatHoldId, seatStatuses, holds, invoiceStore.toByteArray());
     }
 
     /**
@@ -53,16 +198,19 @@ public class TicketServiceImpl implements TicketService {
     public int numSeatsAvailable() {
         LOG.info("Checking number of seats available ...");
 
-        try {
-            onHoldLock.readLock().lock();
-            reservationLock.readLock().lock();
-            int seatsAvailable = venue.getCapacity() - numSeatOnHold - numSeatSold;
-            LOG.info("Found {} seats available", seatsAvailable);
-            return seatsAvailable;
-        } finally {
-            onHoldLock.readLock().unlock();
-            reservationLock.readLock().unlock();
-        }
+        int seatsAvailable = venue.getSeatCounts().getAvailable();
+        LOG.info("Found {} seats available", seatsAvailable);
+        return seatsAvailable;
+    }
+
+    /**
+     * The number of seats of each type available, held and sold, read at the same instant
+     *
+     * @return the seat counts of the venue
+     */
+    @Override
+    public SeatCounts getSeatCounts() {
+        return venue.getSeatCounts();
     }
 
     /**
@@ -79,52 +227,162 @@ public class TicketServiceImpl implements TicketService {
 
         validateBookingSeatNumber(numSeats);
         validateCustomerEmail(customerEmail);
+        acquireHold(customerEmail, numSeats);
 
-        // check availability
-        if (venue.getCapacity() - numSeatOnHold - numSeatSold - numSeats < 0) {
-            LOG.warn("Not enough seats available, please try another showtime");
+        // holding seats in venue, seat statuses are updated by compare-and-set so no lock is needed
+        LOG.debug("Holding seats in venue");
+        final List<Seat> seatsOnHold = venue.tryHoldSeats(numSeats);
+        if (seatsOnHold == null) {
+            customerHolds.release(customerEmail, numSeats);
+            LOG.warn(NOT_ENOUGH_SEATS);
             return null;
         }
+        return holdSeats(seatsOnHold, customerEmail, numSeats);
+    }
+
+    /**
+     * Find and hold the best available seats for several customers in one pass,
+     * requests are served in order while seats last
+     *
+     * @param holdRequests the number of seats and the customer of each hold
+     * @return the SeatHold or the reason of the failure of each request, in the
+     * order of the requests
+     */
+    @Override
+    public List<HoldResult> findAndHoldSeats(List<HoldRequest> holdRequests) {
+        LOG.info("Finding and holding seats for {} hold request(s)", holdRequests == null ? 0 : holdRequests.size());
+
+        if (holdRequests == null || holdRequests.isEmpty() || holdRequests.size() > MAX_BATCH_SIZE) {
+            throw new BookingValidationException(String.format(INVALID_BATCH_INPUT, MAX_BATCH_SIZE));
+        }
+
+        HoldResult[] holdResults = new HoldResult[holdRequests.size()];
+        int[] numbers = new int[holdRequests.size()];
+        for (int i = 0; i < holdRequests.size(); i++) {
+            HoldRequest holdRequest = holdRequests.get(i);
+            if (holdRequest == null) {
+                holdResults[i] = HoldResult.invalid(INVALID_HOLD_REQUEST);
+                continue;
+            }
+            try {
+                validateBookingSeatNumber(holdRequest.getNumSeats());
+                validateCustomerEmail(holdRequest.getCustomerEmail());
+                acquireHold(holdRequest.getCustomerEmail(), holdRequest.getNumSeats());
+                numbers[i] = holdRequest.getNumSeats();
+            } catch (BookingValidationException ex) {
+                holdResults[i] = HoldResult.invalid(ex.getMessage());
+            }
+        }
+
+        // holding the seats of all requests in one pass over the venue
+        List<List<Seat>> seatsOnHold = venue.tryHoldSeats(numbers);
+        for (int i = 0; i < holdRequests.size(); i++) {
+            if (holdResults[i] != null) {
+                continue;
+            }
+            HoldRequest holdRequest = holdRequests.get(i);
+            if (seatsOnHold.get(i) == null) {
+                customerHolds.release(holdRequest.getCustomerEmail(), holdRequest.getNumSeats());
+                holdResults[i] = HoldResult.failed(NOT_ENOUGH_SEATS);
+            } else {
+                holdResults[i] = HoldResult.held(holdSeats(seatsOnHold.get(i), holdRequest.getCustomerEmail(),
+                        holdRequest.getNumSeats()));
+            }
+        }
+        return Arrays.asList(holdResults);
+    }
+
+    /**
+     * Wait in line for seats, the request is served at once if it is the first one waiting and its seats are
+     * available
+     *
+     * @param numSeats      the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return the ticket of the request
+     */
+    @Override
+    public WaitlistTicket joinWaitlist(int numSeats, String customerEmail) {
+        LOG.info("Waiting for {} seats for customer {}", numSeats, customerEmail);
+
+        Waitlist waitlist = this.waitlist;
+        if (waitlist == null) {
+            throw new IllegalStateException(WAITLIST_DISABLED);
+        }
+        validateBookingSeatNumber(numSeats);
+        validateCustomerEmail(customerEmail);
+        WaitlistTicket ticket = waitlist.add(numSeats, customerEmail);
+        // seats released before the request joined would otherwise wait for the next expiry
+        fulfillWaitlist();
+        return ticket;
+    }
+
+    @Override
+    public WaitlistTicket findWaitlistTicket(String ticketId) {
+        Waitlist waitlist = this.waitlist;
+        return waitlist == null || ticketId == null ? null : waitlist.find(ticketId);
+    }
 
-        try {
-            // holding seats
-            onHoldLock.writeLock().lock();
-            // check again
-            if (venue.getCapacity() - numSeatOnHold - numSeatSold - numSeats < 0) {
-                LOG.warn("Not enough seats available, please try another showtime");
-                return null;
+    /**
+     * Hold the seats of the requests waiting that fit in the seats available, in one pass over the venue
+     */
+    private void fulfillWaitlist() {
+        Waitlist waitlist = this.waitlist;
+        if (waitlist == null) {
+            return;
+        }
+        // one thread at a time, so that the requests are taken in order
+        synchronized (waitlist) {
+            List<WaitlistTicket> tickets = waitlist.next(venue.getNumSeatsAvailable());
+            if (tickets.isEmpty()) {
+                return;
             }
-            // update seatOnHold count
-            numSeatOnHold += numSeats;
-            LOG.debug("Total seats on hold: {}", numSeatOnHold);
-
-            // holding seats in venue
-            LOG.debug("Holding seats in venue");
-            final List<Seat> seatsOnHold = venue.holdSeats(numSeats);
-            int id = idGen.addAndGet(1);
-
-            TimerTask timerTask = new TimerTask() {
-                @Override
-                public void run() {
-                    LOG.debug("On hold expired, resetting seat status, id {}, customer {}", id, customerEmail);
-                    onHoldLock.writeLock().lock();
-                    seatsOnHold.stream().forEach(seat -> seat.setStatus(SeatStatus.AVAILABLE));
-                    if (seatHoldOrderById.remove(id) != null) {
-                        numSeatOnHold -= seatsOnHold.size();
-                    }
-                    onHoldLock.writeLock().unlock();
-                    LOG.debug("Seat statuses reset for id {}, customer {}", id, customerEmail);
+            int[] numbers = new int[tickets.size()];
+            for (int i = 0; i < tickets.size(); i++) {
+                WaitlistTicket ticket = tickets.get(i);
+                if (customerHolds.tryAcquire(ticket.getCustomerEmail(), ticket.getNumSeats())) {
+                    numbers[i] = ticket.getNumSeats();
+                } else {
+                    waitlist.remove(ticket);
+                    ticket.failed(HOLD_LIMIT_REACHED);
                 }
-            };
-            SeatHoldOrder seatHoldOrder = new SeatHoldOrder(id, customerEmail, seatsOnHold,seatHoldTTL * 1000, timerTask);
-            seatHoldOrderById.put(id, seatHoldOrder);
-            seatHoldOrder.startTimer();
-            return seatHoldOrder.getSeatHold();
-        } finally {
-            onHoldLock.writeLock().unlock();
+            }
+
+            List<List<Seat>> seatsOnHold = venue.tryHoldSeats(numbers);
+            for (int i = 0; i < tickets.size(); i++) {
+                WaitlistTicket ticket = tickets.get(i);
+                if (numbers[i] == 0) {
+                    continue;
+                }
+                if (seatsOnHold.get(i) == null) {
+                    // taken by a hold in between, the request keeps its place
+                    customerHolds.release(ticket.getCustomerEmail(), ticket.getNumSeats());
+                } else {
+                    waitlist.remove(ticket);
+                    TicketingMetrics.WAITLIST_FULFILLED.increment();
+                    ticket.held(holdSeats(seatsOnHold.get(i), ticket.getCustomerEmail(), ticket.getNumSeats()));
+                }
+            }
         }
     }
 
+    private SeatHold holdSeats(List<Seat> seatsOnHold, String customerEmail, int numSeats) {
+        LOG.debug("Total seats on hold: {}", venue.getSeatCounts().getHeld());
+        TicketingMetrics.HOLDS_OPEN.increment();
+        TicketingMetrics.SEATS_ON_HOLD.add(seatsOnHold.size());
+
+        int id = idGen.addAndGet(1);
+        SeatHoldOrder seatHoldOrder = new SeatHoldOrder(id, customerEmail, seatsOnHold, seatHoldTTL * 1000,
+                timingWheel, expiryHandler);
+        // publish the order before notifying it and notify it before arming its timer, so that snapshots
+        // and expiry always find it and its expiration is always notified after it
+        customerHolds.add(seatHoldOrder, numSeats);
+        for (InventoryListener inventoryListener : inventoryListeners) {
+            inventoryListener.onHold(id, customerEmail, seatsOnHold, seatHoldOrder.getExpiresAtMillis());
+        }
+        seatHoldOrder.startTimer();
+        return seatHoldOrder.getSeatHold();
+    }
+
     /**
      * Commit seats held for a specific customer
      *
@@ -135,54 +393,152 @@ public class TicketServiceImpl implements TicketService {
      */
     @Override
     public String reserveSeats(int seatHoldId, String customerEmail) {
+        return reserveSeats(seatHoldId, customerEmail, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Commit seats held for a specific customer under a confirmation code given by the caller, the one
+     * shared by every part of a reservation spread over several inventories
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @param confirmation  the reservation confirmation code
+     * @return the confirmation code, null if the hold was not found
+     */
+    public String reserveSeats(int seatHoldId, String customerEmail, String confirmation) {
         LOG.info("Reserving seat(s) for id {}, customer: {}", seatHoldId, customerEmail);
 
         validateCustomerEmail(customerEmail);
-        SeatHoldOrder seatHoldOrder;
 
-        try {
-            // find seat hold order
-            onHoldLock.readLock().lock();
-            seatHoldOrder = seatHoldOrderById.get(seatHoldId);
-
-            if (seatHoldOrder == null || !seatHoldOrder.getCustomerEmail().equalsIgnoreCase(customerEmail)) {
-                LOG.debug("Seat(s) Hold not found for id {}, customer: {}", seatHoldId, customerEmail);
-                return null;
-            }
-        } finally {
-            onHoldLock.readLock().unlock();
+        // find seat hold order
+        SeatHoldOrder seatHoldOrder = seatHoldOrderById.get(seatHoldId);
+        if (seatHoldOrder == null || !seatHoldOrder.getCustomerEmail().equalsIgnoreCase(customerEmail)) {
+            LOG.debug("Seat(s) Hold not found for id {}, customer: {}", seatHoldId, customerEmail);
+            return null;
         }
 
-        // stop the expiration timer
+        // stop the expiration timer, only one of expiry and reservation can win the order
         if (!seatHoldOrder.cancelTimer()) {
-            // timer expired
+            // timer expired or order reserved already
             return null;
         }
+        customerHolds.remove(seatHoldOrder);
+        TicketingMetrics.HOLDS_OPEN.decrement();
 
-        try {
-            onHoldLock.writeLock().lock();
-            reservationLock.writeLock().lock();
-            // get seats to be reserved
-            List<Seat> seats = seatHoldOrder.getSeatHold().getSeats();
-            // update seats on hold count and seats sold count
-            numSeatSold += seats.size();
-            numSeatOnHold -= seats.size();
-        } finally {
-            onHoldLock.writeLock().unlock();
-            reservationLock.writeLock().unlock();
+        Invoice invoice = reserveSeats(seatHoldOrder.getSeatHold(), confirmation);
+        for (InventoryListener inventoryListener : inventoryListeners) {
+            inventoryListener.onReserve(seatHoldId, invoice.getConfirmation());
         }
-
-        Invoice invoice = reserveSeats(seatHoldOrder.getSeatHold());
         LOG.info("Seat(s) reserved for customer {}, confirmation number: {}", customerEmail, invoice.getConfirmation());
         return invoice.getConfirmation();
     }
 
-    private Invoice reserveSeats(SeatHold seatHold) {
-        String confirmation = UUID.randomUUID().toString();
+    /**
+     * Release the seats of a hold before it expires
+     *
+     * @param seatHoldId    the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return false if the hold was not found, reserved or expired already
+     */
+    public boolean cancelHold(int seatHoldId, String customerEmail) {
+        SeatHoldOrder seatHoldOrder = seatHoldOrderById.get(seatHoldId);
+        if (seatHoldOrder == null || !seatHoldOrder.getCustomerEmail().equalsIgnoreCase(customerEmail)
+                || !seatHoldOrder.cancelTimer()) {
+            return false;
+        }
+        // released as an expiration, the listeners and journal see the seats back, counted apart
+        releaseSeatHolds(Collections.singletonList(seatHoldOrder), TicketingMetrics.HOLDS_CANCELLED);
+        return true;
+    }
+
+    @Override
+    public SeatMap getSeatMap(long sinceVersion) {
+        return seatMapCache.getSeatMap(sinceVersion);
+    }
+
+    @Override
+    public Invoice findReservation(String confirmation) {
+        return invoiceStore.find(confirmation);
+    }
+
+    @Override
+    public List<Invoice> findReservations(String customerEmail) {
+        validateCustomerEmail(customerEmail);
+        return invoiceStore.findByCustomer(customerEmail);
+    }
+
+    /**
+     * Find the holds still open of a customer
+     *
+     * @param customerEmail the email address of the customer, case insensitive
+     * @return the open holds of the customer, oldest first
+     */
+    @Override
+    public List<SeatHold> findHolds(String customerEmail) {
+        validateCustomerEmail(customerEmail);
+        List<SeatHoldOrder> seatHoldOrders = customerHolds.find(customerEmail);
+        List<SeatHold> seatHolds = new ArrayList<>(seatHoldOrders.size());
+        for (SeatHoldOrder seatHoldOrder : seatHoldOrders) {
+            seatHolds.add(seatHoldOrder.getSeatHold());
+        }
+        return seatHolds;
+    }
+
+    /**
+     * Release the seats of hold orders expired in the same timing wheel tick
+     *
+     * @param expiredOrders the expired seat hold orders
+     */
+    void expireSeatHolds(List<SeatHoldOrder> expiredOrders) {
+        releaseSeatHolds(expiredOrders, TicketingMetrics.HOLDS_EXPIRED);
+    }
+
+    // the seats of expired or cancelled holds, each hold released counted by the counter specified
+    private void releaseSeatHolds(List<SeatHoldOrder> seatHoldOrders, LongAdder releasedCounter) {
+        LOG.debug("{} on hold order(s) expired or cancelled, resetting seat status", seatHoldOrders.size());
+        List<Seat> seatsToRelease = new ArrayList<>();
+        List<Integer> seatHoldIds = new ArrayList<>(seatHoldOrders.size());
+
+        for (SeatHoldOrder seatHoldOrder : seatHoldOrders) {
+            if (customerHolds.remove(seatHoldOrder)) {
+                seatsToRelease.addAll(seatHoldOrder.getSeats());
+                seatHoldIds.add(seatHoldOrder.getId());
+                TicketingMetrics.HOLDS_OPEN.decrement();
+                releasedCounter.increment();
+            }
+        }
+        int released = venue.releaseSeats(seatsToRelease);
+        TicketingMetrics.SEATS_ON_HOLD.add(-released);
+        if (!seatHoldIds.isEmpty()) {
+            for (InventoryListener inventoryListener : inventoryListeners) {
+                inventoryListener.onRelease(seatsToRelease);
+                inventoryListener.onExpire(seatHoldIds);
+            }
+        }
+        LOG.debug("Seat statuses reset for {} seat(s)", released);
+        if (released > 0) {
+            // the requests waiting are served in the same batch as the release
+            fulfillWaitlist();
+        }
+    }
+
+    private Invoice reserveSeats(SeatHold seatHold, String confirmation) {
         List<Seat> seats = seatHold.getSeats();
-        seats.forEach(seat -> seat.setStatus(SeatStatus.SOLD));
+        int sold = venue.sellSeats(seats);
+        if (sold != seats.size()) {
+            LOG.warn("Only {} of {} seat(s) were on hold for id {}", sold, seats.size(), seatHold.getId());
+        }
+        TicketingMetrics.SEATS_ON_HOLD.add(-sold);
+
+        Invoice invoice = new Invoice(confirmation, seatHold.getCustomerEmail(), seats);
+        invoiceStore.add(invoice);
+        return invoice;
+    }
 
-        return new Invoice(confirmation, seatHold.getCustomerEmail(), seats);
+    private void acquireHold(String customerEmail, int numSeats) {
+        if (!customerHolds.tryAcquire(customerEmail, numSeats)) {
+            throw new BookingValidationException(HOLD_LIMIT_REACHED);
+        }
     }
 
     private void validateBookingSeatNumber(int numSeats) {
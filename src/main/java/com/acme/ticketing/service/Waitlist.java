@@ -0,0 +1,109 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.WaitlistTicket;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.metrics.TicketingMetrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hold requests of an event waiting for seats, in FIFO order.
+ *
+ * At most maxSize requests wait at once, each for at most maxWaitMillis. The requests are served strictly in
+ * order: a request waits as long as the one before it does not fit in the seats available. Tickets are kept
+ * for polling until the hold they may get has expired too.
+ */
+class Waitlist {
+    private static final String WAITLIST_FULL = "Waitlist full, please try again later";
+
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final Deque<WaitlistTicket> waiting = new ArrayDeque<>();
+    private final Cache<String, WaitlistTicket> tickets;
+
+    /**
+     * @param maxSize           the max number of requests waiting
+     * @param maxWaitMillis     the max time a request waits for seats
+     * @param seatHoldTTLMillis the time a hold lasts, a ticket is kept for the wait and the hold
+     */
+    Waitlist(int maxSize, long maxWaitMillis, long seatHoldTTLMillis) {
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.tickets = CacheBuilder.newBuilder()
+                .expireAfterWrite(maxWaitMillis + seatHoldTTLMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * @return the ticket of the request, waiting
+     * @throws TicketSystemBusyException if the waitlist is full
+     */
+    synchronized WaitlistTicket add(int numSeats, String customerEmail) {
+        dropExpired(System.currentTimeMillis());
+        if (waiting.size() >= maxSize) {
+            throw new TicketSystemBusyException(WAITLIST_FULL, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMillis)));
+        }
+        WaitlistTicket ticket = new WaitlistTicket(UUID.randomUUID().toString(), customerEmail, numSeats,
+                System.currentTimeMillis() + maxWaitMillis);
+        waiting.addLast(ticket);
+        tickets.put(ticket.getId(), ticket);
+        TicketingMetrics.WAITLIST_WAITING.increment();
+        return ticket;
+    }
+
+    /**
+     * @return the ticket, null if not found or forgotten
+     */
+    WaitlistTicket find(String ticketId) {
+        WaitlistTicket ticket = tickets.getIfPresent(ticketId);
+        if (ticket != null && ticket.getStatus() == WaitlistTicket.Status.WAITING
+                && ticket.getExpiresAtMillis() <= System.currentTimeMillis()) {
+            synchronized (this) {
+                dropExpired(System.currentTimeMillis());
+            }
+        }
+        return ticket;
+    }
+
+    /**
+     * @param numSeatsAvailable the number of seats available
+     * @return the first requests waiting whose seats fit in the seats available, in order
+     */
+    synchronized List<WaitlistTicket> next(int numSeatsAvailable) {
+        dropExpired(System.currentTimeMillis());
+        List<WaitlistTicket> next = new ArrayList<>();
+        int remaining = numSeatsAvailable;
+        for (WaitlistTicket ticket : waiting) {
+            if (ticket.getNumSeats() > remaining) {
+                break;
+            }
+            next.add(ticket);
+            remaining -= ticket.getNumSeats();
+        }
+        return next;
+    }
+
+    /**
+     * stop waiting for a request served or failed
+     */
+    synchronized void remove(WaitlistTicket ticket) {
+        if (waiting.remove(ticket)) {
+            TicketingMetrics.WAITLIST_WAITING.decrement();
+        }
+    }
+
+    // requests are added in order of expiry, the expired ones are first
+    private void dropExpired(long nowMillis) {
+        while (!waiting.isEmpty() && waiting.peekFirst().getExpiresAtMillis() <= nowMillis) {
+            waiting.pollFirst().expired();
+            TicketingMetrics.WAITLIST_WAITING.decrement();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.acme.ticketing.cluster;
+
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.scheduler.TimingWheel;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class ClusteredTicketServiceTest {
+    private final String EMAIL = "test@acme.com";
+    private final String EVENT_ID = "concert";
+    private final TimingWheel timingWheel = new TimingWheel(10, 64);
+
+    @AfterClass
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    public void testHoldInOnePartition() throws Exception {
+        // given
+        List<ClusteredTicketService> nodes = createCluster(5, new LocalClusterNode(), new LocalClusterNode(),
+                new LocalClusterNode());
+
+        // when
+        SeatHold seatHold = nodes.get(0).findAndHoldSeats(3, EMAIL);
+
+        // then
+        assertEquals(seatHold.getSeats().size(), 3);
+        // the best partition, rows 2 and 3, holds all the seats
+        for (Seat seat : seatHold.getSeats()) {
+            assertTrue(seat.getRow() == 2 || seat.getRow() == 3, "row " + seat.getRow());
+        }
+        assertEquals(nodes.get(1).numSeatsAvailable(), 21);
+        assertEquals(nodes.get(2).getSeatCounts().getHeld(), 3);
+    }
+
+    @Test
+    public void testHoldAcrossPartitions() throws Exception {
+        // given
+        List<ClusteredTicketService> nodes = createCluster(5, new LocalClusterNode(), new LocalClusterNode(),
+                new LocalClusterNode());
+
+        // when
+        SeatHold seatHold = nodes.get(0).findAndHoldSeats(20, EMAIL);
+        SeatHold tooMany = nodes.get(1).findAndHoldSeats(5, EMAIL);
+
+        // then
+        Set<Integer> positions = new HashSet<>();
+        for (Seat seat : seatHold.getSeats()) {
+            positions.add(seat.getRow() * 4 + seat.getColumn());
+        }
+        assertEquals(positions.size(), 20);
+        assertNull(tooMany);
+        // the parts prepared for the hold that failed are released
+        assertEquals(nodes.get(2).numSeatsAvailable(), 4);
+        assertEquals(nodes.get(1).findHolds(EMAIL).size(), 1);
+        assertEquals(nodes.get(1).findHolds(EMAIL).get(0).getSeats().size(), 20);
+    }
+
+    @Test
+    public void testReserveOnAnotherNode() throws Exception {
+        // given
+        List<ClusteredTicketService> nodes = createCluster(5, new LocalClusterNode(), new LocalClusterNode(),
+                new LocalClusterNode());
+        SeatHold seatHold = nodes.get(0).findAndHoldSeats(20, EMAIL);
+
+        // when
+        assertNull(nodes.get(2).reserveSeats(seatHold.getId(), "other@acme.com"));
+        String confirmation = nodes.get(2).reserveSeats(seatHold.getId(), EMAIL);
+
+        // then
+        assertNotNull(confirmation);
+        assertNull(nodes.get(1).reserveSeats(seatHold.getId(), EMAIL));
+        assertEquals(nodes.get(1).getSeatCounts().getSold(), 20);
+        assertEquals(nodes.get(1).getSeatCounts().getHeld(), 0);
+        assertTrue(nodes.get(0).findHolds(EMAIL).isEmpty());
+
+        Invoice invoice = nodes.get(1).findReservation(confirmation);
+        assertEquals(invoice.getSeats().size(), 20);
+        assertEquals(invoice.getSeats().get(0).getStatus(), SeatStatus.SOLD);
+        List<Invoice> invoices = nodes.get(2).findReservations(EMAIL);
+        assertEquals(invoices.size(), 1);
+        assertEquals(invoices.get(0).getConfirmation(), confirmation);
+    }
+
+    @Test
+    public void testAbortWhenPartFails() throws Exception {
+        // given
+        LocalClusterNode[] localNodes = {spy(new LocalClusterNode()), spy(new LocalClusterNode()),
+                spy(new LocalClusterNode())};
+        List<ClusteredTicketService> nodes = createCluster(5, localNodes);
+        for (LocalClusterNode localNode : localNodes) {
+            // the partition with the last rows, asked last
+            doThrow(new TicketSystemBusyException("Cluster node unavailable", 1))
+                    .when(localNode).hold(eq(EVENT_ID), eq(2), anyInt(), anyString());
+        }
+
+        // when
+        assertThrows(TicketSystemBusyException.class, () -> nodes.get(0).findAndHoldSeats(20, EMAIL));
+
+        // then
+        assertEquals(nodes.get(1).numSeatsAvailable(), 24);
+        assertTrue(nodes.get(0).findHolds(EMAIL).isEmpty());
+    }
+
+    @Test
+    public void testReserveWhenPartFails() throws Exception {
+        // given
+        LocalClusterNode[] localNodes = {spy(new LocalClusterNode()), spy(new LocalClusterNode()),
+                spy(new LocalClusterNode())};
+        List<ClusteredTicketService> nodes = createCluster(5, localNodes);
+        SeatHold seatHold = nodes.get(0).findAndHoldSeats(20, EMAIL);
+        for (LocalClusterNode localNode : localNodes) {
+            doThrow(new TicketSystemBusyException("Cluster node unavailable", 1))
+                    .when(localNode).reserve(eq(EVENT_ID), eq(2), anyInt(), anyString(), anyString());
+        }
+
+        // when
+        String confirmation = nodes.get(0).reserveSeats(seatHold.getId(), EMAIL);
+
+        // then no confirmation for the seats of the part not sold
+        assertNull(confirmation);
+        assertTrue(nodes.get(0).findReservations(EMAIL).stream()
+                .allMatch(invoice -> invoice.getSeats().size() < 20));
+    }
+
+    @Test
+    public void testReserveRetriesPartFailed() throws Exception {
+        // given
+        LocalClusterNode[] localNodes = {spy(new LocalClusterNode()), spy(new LocalClusterNode()),
+                spy(new LocalClusterNode())};
+        List<ClusteredTicketService> nodes = createCluster(5, 2, localNodes);
+        SeatHold seatHold = nodes.get(0).findAndHoldSeats(20, EMAIL);
+        for (LocalClusterNode localNode : localNodes) {
+            doThrow(new TicketSystemBusyException("Cluster node unavailable", 1)).doCallRealMethod()
+                    .when(localNode).reserve(eq(EVENT_ID), eq(2), anyInt(), anyString(), anyString());
+        }
+
+        // when
+        String confirmation = nodes.get(0).reserveSeats(seatHold.getId(), EMAIL);
+
+        // then
+        assertNotNull(confirmation);
+        assertEquals(nodes.get(1).getSeatCounts().getSold(), 20);
+        assertEquals(nodes.get(1).findReservation(confirmation).getSeats().size(), 20);
+    }
+
+    @Test
+    public void testHoldExpiry() throws Exception {
+        // given
+        List<ClusteredTicketService> nodes = createCluster(1, new LocalClusterNode(), new LocalClusterNode(),
+                new LocalClusterNode());
+        SeatHold seatHold = nodes.get(0).findAndHoldSeats(20, EMAIL);
+
+        // when
+        long deadline = System.currentTimeMillis() + 5000;
+        while (nodes.get(1).numSeatsAvailable() < 24 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        // then
+        assertEquals(nodes.get(1).numSeatsAvailable(), 24);
+        assertNull(nodes.get(1).reserveSeats(seatHold.getId(), EMAIL));
+    }
+
+    /**
+     * A cluster of the nodes given in one process, selling a venue of 6 rows of 4 seats in 3 partitions
+     */
+    private List<ClusteredTicketService> createCluster(long seatHoldTTL, LocalClusterNode... localNodes) {
+        return createCluster(seatHoldTTL, 0, localNodes);
+    }
+
+    private List<ClusteredTicketService> createCluster(long seatHoldTTL, long holdGraceSeconds,
+                                                       LocalClusterNode... localNodes) {
+        Map<String, ClusterNode> members = new LinkedHashMap<>();
+        for (int i = 0; i < localNodes.length; i++) {
+            members.put("node-" + i, localNodes[i]);
+        }
+        Venue layout = new Venue(6, 4, 2, 4, 0, 4);
+        layout.init();
+
+        List<ClusteredTicketService> nodes = new ArrayList<>();
+        for (String nodeId : members.keySet()) {
+            Cluster cluster = new Cluster(nodeId, members, 3, 64, holdGraceSeconds);
+            nodes.add(cluster.join(EVENT_ID, layout, timingWheel, seatHoldTTL));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,53 @@
+package com.acme.ticketing.cluster;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class ConsistentHashRingTest {
+    @Test
+    public void testNodeFor() throws Exception {
+        // given
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 64);
+        ConsistentHashRing sameRing = new ConsistentHashRing(Arrays.asList("c", "b", "a"), 64);
+
+        // when
+        Map<String, Integer> keysByNode = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            String key = "event#" + i;
+            assertEquals(ring.nodeFor(key), sameRing.nodeFor(key));
+            keysByNode.merge(ring.nodeFor(key), 1, Integer::sum);
+        }
+
+        // then
+        assertEquals(keysByNode.size(), 3);
+        for (int keys : keysByNode.values()) {
+            assertTrue(keys > 500, "keys per node " + keysByNode);
+        }
+    }
+
+    @Test
+    public void testNodeAdded() throws Exception {
+        // given
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("a", "b"), 64);
+        ConsistentHashRing grown = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 64);
+
+        // when
+        int moved = 0;
+        for (int i = 0; i < 3000; i++) {
+            String key = "event#" + i;
+            if (!ring.nodeFor(key).equals(grown.nodeFor(key))) {
+                moved++;
+                assertEquals(grown.nodeFor(key), "c");
+            }
+        }
+
+        // then
+        assertTrue(moved > 0 && moved < 2000, "keys moved " + moved);
+    }
+}
@@ -0,0 +1,81 @@
+package com.acme.ticketing.controller;
+
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class IdempotencyCacheTest {
+    @Test
+    public void testExecuteOnce() throws Exception {
+        // given
+        IdempotencyCache idempotencyCache = new IdempotencyCache(100, 60);
+        AtomicInteger bookings = new AtomicInteger();
+        CompletableFuture<String> booking = new CompletableFuture<>();
+
+        // when
+        CompletableFuture<String> first = idempotencyCache.execute("default/reserve", "key", "1/test@acme.com", () -> {
+            bookings.incrementAndGet();
+            return booking;
+        });
+        CompletableFuture<String> duplicate = idempotencyCache.execute("default/reserve", "key", "1/test@acme.com", () -> {
+            bookings.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        booking.complete("confirmation");
+
+        // then
+        assertEquals(bookings.get(), 1);
+        assertEquals(first.get(), "confirmation");
+        assertEquals(duplicate.get(), "confirmation");
+        assertEquals(idempotencyCache.execute("matinee/reserve", "key", "1/test@acme.com",
+                () -> CompletableFuture.completedFuture("matinee")).get(), "matinee");
+    }
+
+    @Test
+    public void testFailureNotKept() throws Exception {
+        // given
+        IdempotencyCache idempotencyCache = new IdempotencyCache(100, 60);
+        CompletableFuture<String> busy = new CompletableFuture<>();
+        busy.completeExceptionally(new TicketSystemBusyException("busy", 1));
+        assertTrue(idempotencyCache.execute("default/reserve", "key", "1/test@acme.com", () -> busy)
+                .isCompletedExceptionally());
+
+        // when
+        CompletableFuture<String> retry = idempotencyCache.execute("default/reserve", "key", "1/test@acme.com",
+                () -> CompletableFuture.completedFuture("confirmation"));
+
+        // then
+        assertEquals(retry.get(), "confirmation");
+    }
+
+    @Test(expectedExceptions = BookingValidationException.class)
+    public void testKeyReusedForAnotherRequest() throws Exception {
+        // given
+        IdempotencyCache idempotencyCache = new IdempotencyCache(100, 60);
+        idempotencyCache.execute("default/hold", "key", "2/test@acme.com", () -> CompletableFuture.completedFuture(1));
+
+        // when
+        idempotencyCache.execute("default/hold", "key", "3/test@acme.com", () -> CompletableFuture.completedFuture(2));
+    }
+
+    @Test
+    public void testMaxKeys() throws Exception {
+        // given
+        IdempotencyCache idempotencyCache = new IdempotencyCache(10, 60);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            idempotencyCache.execute("default/hold", "key-" + i, "1/test@acme.com",
+                    () -> CompletableFuture.completedFuture(1));
+        }
+
+        // then
+        assertTrue(idempotencyCache.size() <= 10);
+    }
+}
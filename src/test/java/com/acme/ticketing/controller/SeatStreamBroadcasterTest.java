@@ -0,0 +1,60 @@
+package com.acme.ticketing.controller;
+
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.service.InventoryListener;
+import com.acme.ticketing.service.TicketService;
+import com.google.common.collect.Lists;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class SeatStreamBroadcasterTest {
+    @Test
+    public void testBroadcastOnChange() throws Exception {
+        // given
+        TicketService ticketService = mock(TicketService.class);
+        when(ticketService.getSeatMap(anyLong()))
+                .thenReturn(SeatMap.full(1, 1, 3, Lists.newArrayList(new int[]{3})));
+        SeatStreamBroadcaster broadcaster = new SeatStreamBroadcaster(60000, 60000, 10, 1);
+        broadcaster.subscribe(ticketService);
+        broadcaster.subscribe(ticketService);
+        ArgumentCaptor<InventoryListener> listener = ArgumentCaptor.forClass(InventoryListener.class);
+        verify(ticketService).addInventoryListener(listener.capture());
+
+        // when
+        broadcaster.broadcast();
+        Thread.sleep(100);
+        broadcaster.broadcast();
+        listener.getValue().onExpire(Collections.singletonList(1));
+        broadcaster.broadcast();
+
+        // then
+        assertEquals(broadcaster.getSubscribers(), 2);
+        verify(ticketService, times(2)).getSeatMap(-1);
+        broadcaster.stop();
+    }
+
+    @Test(expectedExceptions = TicketSystemBusyException.class)
+    public void testTooManySubscribers() {
+        // given
+        TicketService ticketService = mock(TicketService.class);
+        SeatStreamBroadcaster broadcaster = new SeatStreamBroadcaster(60000, 60000, 1, 1);
+        broadcaster.subscribe(ticketService);
+
+        try {
+            // when
+            broadcaster.subscribe(ticketService);
+        } finally {
+            // then
+            assertEquals(broadcaster.getSubscribers(), 1);
+            broadcaster.stop();
+        }
+    }
+}
@@ -1,31 +1,52 @@
 package com.acme.ticketing.controller;
 
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Invoice;
 import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatCounts;
 import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.SeatStatus;
 import com.acme.ticketing.entity.SeatType;
+import com.acme.ticketing.entity.WaitlistTicket;
 import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.EventNotFoundException;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.service.EventRegistry;
 import com.acme.ticketing.service.TicketService;
 import com.google.common.collect.Lists;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.concurrent.CompletableFuture;
+
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -37,6 +58,12 @@ public class TicketingControllerTest {
 
     @Mock
     private TicketService ticketService;
+    @Mock
+    private EventRegistry eventRegistry;
+    @Mock
+    private SeatStreamBroadcaster seatStreamBroadcaster;
+    @Spy
+    private IdempotencyCache idempotencyCache = new IdempotencyCache(100, 60);
     @InjectMocks
     private TicketingController ticketingController;
     private MockMvc mockMvc;
@@ -53,31 +80,53 @@ public class TicketingControllerTest {
 
     @BeforeMethod
     public void setupTest() {
-        Mockito.reset(ticketService);
+        Mockito.reset(ticketService, eventRegistry, seatStreamBroadcaster);
+    }
+
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+
+    private static <T> CompletableFuture<T> failed(RuntimeException exception) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(exception);
+        return result;
     }
 
     @Test
     public void testNumSeatsAvailable() throws Exception {
         // given
-        int numSeatsAvailable = 10;
-        when(ticketService.numSeatsAvailable()).thenReturn(numSeatsAvailable);
+        SeatCounts seatCounts = SeatCounts.available(new int[]{4, 6})
+                .move(new int[]{2, 1}, SeatStatus.AVAILABLE, SeatStatus.HOLD)
+                .move(new int[]{1, 0}, SeatStatus.HOLD, SeatStatus.SOLD);
+        when(ticketService.getSeatCounts()).thenReturn(seatCounts);
 
         // when
         ResultActions actions = mockMvc.perform(get("/ticketing/seats/count"));
 
         // then
         actions.andExpect(status().isOk())
-                .andExpect(jsonPath("$.seatCount", is(numSeatsAvailable)));
+                .andExpect(jsonPath("$.seatCount", is(7)))
+                .andExpect(jsonPath("$.heldCount", is(2)))
+                .andExpect(jsonPath("$.soldCount", is(1)))
+                .andExpect(jsonPath("$.seatTypes.VIP.available", is(2)))
+                .andExpect(jsonPath("$.seatTypes.VIP.held", is(1)))
+                .andExpect(jsonPath("$.seatTypes.VIP.sold", is(1)))
+                .andExpect(jsonPath("$.seatTypes.NORMAL.available", is(5)));
     }
 
     @Test
     public void testHoldSeatsInvalidSeatNumber() throws Exception {
         // given
         int numSeats = -1;
-        doThrow(new BookingValidationException("")).when(ticketService).findAndHoldSeats(eq(numSeats), eq(EMAIL));
+        when(ticketService.findAndHoldSeatsAsync(eq(numSeats), eq(EMAIL)))
+                .thenReturn(failed(new BookingValidationException("")));
 
         // when
-        ResultActions actions = mockMvc.perform(post("/ticketing/seats/hold")
+        ResultActions actions = performAsync(post("/ticketing/seats/hold")
                 .param("numOfSeats", String.valueOf(numSeats))
                 .param("customerEmail", EMAIL));
 
@@ -89,10 +138,11 @@ public class TicketingControllerTest {
     public void testHoldSeatsInvalidEmail() throws Exception {
         // given
         int numSeats = 1;
-        doThrow(new BookingValidationException("")).when(ticketService).findAndHoldSeats(anyInt(), anyString());
+        when(ticketService.findAndHoldSeatsAsync(anyInt(), anyString()))
+                .thenReturn(failed(new BookingValidationException("")));
 
         // when
-        ResultActions actions = mockMvc.perform(post("/ticketing/seats/hold")
+        ResultActions actions = performAsync(post("/ticketing/seats/hold")
                 .param("numOfSeats", String.valueOf(numSeats))
                 .param("customerEmail", EMAIL));
 
@@ -104,9 +154,10 @@ public class TicketingControllerTest {
     public void testHoldSeatsNotFound() throws Exception {
         // given
         int numSeats = 1;
-        when(ticketService.findAndHoldSeats(eq(numSeats), eq(EMAIL))).thenReturn(null);
+        when(ticketService.findAndHoldSeatsAsync(eq(numSeats), eq(EMAIL)))
+                .thenReturn(CompletableFuture.completedFuture(null));
         // when
-        ResultActions actions = mockMvc.perform(post("/ticketing/seats/hold")
+        ResultActions actions = performAsync(post("/ticketing/seats/hold")
                                                 .param("numOfSeats", String.valueOf(numSeats))
                                                 .param("customerEmail", EMAIL));
 
@@ -114,6 +165,23 @@ public class TicketingControllerTest {
         actions.andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testHoldSeatsSystemBusy() throws Exception {
+        // given
+        int numSeats = 1;
+        when(ticketService.findAndHoldSeatsAsync(eq(numSeats), eq(EMAIL)))
+                .thenReturn(failed(new TicketSystemBusyException("busy", 3)));
+
+        // when
+        ResultActions actions = performAsync(post("/ticketing/seats/hold")
+                .param("numOfSeats", String.valueOf(numSeats))
+                .param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isConflict())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+
     @Test
     public void testHoldSeats() throws Exception {
         // given
@@ -124,10 +192,11 @@ public class TicketingControllerTest {
 
         Seat seat = new Seat(seatRow, seatColumn, SeatType.VIP);
         SeatHold seatHold = new SeatHold(id, EMAIL, Lists.newArrayList(seat));
-        when(ticketService.findAndHoldSeats(eq(numSeats), eq(EMAIL))).thenReturn(seatHold);
+        when(ticketService.findAndHoldSeatsAsync(eq(numSeats), eq(EMAIL)))
+                .thenReturn(CompletableFuture.completedFuture(seatHold));
 
         // when
-        ResultActions actions = mockMvc.perform(post("/ticketing/seats/hold")
+        ResultActions actions = performAsync(post("/ticketing/seats/hold")
                 .param("numOfSeats", String.valueOf(numSeats))
                 .param("customerEmail", EMAIL));
 
@@ -141,19 +210,277 @@ public class TicketingControllerTest {
         ;
     }
 
+    @Test
+    public void testHoldSeatsBatch() throws Exception {
+        // given
+        Seat seat = new Seat(2, 3, SeatType.VIP);
+        SeatHold seatHold = new SeatHold(1, EMAIL, Lists.newArrayList(seat));
+        when(ticketService.findAndHoldSeatsAsync(anyListOf(HoldRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(
+                        Lists.newArrayList(HoldResult.held(seatHold), HoldResult.failed("error"))));
+
+        // when
+        ResultActions actions = performAsync(post("/ticketing/seats/hold/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"numSeats\":1,\"customerEmail\":\"" + EMAIL + "\"}," +
+                        "{\"numSeats\":100,\"customerEmail\":\"" + EMAIL + "\"}]"));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].seatHold.id", is(1)))
+                .andExpect(jsonPath("$[0].seatHold.seats[0].row", is(2)))
+                .andExpect(jsonPath("$[1].error", is("error")));
+    }
+
+    @Test
+    public void testHoldSeatsIdempotent() throws Exception {
+        // given
+        SeatHold seatHold = new SeatHold(1, EMAIL, Lists.newArrayList(new Seat(2, 3, SeatType.VIP)));
+        when(ticketService.findAndHoldSeatsAsync(eq(1), eq(EMAIL)))
+                .thenReturn(CompletableFuture.completedFuture(seatHold));
+
+        // when
+        performAsync(post("/ticketing/seats/hold")
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, "hold-key")
+                .param("numOfSeats", "1")
+                .param("customerEmail", EMAIL));
+        ResultActions actions = performAsync(post("/ticketing/seats/hold")
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, "hold-key")
+                .param("numOfSeats", "1")
+                .param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)));
+        verify(ticketService, times(1)).findAndHoldSeatsAsync(eq(1), eq(EMAIL));
+    }
+
+    @Test
+    public void testHoldSeatsIdempotencyKeyReused() throws Exception {
+        // given
+        when(ticketService.findAndHoldSeatsAsync(anyInt(), eq(EMAIL)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        performAsync(post("/ticketing/seats/hold")
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, "reused-key")
+                .param("numOfSeats", "1")
+                .param("customerEmail", EMAIL));
+
+        // when
+        ResultActions actions = mockMvc.perform(post("/ticketing/seats/hold")
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, "reused-key")
+                .param("numOfSeats", "2")
+                .param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testReserveSeats() throws Exception {
         // given
         int seatHoldId = 1;
         String confirmation = "confirmation";
-        when(ticketService.reserveSeats(eq(seatHoldId), eq(EMAIL))).thenReturn(confirmation);
+        when(ticketService.reserveSeatsAsync(eq(seatHoldId), eq(EMAIL)))
+                .thenReturn(CompletableFuture.completedFuture(confirmation));
 
         // when
-        ResultActions actions = mockMvc.perform(post("/ticketing/seats/reserve")
+        ResultActions actions = performAsync(post("/ticketing/seats/reserve")
                 .param("seatHoldId", String.valueOf(seatHoldId))
                 .param("customerEmail", EMAIL));
 
         actions.andExpect(status().isOk())
                 .andExpect(jsonPath("$.confirmation", is(confirmation)));
     }
+
+    @Test
+    public void testSeatMap() throws Exception {
+        // given
+        SeatMap seatMap = SeatMap.full(42, 2, 3, Lists.newArrayList(new int[]{3}, new int[]{0, 1, 2}));
+        when(ticketService.getSeatMap(eq(-1L))).thenReturn(seatMap);
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/seats/map"));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"42\""))
+                .andExpect(jsonPath("$.version", is(42)))
+                .andExpect(jsonPath("$.rows", hasSize(2)))
+                .andExpect(jsonPath("$.rows[1][2]", is(2)));
+    }
+
+    @Test
+    public void testSeatMapNotModified() throws Exception {
+        // given
+        SeatMap seatMap = SeatMap.full(42, 1, 3, Lists.newArrayList(new int[]{3}));
+        when(ticketService.getSeatMap(eq(-1L))).thenReturn(seatMap);
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/seats/map").header("If-None-Match", "\"42\""));
+
+        // then
+        actions.andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testEventSeatMapDelta() throws Exception {
+        // given
+        SeatMap seatMap = SeatMap.delta(45, 42, 1, 3, new int[]{1}, new int[0]);
+        when(eventRegistry.getTicketService(eq("concert"))).thenReturn(ticketService);
+        when(ticketService.getSeatMap(eq(42L))).thenReturn(seatMap);
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/events/concert/seats/map")
+                .param("sinceVersion", "42"));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"42-45\""))
+                .andExpect(jsonPath("$.sinceVersion", is(42)))
+                .andExpect(jsonPath("$.available[0]", is(1)));
+    }
+
+    @Test
+    public void testFindHolds() throws Exception {
+        // given
+        SeatHold seatHold = new SeatHold(1, EMAIL, Lists.newArrayList(new Seat(2, 3, SeatType.VIP)));
+        when(eventRegistry.getTicketService(eq("concert"))).thenReturn(ticketService);
+        when(ticketService.findHolds(eq(EMAIL))).thenReturn(Lists.newArrayList(seatHold));
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/events/concert/holds").param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].seats[0].column", is(3)));
+    }
+
+    @Test
+    public void testJoinWaitlist() throws Exception {
+        // given
+        WaitlistTicket ticket = new WaitlistTicket("b0c7e2d4", EMAIL, 2, System.currentTimeMillis() + 60000);
+        when(ticketService.joinWaitlistAsync(eq(2), eq(EMAIL))).thenReturn(CompletableFuture.completedFuture(ticket));
+
+        // when
+        ResultActions actions = performAsync(post("/ticketing/waitlist")
+                .param("numOfSeats", "2")
+                .param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id", is("b0c7e2d4")))
+                .andExpect(jsonPath("$.status", is("WAITING")));
+    }
+
+    @Test
+    public void testFindWaitlistTicket() throws Exception {
+        // given
+        WaitlistTicket ticket = new WaitlistTicket("b0c7e2d4", EMAIL, 1, System.currentTimeMillis() + 60000);
+        ticket.held(new SeatHold(7, EMAIL, Lists.newArrayList(new Seat(2, 3, SeatType.VIP))));
+        when(eventRegistry.getTicketService(eq("concert"))).thenReturn(ticketService);
+        when(ticketService.findWaitlistTicket(eq("b0c7e2d4"))).thenReturn(ticket);
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/events/concert/waitlist/b0c7e2d4"));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("HELD")))
+                .andExpect(jsonPath("$.seatHold.id", is(7)));
+        mockMvc.perform(get("/ticketing/waitlist/unknown")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testFindReservation() throws Exception {
+        // given
+        String confirmation = "6f1c9b5e-3d2a-4c8e-9a41-2b7d0e5f8c13";
+        Invoice invoice = new Invoice(confirmation, EMAIL, Lists.newArrayList(new Seat(2, 3, SeatType.VIP)));
+        when(ticketService.findReservation(eq(confirmation))).thenReturn(invoice);
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/reservations/" + confirmation));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.confirmation", is(confirmation)))
+                .andExpect(jsonPath("$.customerEmail", is(EMAIL)))
+                .andExpect(jsonPath("$.seats[0].row", is(2)));
+    }
+
+    @Test
+    public void testFindReservationNotFound() throws Exception {
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/reservations/unknown"));
+
+        // then
+        actions.andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testFindReservations() throws Exception {
+        // given
+        Invoice invoice = new Invoice("confirmation", EMAIL, Lists.newArrayList(new Seat(2, 3, SeatType.VIP)));
+        when(eventRegistry.getTicketService(eq("concert"))).thenReturn(ticketService);
+        when(ticketService.findReservations(eq(EMAIL))).thenReturn(Lists.newArrayList(invoice, invoice));
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/events/concert/reservations")
+                .param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].confirmation", is("confirmation")));
+    }
+
+    @Test
+    public void testEventNumSeatsAvailable() throws Exception {
+        // given
+        int numSeatsAvailable = 10;
+        when(eventRegistry.getTicketService(eq("concert"))).thenReturn(ticketService);
+        when(ticketService.getSeatCounts()).thenReturn(SeatCounts.available(new int[]{0, numSeatsAvailable}));
+
+        // when
+        ResultActions actions = mockMvc.perform(get("/ticketing/events/concert/seats/count"));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.seatCount", is(numSeatsAvailable)));
+    }
+
+    @Test
+    public void testEventHoldSeatsEventNotFound() throws Exception {
+        // given
+        doThrow(new EventNotFoundException("")).when(eventRegistry).getTicketService(eq("concert"));
+
+        // when
+        ResultActions actions = mockMvc.perform(post("/ticketing/events/concert/seats/hold")
+                .param("numOfSeats", "1")
+                .param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testEventReserveSeats() throws Exception {
+        // given
+        int seatHoldId = 1;
+        String confirmation = "confirmation";
+        when(eventRegistry.getTicketService(eq("concert"))).thenReturn(ticketService);
+        when(ticketService.reserveSeatsAsync(eq(seatHoldId), eq(EMAIL)))
+                .thenReturn(CompletableFuture.completedFuture(confirmation));
+
+        // when
+        ResultActions actions = performAsync(post("/ticketing/events/concert/seats/reserve")
+                .param("seatHoldId", String.valueOf(seatHoldId))
+                .param("customerEmail", EMAIL));
+
+        // then
+        actions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.confirmation", is(confirmation)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.acme.ticketing.entity;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class FreeRunTreeTest {
+    @Test
+    public void testFindFirstRun() throws Exception {
+        // given
+        FreeRunTree tree = new FreeRunTree(11);
+        int[] taken = {2, 5, 6, 9};
+        for (int position : taken) {
+            tree.setFree(position, false);
+        }
+
+        // then
+        assertEquals(tree.longestRun(), 2);
+        assertEquals(tree.findFirstRun(1), 0);
+        assertEquals(tree.findFirstRun(2), 0);
+        assertEquals(tree.findFirstRun(3), -1);
+    }
+
+    @Test
+    public void testFindFirstRunAcrossHalves() throws Exception {
+        // given
+        FreeRunTree tree = new FreeRunTree(16);
+        for (int position = 0; position < 16; position++) {
+            tree.setFree(position, position >= 5 && position < 11);
+        }
+
+        // then
+        assertEquals(tree.longestRun(), 6);
+        assertEquals(tree.findFirstRun(6), 5);
+        assertEquals(tree.findFirstRun(4), 5);
+        assertEquals(tree.findFirstRun(7), -1);
+    }
+
+    @Test
+    public void testFree() throws Exception {
+        // given
+        FreeRunTree tree = new FreeRunTree(5);
+        for (int position = 0; position < 5; position++) {
+            tree.setFree(position, false);
+        }
+
+        // when
+        tree.setFree(3, true);
+        tree.setFree(4, true);
+        tree.setFree(4, true);
+
+        // then
+        assertEquals(tree.numFree(), 2);
+        assertEquals(tree.longestRun(), 2);
+        assertEquals(tree.findFirstRun(2), 3);
+        assertEquals(tree.findFirstRun(1), 3);
+    }
+}
@@ -0,0 +1,45 @@
+package com.acme.ticketing.entity;
+
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class LayoutFileSeatScorerTest {
+    @Test
+    public void testRankFromLayoutFile() throws Exception {
+        // given
+        Path path = Files.createTempFile("layout", ".csv");
+        Files.write(path, Arrays.asList("# row,column,type,score", "2,1,VIP,1", "", "0,0,NORMAL,2", "1,1, NORMAL, 1"));
+        Venue venue = new Venue(3, 3, 0, 0, 0, 0);
+        venue.setSeatScorer(new LayoutFileSeatScorer(path));
+        venue.init();
+
+        // when
+        List<Seat> seats = venue.holdSeats(venue.getCapacity());
+
+        // then
+        assertEquals(venue.getSeatCounts().get(SeatType.VIP, SeatStatus.HOLD), 1);
+        int[][] expected = {{2, 1}, {1, 1}, {0, 0}, {0, 1}, {0, 2}, {1, 0}, {1, 2}, {2, 0}, {2, 2}};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(seats.get(i).getRow(), expected[i][0]);
+            assertEquals(seats.get(i).getColumn(), expected[i][1]);
+        }
+        assertEquals(seats.get(0).getType(), SeatType.VIP);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidLine() throws Exception {
+        // given
+        Path path = Files.createTempFile("layout", ".csv");
+        Files.write(path, Arrays.asList("0,0,NORMAL,1", "0,1,BALCONY,1"));
+
+        // when
+        new LayoutFileSeatScorer(path);
+    }
+}
@@ -1,10 +1,11 @@
 package com.acme.ticketing.entity;
 
+import com.acme.ticketing.scheduler.TimingWheel;
 import com.google.common.collect.Lists;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 import java.util.List;
-import java.util.TimerTask;
 
 import static org.testng.Assert.*;
 
@@ -17,6 +18,12 @@ public class SeatHoldOrderTest {
     private final String customerEmail = "test@acme.come";
     private final List<Seat> seats = Lists.newArrayList(new Seat(0, 0, SeatType.NORMAL));
     private final long expireInMillis = 5000;
+    private final TimingWheel timingWheel = new TimingWheel(10, 64);
+
+    @AfterClass
+    public void tearDown() {
+        timingWheel.stop();
+    }
 
     @Test
     public void testStartTimer() throws Exception {
@@ -33,18 +40,29 @@ public class SeatHoldOrderTest {
         // when
         SeatHoldOrder order = createOrder();
         order.startTimer();
-        order.cancelTimer();
+        boolean canceled = order.cancelTimer();
 
         // then
+        assertTrue(canceled);
         assertTrue(order.isCanceled());
+        assertFalse(order.cancelTimer());
+    }
+
+    @Test
+    public void testCancelTimerExpired() throws Exception {
+        // given
+        SeatHoldOrder order = new SeatHoldOrder(id, customerEmail, seats, 0, timingWheel, orders -> {});
+        order.startTimer();
+
+        // when
+        Thread.sleep(200);
+
+        // then
+        assertTrue(order.isExpired());
+        assertFalse(order.cancelTimer());
     }
 
     private SeatHoldOrder createOrder() {
-        TimerTask timerTask = new TimerTask() {
-            @Override
-            public void run() {
-            }
-        };
-        return new SeatHoldOrder(id, customerEmail, seats, expireInMillis, timerTask);
+        return new SeatHoldOrder(id, customerEmail, seats, expireInMillis, timingWheel, orders -> {});
     }
-}
\ No newline at end of file
+}
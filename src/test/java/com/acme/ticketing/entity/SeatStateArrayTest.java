@@ -0,0 +1,55 @@
+package com.acme.ticketing.entity;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class SeatStateArrayTest {
+    @Test
+    public void testCompareAndSet() throws Exception {
+        // given
+        SeatStateArray states = new SeatStateArray(40);
+
+        // when
+        boolean held = states.compareAndSet(33, SeatStatus.AVAILABLE, SeatStatus.HOLD);
+        boolean heldAgain = states.compareAndSet(33, SeatStatus.AVAILABLE, SeatStatus.HOLD);
+        boolean sold = states.compareAndSet(33, SeatStatus.HOLD, SeatStatus.SOLD);
+
+        // then
+        assertTrue(held);
+        assertFalse(heldAgain);
+        assertTrue(sold);
+        assertEquals(states.get(33), SeatStatus.SOLD);
+        assertEquals(states.get(32), SeatStatus.AVAILABLE);
+        assertEquals(states.get(34), SeatStatus.AVAILABLE);
+    }
+
+    @Test
+    public void testNextAvailable() throws Exception {
+        // given
+        SeatStateArray states = new SeatStateArray(70);
+        for (int i = 0; i < 65; i++) {
+            states.set(i, i % 2 == 0 ? SeatStatus.HOLD : SeatStatus.SOLD);
+        }
+        states.set(40, SeatStatus.AVAILABLE);
+
+        // then
+        assertEquals(states.nextAvailable(0), 40);
+        assertEquals(states.nextAvailable(40), 40);
+        assertEquals(states.nextAvailable(41), 65);
+        assertEquals(states.nextAvailable(70), -1);
+    }
+
+    @Test
+    public void testNextAvailableNone() throws Exception {
+        // given
+        SeatStateArray states = new SeatStateArray(3);
+        for (int i = 0; i < 3; i++) {
+            states.set(i, SeatStatus.HOLD);
+        }
+
+        // then
+        assertEquals(states.nextAvailable(0), -1);
+    }
+}
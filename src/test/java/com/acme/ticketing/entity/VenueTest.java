@@ -2,7 +2,13 @@ package com.acme.ticketing.entity;
 
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.testng.Assert.*;
 
@@ -34,6 +40,322 @@ public class VenueTest {
         verifySeat(seats.get(8), 2, 2, SeatType.NORMAL);
     }
 
+    @Test
+    public void testHoldSeatsAfterRelease() throws Exception {
+        // given
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        List<Seat> vipSeats = venue.holdSeats(3);
+        List<Seat> normalSeats = venue.holdSeats(2);
+
+        // when
+        venue.releaseSeats(vipSeats.subList(1, 2));
+        List<Seat> seats = venue.holdSeats(2);
+
+        // then
+        assertEquals(normalSeats.get(1).getStatus(), SeatStatus.HOLD);
+        assertEquals(seats.size(), 2);
+        verifySeat(seats.get(0), 1, 1, SeatType.VIP);
+        verifySeat(seats.get(1), 0, 2, SeatType.NORMAL);
+    }
+
+    @Test
+    public void testSellSeats() throws Exception {
+        // given
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        List<Seat> seats = venue.holdSeats(2);
+
+        // when
+        venue.sellSeats(seats);
+        venue.releaseSeats(seats);
+
+        // then
+        seats.forEach(seat -> assertEquals(seat.getStatus(), SeatStatus.SOLD));
+        verifySeat(venue.holdSeats(1).get(0), 1, 2, SeatType.VIP);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testHoldSeatsNotEnough() throws Exception {
+        // given
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        venue.holdSeats(venue.getCapacity() - 1);
+
+        // when
+        venue.holdSeats(2);
+    }
+
+    @Test
+    public void testHoldSeatsConcurrently() throws Exception {
+        // given
+        Venue venue = new Venue(20, 50, 1, 2, 0, 3);
+        venue.init();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Seat>>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < venue.getCapacity() / 4; i++) {
+            futures.add(executor.submit(() -> venue.tryHoldSeats(4)));
+        }
+        Set<Seat> seats = new HashSet<>();
+        for (Future<List<Seat>> future : futures) {
+            seats.addAll(future.get());
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(seats.size(), venue.getCapacity());
+        assertEquals(venue.getNumSeatsAvailable(), 0);
+        assertEquals(venue.getSeatCounts().getHeld(), venue.getCapacity());
+        assertNull(venue.tryHoldSeats(1));
+    }
+
+    @Test
+    public void testHoldAndReleaseSeatsConcurrently() throws Exception {
+        // given
+        Venue venue = new Venue(20, 50, 1, 2, 0, 3);
+        venue.init();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    List<Seat> seats = venue.tryHoldSeats(1 + j % 3);
+                    if (seats != null) {
+                        venue.releaseSeats(seats);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then the scans never moved past a seat released meanwhile
+        assertEquals(venue.getNumSeatsAvailable(), venue.getCapacity());
+        verifySeat(venue.holdSeats(1).get(0), 1, 0, SeatType.VIP);
+    }
+
+    @Test
+    public void testSeatCounts() throws Exception {
+        // given
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        List<Seat> vipSeats = venue.holdSeats(2);
+        List<Seat> seats = venue.holdSeats(3);
+
+        // when
+        venue.sellSeats(vipSeats);
+        venue.releaseSeats(seats.subList(2, 3));
+        venue.restoreSeats(seats.subList(2, 3), SeatStatus.SOLD);
+
+        // then
+        SeatCounts seatCounts = venue.getSeatCounts();
+        assertEquals(seatCounts.get(SeatType.VIP, SeatStatus.SOLD), 2);
+        assertEquals(seatCounts.get(SeatType.VIP, SeatStatus.HOLD), 1);
+        assertEquals(seatCounts.get(SeatType.VIP, SeatStatus.AVAILABLE), 0);
+        assertEquals(seatCounts.get(SeatType.NORMAL, SeatStatus.HOLD), 1);
+        assertEquals(seatCounts.get(SeatType.NORMAL, SeatStatus.SOLD), 1);
+        assertEquals(seatCounts.get(SeatType.NORMAL, SeatStatus.AVAILABLE), 4);
+        assertEquals(seatCounts.getAvailable(), venue.getNumSeatsAvailable());
+        assertEquals(seatCounts.getAvailable() + seatCounts.getHeld() + seatCounts.getSold(), venue.getCapacity());
+    }
+
+    @Test
+    public void testHoldContiguousSeats() throws Exception {
+        // given
+        Venue venue = new Venue(4, 8, 1, 2, 2, 6, SeatAllocation.CONTIGUOUS);
+        venue.init();
+        venue.holdSeats(1);
+
+        // when
+        List<Seat> vipSeats = venue.holdSeats(3);
+        List<Seat> normalSeats = venue.holdSeats(6);
+
+        // then
+        verifySeats(vipSeats, 1, 3, 3, SeatType.VIP);
+        verifySeats(normalSeats, 0, 0, 6, SeatType.NORMAL);
+    }
+
+    @Test
+    public void testHoldContiguousSeatsAfterRelease() throws Exception {
+        // given
+        Venue venue = new Venue(2, 6, 0, 1, 0, 6, SeatAllocation.CONTIGUOUS);
+        venue.init();
+        List<Seat> seats = venue.holdSeats(venue.getCapacity());
+
+        // when
+        venue.releaseSeats(seats.subList(1, 2));
+        venue.releaseSeats(seats.subList(7, 10));
+        List<Seat> block = venue.holdSeats(2);
+
+        // then
+        verifySeats(block, 1, 1, 2, SeatType.NORMAL);
+    }
+
+    @Test
+    public void testHoldContiguousSeatsScatteredVip() throws Exception {
+        // given
+        Venue venue = new Venue(2, 6, 0, 1, 0, 6, SeatAllocation.CONTIGUOUS);
+        venue.init();
+        List<Seat> vipSeats = venue.holdSeats(6);
+        venue.releaseSeats(vipSeats.subList(0, 2));
+        venue.releaseSeats(vipSeats.subList(4, 6));
+
+        // when
+        List<Seat> split = venue.holdSeats(4);
+        venue.releaseSeats(split.subList(0, 1));
+        List<Seat> mixed = venue.holdSeats(7);
+
+        // then
+        verifySeats(split.subList(0, 2), 0, 0, 2, SeatType.VIP);
+        verifySeats(split.subList(2, 4), 0, 4, 2, SeatType.VIP);
+        verifySeat(mixed.get(0), 0, 0, SeatType.VIP);
+        verifySeats(mixed.subList(1, 7), 1, 0, 6, SeatType.NORMAL);
+        assertEquals(venue.getNumSeatsAvailable(), 0);
+    }
+
+    @Test
+    public void testHoldContiguousSeatsTakenMeanwhile() throws Exception {
+        // given
+        Venue venue = new Venue(2, 4, 0, 1, 0, 4, SeatAllocation.CONTIGUOUS);
+        venue.init();
+        // taken by a restore that has not told the allocator yet
+        assertTrue(venue.getSeat(0, 1).compareAndSetStatus(SeatStatus.AVAILABLE, SeatStatus.SOLD));
+
+        // when
+        List<Seat> block = venue.holdSeats(2);
+        List<Seat> tooMany = venue.tryHoldSeats(6);
+
+        // then
+        verifySeats(block, 0, 2, 2, SeatType.VIP);
+        assertNull(tooMany);
+        assertEquals(venue.getNumSeatsAvailable(), 6);
+        assertEquals(venue.getSeat(0, 1).getStatus(), SeatStatus.SOLD);
+        assertEquals(venue.getSeat(0, 0).getStatus(), SeatStatus.AVAILABLE);
+        assertEquals(venue.getSeat(1, 3).getStatus(), SeatStatus.AVAILABLE);
+        assertEquals(venue.holdSeats(4).size(), 4);
+    }
+
+    @Test
+    public void testHoldContiguousSeatsSplit() throws Exception {
+        // given
+        Venue venue = new Venue(3, 4, 0, 1, 0, 4, SeatAllocation.CONTIGUOUS);
+        venue.init();
+        List<Seat> seats = venue.holdSeats(venue.getCapacity());
+        venue.releaseSeats(seats.subList(1, 2));
+        venue.releaseSeats(seats.subList(5, 8));
+        venue.releaseSeats(seats.subList(8, 10));
+
+        // when
+        List<Seat> split = venue.holdSeats(5);
+
+        // then
+        verifySeats(split.subList(0, 3), 1, 1, 3, SeatType.NORMAL);
+        verifySeats(split.subList(3, 5), 2, 0, 2, SeatType.NORMAL);
+        assertEquals(venue.getNumSeatsAvailable(), 1);
+    }
+
+    @Test
+    public void testHoldSeatsBatch() throws Exception {
+        // given
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+
+        // when
+        List<List<Seat>> seats = venue.tryHoldSeats(new int[]{2, 8, 0, 3});
+
+        // then
+        verifySeats(seats.get(0), 1, 0, 2, SeatType.VIP);
+        assertNull(seats.get(1));
+        assertNull(seats.get(2));
+        verifySeat(seats.get(3).get(0), 1, 2, SeatType.VIP);
+        verifySeats(seats.get(3).subList(1, 3), 0, 0, 2, SeatType.NORMAL);
+        assertEquals(venue.getNumSeatsAvailable(), 4);
+    }
+
+    @Test
+    public void testHoldContiguousSeatsBatch() throws Exception {
+        // given
+        Venue venue = new Venue(3, 4, 0, 1, 0, 4, SeatAllocation.CONTIGUOUS);
+        venue.init();
+
+        // when
+        List<List<Seat>> seats = venue.tryHoldSeats(new int[]{3, 3, 2});
+
+        // then
+        verifySeats(seats.get(0), 0, 0, 3, SeatType.VIP);
+        verifySeats(seats.get(1), 1, 0, 3, SeatType.NORMAL);
+        verifySeats(seats.get(2), 2, 0, 2, SeatType.NORMAL);
+    }
+
+    @Test
+    public void testLargeVenue() throws Exception {
+        // given
+        Venue venue = new Venue(200, 500, 10, 20, 100, 400);
+        venue.init();
+
+        // when
+        List<Seat> vipSeats = venue.holdSeats(3000);
+        List<Seat> normalSeats = venue.holdSeats(501);
+
+        // then
+        for (int i = 0; i < vipSeats.size(); i++) {
+            verifySeat(vipSeats.get(i), 10 + i / 300, 100 + i % 300, SeatType.VIP);
+        }
+        verifySeats(normalSeats.subList(0, 500), 0, 0, 500, SeatType.NORMAL);
+        verifySeat(normalSeats.get(500), 1, 0, SeatType.NORMAL);
+        assertEquals(venue.getSeat(19, 399).getStatus(), SeatStatus.HOLD);
+        assertEquals(venue.getSeat(19, 400).getStatus(), SeatStatus.AVAILABLE);
+        assertEquals(venue.getSeatCounts().get(SeatType.VIP, SeatStatus.HOLD), 3000);
+        assertEquals(venue.getSeatCounts().getAvailable(), 100000 - 3501);
+    }
+
+    @Test
+    public void testHoldSeatsScored() throws Exception {
+        // given
+        Venue venue = new Venue(3, 5, 0, 0, 0, 0);
+        venue.setSeatScorer(new StageDistanceSeatScorer(-1, 2));
+        venue.init();
+
+        // when
+        List<Seat> seats = venue.holdSeats(5);
+
+        // then
+        verifySeat(seats.get(0), 0, 2, SeatType.NORMAL);
+        verifySeat(seats.get(1), 0, 1, SeatType.NORMAL);
+        verifySeat(seats.get(2), 0, 3, SeatType.NORMAL);
+        verifySeat(seats.get(3), 1, 2, SeatType.NORMAL);
+        verifySeat(seats.get(4), 0, 0, SeatType.NORMAL);
+    }
+
+    @Test
+    public void testHoldContiguousSeatsScored() throws Exception {
+        // given
+        Venue venue = new Venue(3, 5, 0, 0, 0, 0, SeatAllocation.CONTIGUOUS);
+        venue.setSeatScorer(new StageDistanceSeatScorer(3, 2));
+        venue.init();
+
+        // when
+        List<Seat> first = venue.holdSeats(3);
+        List<Seat> second = venue.holdSeats(5);
+
+        // then
+        verifySeats(first, 2, 0, 3, SeatType.NORMAL);
+        verifySeats(second, 1, 0, 5, SeatType.NORMAL);
+    }
+
+    private void verifySeats(List<Seat> seats, int row, int firstColumn, int number, SeatType seatType) {
+        assertEquals(seats.size(), number);
+        for (int i = 0; i < number; i++) {
+            verifySeat(seats.get(i), row, firstColumn + i, seatType);
+        }
+    }
+
     private void verifySeat(Seat seat, int row, int column, SeatType seatType) {
         assertEquals(seat.getRow(), row);
         assertEquals(seat.getColumn(), column);
@@ -0,0 +1,111 @@
+package com.acme.ticketing.journal;
+
+import org.testng.annotations.Test;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class JournalTest {
+    @Test
+    public void testReplay() throws Exception {
+        // given
+        Path path = Files.createTempFile("journal", ".journal");
+        Journal journal = Journal.open(path, true, record -> fail());
+        journal.append(JournalRecord.hold(1, "test@acme.com", 1000L, new int[]{3, 3}, new int[]{11, 12}));
+        journal.append(JournalRecord.reserve(1, "confirmation"));
+        journal.awaitDurable(journal.append(JournalRecord.expire(Arrays.asList(2, 3))));
+        journal.close();
+
+        // when
+        List<JournalRecord> records = new ArrayList<>();
+        Journal.open(path, true, records::add).close();
+
+        // then
+        assertEquals(records.size(), 3);
+        JournalRecord hold = records.get(0);
+        assertEquals(hold.getType(), JournalRecord.Type.HOLD);
+        assertEquals(hold.getSeatHoldId(), 1);
+        assertEquals(hold.getCustomerEmail(), "test@acme.com");
+        assertEquals(hold.getExpiresAtMillis(), 1000L);
+        assertEquals(hold.getRows(), new int[]{3, 3});
+        assertEquals(hold.getColumns(), new int[]{11, 12});
+        assertEquals(records.get(1).getType(), JournalRecord.Type.RESERVE);
+        assertEquals(records.get(1).getConfirmation(), "confirmation");
+        assertEquals(records.get(2).getSeatHoldIds(), new int[]{2, 3});
+    }
+
+    @Test
+    public void testReplayTornRecord() throws Exception {
+        // given
+        Path path = Files.createTempFile("journal", ".journal");
+        Journal journal = Journal.open(path, false, record -> fail());
+        journal.append(JournalRecord.reserve(1, "first"));
+        long end = journal.append(JournalRecord.reserve(2, "second"));
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(end - 3);
+        }
+
+        // when
+        List<JournalRecord> records = new ArrayList<>();
+        journal = Journal.open(path, false, records::add);
+        journal.awaitDurable(journal.append(JournalRecord.reserve(3, "third")));
+        journal.close();
+        records.clear();
+        Journal.open(path, false, records::add).close();
+
+        // then
+        assertEquals(records.size(), 2);
+        assertEquals(records.get(0).getSeatHoldId(), 1);
+        assertEquals(records.get(1).getSeatHoldId(), 3);
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        // given
+        Path path = Files.createTempFile("journal", ".journal");
+        Journal journal = Journal.open(path, true, record -> fail());
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+
+        // when
+        for (int i = 0; i < 800; i++) {
+            int seatHoldId = i;
+            writers.submit(() -> journal.awaitDurable(journal.append(JournalRecord.reserve(seatHoldId, "code"))));
+        }
+        writers.shutdown();
+        assertTrue(writers.awaitTermination(30, TimeUnit.SECONDS));
+        journal.close();
+
+        // then
+        List<JournalRecord> records = new ArrayList<>();
+        Journal.open(path, true, records::add).close();
+        assertEquals(records.size(), 800);
+    }
+
+    @Test
+    public void testWhenDurable() throws Exception {
+        // given
+        Path path = Files.createTempFile("journal", ".journal");
+        Journal journal = Journal.open(path, true, record -> fail());
+        long position = journal.append(JournalRecord.reserve(1, "first"));
+
+        // when
+        CompletableFuture<Void> durable = journal.whenDurable(position);
+        durable.get(5, TimeUnit.SECONDS);
+
+        // then
+        assertTrue(journal.whenDurable(position).isDone());
+        journal.close();
+    }
+}
@@ -0,0 +1,61 @@
+package com.acme.ticketing.journal;
+
+import com.acme.ticketing.entity.SeatStatus;
+import org.testng.annotations.Test;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class SnapshotTest {
+    @Test
+    public void testWriteAndRead() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("snapshot").resolve("default.snapshot");
+        // 2 rows of 3 seats, (0, 1) on hold and (1, 2) sold
+        byte[] seatStatuses = new byte[]{(byte) 0x04, (byte) 0x08};
+        JournalRecord hold = JournalRecord.hold(7, "test@acme.com", 1000L, new int[]{0}, new int[]{1});
+        new Snapshot(2, 3, 500L, 42L, 9, seatStatuses, Collections.singletonList(hold), new byte[]{1, 2, 3}).write(path);
+
+        // when
+        Snapshot snapshot = Snapshot.read(path);
+
+        // then
+        assertNotNull(snapshot);
+        assertEquals(snapshot.getMaxRow(), 2);
+        assertEquals(snapshot.getMaxColumn(), 3);
+        assertEquals(snapshot.getTakenAtMillis(), 500L);
+        assertEquals(snapshot.getJournalPosition(), 42L);
+        assertEquals(snapshot.getLastSeatHoldId(), 9);
+        assertEquals(snapshot.getSeatStatus(0, 0), SeatStatus.AVAILABLE);
+        assertEquals(snapshot.getSeatStatus(0, 1), SeatStatus.HOLD);
+        assertEquals(snapshot.getSeatStatus(1, 2), SeatStatus.SOLD);
+        assertEquals(snapshot.getHolds().size(), 1);
+        assertEquals(snapshot.getHolds().get(0).getSeatHoldId(), 7);
+        assertEquals(snapshot.getHolds().get(0).getExpiresAtMillis(), 1000L);
+        assertEquals(snapshot.getInvoices(), new byte[]{1, 2, 3});
+        assertFalse(Files.exists(path.resolveSibling("default.snapshot.tmp")));
+    }
+
+    @Test
+    public void testReadCorrupted() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("snapshot").resolve("default.snapshot");
+        new Snapshot(1, 4, 500L, -1L, 0, new byte[]{0}, Collections.emptyList(), new byte[0]).write(path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(10);
+            file.write(0xff);
+        }
+
+        // when
+        Snapshot snapshot = Snapshot.read(path);
+
+        // then
+        assertNull(snapshot);
+        assertNull(Snapshot.read(path.resolveSibling("missing.snapshot")));
+    }
+}
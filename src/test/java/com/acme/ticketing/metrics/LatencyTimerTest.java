@@ -0,0 +1,58 @@
+package com.acme.ticketing.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class LatencyTimerTest {
+    @Test
+    public void testRecord() throws Exception {
+        // given
+        LatencyTimer timer = new LatencyTimer();
+
+        // when
+        timer.record(TimeUnit.MILLISECONDS.toNanos(1));
+        timer.record(TimeUnit.MILLISECONDS.toNanos(3));
+
+        // then
+        assertEquals(timer.getCount(), 2);
+        assertEquals(timer.getMeanMillis(), 2.0, 0.001);
+        assertEquals(timer.getAndResetMaxMillis(), 3.0, 0.001);
+        assertEquals(timer.getAndResetMaxMillis(), 0.0, 0.001);
+    }
+
+    @Test
+    public void testLockWait() throws Exception {
+        // given
+        LatencyTimer waitTimer = new LatencyTimer();
+        LatencyTimer heldTimer = new LatencyTimer();
+        InstrumentedLock lock = new InstrumentedLock(waitTimer, heldTimer);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+
+        // when
+        lock.lock();
+        executor.submit(() -> {
+            locked.countDown();
+            lock.lock();
+            lock.unlock();
+        });
+        locked.await();
+        Thread.sleep(50);
+        lock.unlock();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // then
+        assertEquals(waitTimer.getCount(), 2);
+        assertEquals(heldTimer.getCount(), 2);
+        assertTrue(waitTimer.getAndResetMaxMillis() >= 40);
+        assertTrue(heldTimer.getAndResetMaxMillis() >= 40);
+    }
+}
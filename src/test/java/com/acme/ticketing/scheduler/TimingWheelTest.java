@@ -0,0 +1,113 @@
+package com.acme.ticketing.scheduler;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class TimingWheelTest {
+    private final TimingWheel timingWheel = new TimingWheel(10, 8);
+
+    @AfterClass
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    public void testExpireInBatch() throws Exception {
+        // given
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        Consumer<List<Integer>> handler = batches::add;
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            timingWheel.schedule(i, 0, handler);
+        }
+        Thread.sleep(200);
+
+        // then
+        List<Integer> expired = Lists.newArrayList();
+        batches.forEach(expired::addAll);
+        Collections.sort(expired);
+        assertEquals(expired, Lists.newArrayList(0, 1, 2, 3, 4));
+        assertTrue(batches.size() < 5);
+    }
+
+    @Test
+    public void testExpireAfterSeveralRounds() throws Exception {
+        // given
+        List<Integer> expired = new CopyOnWriteArrayList<>();
+
+        // when
+        Timeout timeout = timingWheel.schedule(1, 250, expired::addAll);
+        Thread.sleep(150);
+
+        // then
+        assertTrue(expired.isEmpty());
+        Thread.sleep(300);
+        assertEquals(expired, Lists.newArrayList(1));
+        assertTrue(timeout.isExpired());
+    }
+
+    @Test
+    public void testExpireAfterHandlerError() throws Exception {
+        // given
+        List<Integer> expired = new CopyOnWriteArrayList<>();
+        timingWheel.schedule(1, 0, items -> {
+            throw new AssertionError("handler failed");
+        });
+        Thread.sleep(100);
+
+        // when
+        timingWheel.schedule(2, 0, expired::addAll);
+        Thread.sleep(200);
+
+        // then
+        assertEquals(expired, Lists.newArrayList(2));
+    }
+
+    @Test
+    public void testScheduleWhenInterrupted() throws Exception {
+        // given
+        TimingWheel wheel = new TimingWheel(10, 8);
+        Thread.currentThread().interrupt();
+
+        // when the first schedule starts the worker
+        Timeout timeout = wheel.schedule(1, 1000, items -> { });
+        boolean interrupted = Thread.interrupted();
+        wheel.stop();
+
+        // then
+        assertTrue(interrupted);
+        assertTrue(timeout.cancel());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        // given
+        List<Integer> expired = new CopyOnWriteArrayList<>();
+        Timeout timeout = timingWheel.schedule(1, 50, expired::addAll);
+
+        // when
+        boolean cancelled = timeout.cancel();
+        Thread.sleep(200);
+
+        // then
+        assertTrue(cancelled);
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.isExpired());
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidWheelSize() throws Exception {
+        new TimingWheel(10, 6);
+    }
+}
@@ -0,0 +1,222 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class AdmissionControllerTest {
+    @Test
+    public void testAdmit() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(2, 10, 100);
+
+        // when
+        AdmissionController.AdmissionToken first = admissionController.admit();
+        AdmissionController.AdmissionToken second = admissionController.admit();
+
+        // then
+        assertEquals(admissionController.getInFlight(), 2);
+        assertTrue(second.getTicket() > first.getTicket());
+        assertEquals(second.getQueuePosition(), 1);
+        first.close();
+        first.close();
+        second.close();
+        assertEquals(admissionController.getInFlight(), 0);
+    }
+
+    @Test
+    public void testAdmitTimeout() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(1, 10, 50);
+        AdmissionController.AdmissionToken token = admissionController.admit();
+
+        try {
+            // when
+            admissionController.admit();
+            fail();
+        } catch (TicketSystemBusyException ex) {
+            // then
+            assertTrue(ex.getRetryAfterSeconds() >= 1);
+            assertEquals(admissionController.getQueued(), 0);
+        } finally {
+            token.close();
+        }
+    }
+
+    @Test
+    public void testAdmitQueueFull() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(1, 1, 5000);
+        AdmissionController.AdmissionToken token = admissionController.admit();
+        ExecutorService waiters = Executors.newSingleThreadExecutor();
+        Future<?> waiter = waiters.submit(() -> admissionController.admit().close());
+        while (admissionController.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+
+        try {
+            // when
+            admissionController.admit();
+            fail();
+        } catch (TicketSystemBusyException ex) {
+            // then
+            assertTrue(ex.getRetryAfterSeconds() >= 1);
+        } finally {
+            token.close();
+            waiter.get(5, TimeUnit.SECONDS);
+            waiters.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdmitInOrder() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(1, 10, 5000);
+        AdmissionController.AdmissionToken token = admissionController.admit();
+        ExecutorService waiters = Executors.newFixedThreadPool(3);
+        List<Integer> admitted = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            int waiter = i;
+            waiters.submit(() -> {
+                admissionController.call(() -> admitted.add(waiter));
+                done.countDown();
+            });
+            while (admissionController.getQueued() <= i) {
+                Thread.sleep(1);
+            }
+        }
+
+        // when
+        token.close();
+
+        // then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(admitted.toString(), "[0, 1, 2]");
+        waiters.shutdown();
+    }
+
+    @Test
+    public void testCallConcurrently() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(4, 1000, 5000);
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Future<?>> calls = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 16; i++) {
+            calls.add(callers.submit(() -> {
+                for (int j = 0; j < 200; j++) {
+                    admissionController.call(() -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        return inFlight.decrementAndGet();
+                    });
+                }
+            }));
+        }
+
+        // then
+        for (Future<?> call : calls) {
+            call.get(10, TimeUnit.SECONDS);
+        }
+        assertTrue(maxInFlight.get() <= 4);
+        assertEquals(admissionController.getInFlight(), 0);
+        assertEquals(admissionController.getQueued(), 0);
+        callers.shutdown();
+    }
+
+    @Test
+    public void testAdmitAsync() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(1, 10, 5000);
+        AdmissionController.AdmissionToken token = admissionController.admit();
+
+        // when
+        CompletableFuture<AdmissionController.AdmissionToken> admission = admissionController.admitAsync();
+
+        // then
+        assertFalse(admission.isDone());
+        assertEquals(admissionController.getQueued(), 1);
+        token.close();
+        AdmissionController.AdmissionToken next = admission.get(5, TimeUnit.SECONDS);
+        assertEquals(next.getQueuePosition(), 1);
+        assertEquals(admissionController.getInFlight(), 1);
+        next.close();
+        assertEquals(admissionController.getInFlight(), 0);
+    }
+
+    @Test
+    public void testCallAsyncConcurrently() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(4, 10, 5000);
+        List<AdmissionController.AdmissionToken> tokens = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tokens.add(admissionController.admit());
+        }
+        // every booking waits for the others, they complete only when they run at the same time
+        CyclicBarrier together = new CyclicBarrier(4);
+        List<CompletableFuture<String>> bookings = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bookings.add(admissionController.callAsync(() -> {
+                try {
+                    together.await(5, TimeUnit.SECONDS);
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+                return CompletableFuture.completedFuture("booked");
+            }));
+        }
+        assertEquals(admissionController.getQueued(), 4);
+
+        // when
+        tokens.forEach(AdmissionController.AdmissionToken::close);
+
+        // then
+        for (CompletableFuture<String> booking : bookings) {
+            assertEquals(booking.get(10, TimeUnit.SECONDS), "booked");
+        }
+        assertEquals(admissionController.getInFlight(), 0);
+    }
+
+    @Test
+    public void testCallAsyncTimeout() throws Exception {
+        // given
+        AdmissionController admissionController = new AdmissionController(1, 10, 50);
+        AdmissionController.AdmissionToken token = admissionController.admit();
+
+        try {
+            // when
+            admissionController.callAsync(() -> CompletableFuture.completedFuture("booked")).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException ex) {
+            // then
+            assertTrue(ex.getCause() instanceof TicketSystemBusyException);
+            assertEquals(admissionController.getQueued(), 0);
+        } finally {
+            token.close();
+        }
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertFalse(new AdmissionController(0, 0, 0).isEnabled());
+        assertTrue(new AdmissionController(1, 0, 0).isEnabled());
+    }
+}
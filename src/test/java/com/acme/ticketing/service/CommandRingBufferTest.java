@@ -0,0 +1,108 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class CommandRingBufferTest {
+    @Test
+    public void testApplyInSequence() throws Exception {
+        // given
+        CommandRingBuffer commands = new CommandRingBuffer(16, "test-commands");
+        List<Integer> applied = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            commands.publishAwaitingRoom(() -> {
+                applied.add(value);
+                done.countDown();
+            });
+        }
+
+        // then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(applied.get(i).intValue(), i);
+        }
+        commands.stop();
+    }
+
+    @Test
+    public void testSingleWriter() throws Exception {
+        // given
+        CommandRingBuffer commands = new CommandRingBuffer(1024, "test-commands");
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        int[] counter = new int[1];
+        CountDownLatch done = new CountDownLatch(4000);
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            producers.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    commands.publishAwaitingRoom(() -> {
+                        counter[0]++;
+                        done.countDown();
+                    });
+                }
+            });
+        }
+
+        // then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(counter[0], 4000);
+        producers.shutdown();
+        commands.stop();
+    }
+
+    @Test
+    public void testApplyAfterError() throws Exception {
+        // given
+        CommandRingBuffer commands = new CommandRingBuffer(16, "test-commands");
+        CountDownLatch done = new CountDownLatch(1);
+
+        // when
+        commands.publish(() -> {
+            throw new NoSuchMethodError("test");
+        });
+        commands.publish(done::countDown);
+
+        // then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        commands.stop();
+    }
+
+    @Test(expectedExceptions = TicketSystemBusyException.class)
+    public void testPublishFull() throws Exception {
+        // given
+        CommandRingBuffer commands = new CommandRingBuffer(2, "test-commands");
+        CountDownLatch blocked = new CountDownLatch(1);
+        commands.publish(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            // when
+            for (int i = 0; i < 3; i++) {
+                commands.publish(() -> {});
+            }
+        } finally {
+            blocked.countDown();
+            commands.stop();
+        }
+    }
+}
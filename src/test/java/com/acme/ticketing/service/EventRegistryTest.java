@@ -0,0 +1,110 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.cluster.Cluster;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.EventNotFoundException;
+import com.acme.ticketing.scheduler.TimingWheel;
+import com.google.common.collect.Sets;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class EventRegistryTest {
+    private final String EMAIL = "test@acme.com";
+    private final TimingWheel timingWheel = new TimingWheel();
+
+    @AfterClass
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    public void testEventsFromConfiguration() throws Exception {
+        // when
+        EventRegistry eventRegistry = createEventRegistry("matinee", "evening");
+
+        // then
+        assertEquals(eventRegistry.getEventIds(), Sets.newHashSet(EventRegistry.DEFAULT_EVENT_ID, "matinee", "evening"));
+        assertEquals(eventRegistry.getTicketService("matinee").numSeatsAvailable(), 9);
+    }
+
+    @Test
+    public void testEventsAreIndependent() throws Exception {
+        // given
+        EventRegistry eventRegistry = createEventRegistry();
+        TicketService small = eventRegistry.createEvent("small", 2, 2, 0, 1, 0, 1);
+        TicketService large = eventRegistry.createEvent("large", 10, 10, null, null, null, null);
+
+        // when
+        SeatHold seatHold = small.findAndHoldSeats(4, EMAIL);
+
+        // then
+        assertEquals(seatHold.getSeats().size(), 4);
+        assertEquals(small.numSeatsAvailable(), 0);
+        assertEquals(large.numSeatsAvailable(), 100);
+        assertEquals(eventRegistry.getTicketService(EventRegistry.DEFAULT_EVENT_ID).numSeatsAvailable(), 9);
+    }
+
+    @Test(expectedExceptions = EventNotFoundException.class)
+    public void testEventNotFound() throws Exception {
+        createEventRegistry().getTicketService("unknown");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCreateEventExists() throws Exception {
+        createEventRegistry().createEvent(EventRegistry.DEFAULT_EVENT_ID, null, null, null, null, null, null);
+    }
+
+    @Test
+    public void testCreateEventTooLarge() throws Exception {
+        // given
+        EventRegistry eventRegistry = createEventRegistry();
+
+        for (int[] size : new int[][]{{100, 11}, {Integer.MAX_VALUE, 3}, {65536, 65536}}) {
+            try {
+                // when
+                eventRegistry.createEvent("large", size[0], size[1], 0, 1, 0, 1);
+                fail();
+            } catch (BookingValidationException ex) {
+                // then
+                assertFalse(eventRegistry.getEventIds().contains("large"));
+            }
+        }
+        assertEquals(eventRegistry.createEvent("large", 100, 10, 0, 1, 0, 1).numSeatsAvailable(), 1000);
+    }
+
+    @Test
+    public void testCreateEventInvalidLayoutReleasesId() throws Exception {
+        // given
+        EventRegistry eventRegistry = createEventRegistry();
+
+        try {
+            // when
+            eventRegistry.createEvent("evening", 2, 2, 5, 6, 0, 1);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // then
+            assertEquals(eventRegistry.createEvent("evening", 2, 2, 0, 1, 0, 1).numSeatsAvailable(), 4);
+        }
+    }
+
+    @Test(expectedExceptions = BookingValidationException.class)
+    public void testCreateEventInvalidId() throws Exception {
+        createEventRegistry().createEvent("no spaces", null, null, null, null, null, null);
+    }
+
+    private EventRegistry createEventRegistry(String... eventIds) {
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        TicketService defaultTicketService = new TicketServiceImpl(venue, timingWheel, 5);
+        TicketServiceFactory ticketServiceFactory = new TicketServiceFactory(timingWheel, 5, 0, 0, 0, 0, EngineMode.CONCURRENT, 1024,
+                new AdmissionController(0, 0, 0), new EventPersistence(false, null, true, false, null, 0),
+                new Cluster(false, null, new String[0], 1, 1, 0, 0),
+                new ReplicaFollower(false, null, 0, 0));
+        return new EventRegistry(defaultTicketService, venue, ticketServiceFactory, eventIds, 1000);
+    }
+}
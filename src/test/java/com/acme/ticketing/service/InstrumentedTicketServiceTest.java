@@ -0,0 +1,94 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.HoldRequest;
+import com.acme.ticketing.entity.HoldResult;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.metrics.TicketingMetrics;
+import com.acme.ticketing.metrics.TicketingPublicMetrics;
+import com.google.common.collect.Lists;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class InstrumentedTicketServiceTest {
+    private static final String EMAIL = "test@acme.com";
+
+    @Test
+    public void testHoldOutcomes() throws Exception {
+        // given
+        TicketService ticketService = Mockito.mock(TicketService.class);
+        when(ticketService.findAndHoldSeats(1, EMAIL)).thenReturn(null);
+        doThrow(new BookingValidationException("")).when(ticketService).findAndHoldSeats(-1, EMAIL);
+        doThrow(new TicketSystemBusyException("")).when(ticketService).findAndHoldSeats(2, EMAIL);
+        InstrumentedTicketService instrumentedTicketService = new InstrumentedTicketService(ticketService);
+        long holds = TicketingMetrics.HOLD.getCount();
+        long failed = TicketingMetrics.HOLDS_FAILED.sum();
+        long invalid = TicketingMetrics.REQUESTS_INVALID.sum();
+        long rejected = TicketingMetrics.REQUESTS_REJECTED.sum();
+
+        // when
+        assertNull(instrumentedTicketService.findAndHoldSeats(1, EMAIL));
+        expectThrows(BookingValidationException.class, () -> instrumentedTicketService.findAndHoldSeats(-1, EMAIL));
+        expectThrows(TicketSystemBusyException.class, () -> instrumentedTicketService.findAndHoldSeats(2, EMAIL));
+
+        // then
+        assertTrue(TicketingMetrics.HOLD.getCount() >= holds + 3);
+        assertTrue(TicketingMetrics.HOLDS_FAILED.sum() >= failed + 1);
+        assertTrue(TicketingMetrics.REQUESTS_INVALID.sum() >= invalid + 1);
+        assertTrue(TicketingMetrics.REQUESTS_REJECTED.sum() >= rejected + 1);
+    }
+
+    @Test
+    public void testBatchHoldOutcomes() throws Exception {
+        // given
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        TicketService ticketService = new InstrumentedTicketService(new TicketServiceImpl(venue, 5));
+        long failed = TicketingMetrics.HOLDS_FAILED.sum();
+        long invalid = TicketingMetrics.REQUESTS_INVALID.sum();
+
+        // when
+        List<HoldResult> holdResults = ticketService.findAndHoldSeats(Lists.newArrayList(
+                new HoldRequest(2, EMAIL), new HoldRequest(0, EMAIL), null, new HoldRequest(9, EMAIL)));
+
+        // then
+        assertNotNull(holdResults.get(0).getSeatHold());
+        assertTrue(holdResults.get(1).isInvalid());
+        assertTrue(holdResults.get(2).isInvalid());
+        assertFalse(holdResults.get(3).isInvalid());
+        assertTrue(TicketingMetrics.REQUESTS_INVALID.sum() >= invalid + 2);
+        assertTrue(TicketingMetrics.HOLDS_FAILED.sum() >= failed + 1);
+    }
+
+    @Test
+    public void testPublicMetrics() throws Exception {
+        // given
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        TicketService ticketService = new InstrumentedTicketService(new TicketServiceImpl(venue, 5));
+
+        // when
+        ticketService.findAndHoldSeats(2, EMAIL);
+        Map<String, Number> metrics = new TicketingPublicMetrics().metrics().stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+
+        // then
+        assertTrue(metrics.get("timer.ticketing.hold.count").longValue() >= 1);
+        assertTrue(metrics.get("timer.ticketing.seat.allocation.count").longValue() >= 1);
+        assertTrue(metrics.get("gauge.ticketing.holds.open").longValue() >= 1);
+        assertTrue(metrics.get("gauge.ticketing.seats.onHold").longValue() >= 2);
+        assertTrue(metrics.containsKey("gauge.ticketing.holds.expired.perSecond"));
+        assertTrue(metrics.containsKey("timer.ticketing.lock.allocator.wait.max"));
+    }
+}
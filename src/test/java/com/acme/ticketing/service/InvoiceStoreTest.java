@@ -0,0 +1,94 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Invoice;
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.Venue;
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class InvoiceStoreTest {
+    private static final String EMAIL = "test@acme.com";
+
+    @Test
+    public void testFind() {
+        // given
+        Venue venue = createVenue();
+        InvoiceStore invoiceStore = new InvoiceStore(venue);
+        String confirmation = UUID.randomUUID().toString();
+        assertTrue(invoiceStore.add(new Invoice(confirmation, EMAIL,
+                Lists.newArrayList(venue.getSeat(1, 2), venue.getSeat(1, 3)))));
+
+        // when
+        Invoice invoice = invoiceStore.find(confirmation);
+
+        // then
+        assertNotNull(invoice);
+        assertEquals(invoice.getConfirmation(), confirmation);
+        assertEquals(invoice.getCustomerEmail(), EMAIL);
+        assertEquals(invoice.getSeats().size(), 2);
+        assertEquals(invoice.getSeats().get(1).getRow(), 1);
+        assertEquals(invoice.getSeats().get(1).getColumn(), 3);
+        assertFalse(invoiceStore.add(invoice));
+        assertNull(invoiceStore.find(UUID.randomUUID().toString()));
+        assertNull(invoiceStore.find("not a confirmation"));
+    }
+
+    @Test
+    public void testFindByCustomer() {
+        // given
+        Venue venue = createVenue();
+        InvoiceStore invoiceStore = new InvoiceStore(venue);
+        // enough invoices and customers to grow the log and both tables
+        for (int i = 0; i < 5000; i++) {
+            Seat seat = venue.getSeat(i % venue.getMaxRow(), i % venue.getMaxColumn());
+            invoiceStore.add(new Invoice(UUID.randomUUID().toString(), "customer" + (i % 1500) + "@acme.com",
+                    Lists.newArrayList(seat)));
+        }
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        invoiceStore.add(new Invoice(first, EMAIL, Lists.newArrayList(venue.getSeat(0, 0))));
+        invoiceStore.add(new Invoice(second, "Test@Acme.com", Lists.newArrayList(venue.getSeat(0, 1))));
+
+        // when
+        List<Invoice> invoices = invoiceStore.findByCustomer(EMAIL);
+
+        // then
+        assertEquals(invoiceStore.size(), 5002);
+        assertEquals(invoices.size(), 2);
+        assertEquals(invoices.get(0).getConfirmation(), first);
+        assertEquals(invoices.get(1).getConfirmation(), second);
+        assertEquals(invoiceStore.findByCustomer("customer7@acme.com").size(), 4);
+        assertTrue(invoiceStore.findByCustomer("nobody@acme.com").isEmpty());
+    }
+
+    @Test
+    public void testLoad() {
+        // given
+        Venue venue = createVenue();
+        InvoiceStore invoiceStore = new InvoiceStore(venue);
+        String confirmation = UUID.randomUUID().toString();
+        invoiceStore.add(new Invoice(confirmation, EMAIL, Lists.newArrayList(venue.getSeat(2, 4))));
+        invoiceStore.add(new Invoice(UUID.randomUUID().toString(), EMAIL, Lists.newArrayList(venue.getSeat(2, 5))));
+
+        // when
+        InvoiceStore loadedInvoiceStore = new InvoiceStore(venue);
+        loadedInvoiceStore.load(invoiceStore.toByteArray());
+
+        // then
+        assertEquals(loadedInvoiceStore.size(), 2);
+        assertEquals(loadedInvoiceStore.find(confirmation).getSeats().get(0).getColumn(), 4);
+        assertEquals(loadedInvoiceStore.findByCustomer(EMAIL).size(), 2);
+    }
+
+    private Venue createVenue() {
+        Venue venue = new Venue(10, 20, 1, 5, 5, 15);
+        venue.init();
+        return venue;
+    }
+}
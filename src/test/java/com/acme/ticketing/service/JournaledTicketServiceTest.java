@@ -0,0 +1,147 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.journal.Snapshot;
+import com.acme.ticketing.scheduler.TimingWheel;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class JournaledTicketServiceTest {
+    private static final String EMAIL = "test@acme.com";
+
+    private final TimingWheel timingWheel = new TimingWheel(10, 64);
+
+    @AfterClass
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        TicketServiceImpl ticketServiceImpl = createTicketServiceImpl(60);
+        JournaledTicketService ticketService = new JournaledTicketService(ticketServiceImpl, ticketServiceImpl, path, true, null);
+        SeatHold seatHoldSold = ticketService.findAndHoldSeats(2, EMAIL);
+        String confirmation = ticketService.reserveSeats(seatHoldSold.getId(), EMAIL);
+        assertNotNull(confirmation);
+        SeatHold seatHold = ticketService.findAndHoldSeats(3, EMAIL);
+        ticketService.close();
+
+        // when
+        TicketServiceImpl restoredTicketServiceImpl = createTicketServiceImpl(60);
+        JournaledTicketService restoredTicketService = new JournaledTicketService(restoredTicketServiceImpl,
+                restoredTicketServiceImpl, path, true, null);
+
+        // then
+        Venue venue = restoredTicketServiceImpl.getVenue();
+        assertEquals(restoredTicketService.numSeatsAvailable(), 4);
+        for (Seat seat : seatHoldSold.getSeats()) {
+            assertEquals(venue.getSeat(seat.getRow(), seat.getColumn()).getStatus(), SeatStatus.SOLD);
+        }
+        for (Seat seat : seatHold.getSeats()) {
+            assertEquals(venue.getSeat(seat.getRow(), seat.getColumn()).getStatus(), SeatStatus.HOLD);
+        }
+        assertNull(restoredTicketService.reserveSeats(seatHoldSold.getId(), EMAIL));
+        assertEquals(restoredTicketService.findReservation(confirmation).getSeats().size(), 2);
+        assertNotNull(restoredTicketService.reserveSeats(seatHold.getId(), EMAIL));
+        assertEquals(restoredTicketService.findReservations(EMAIL).size(), 2);
+        assertTrue(restoredTicketService.findAndHoldSeats(1, EMAIL).getId() > seatHold.getId());
+        restoredTicketService.close();
+    }
+
+    @Test
+    public void testRestoreExpiry() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        TicketServiceImpl ticketServiceImpl = createTicketServiceImpl(1);
+        JournaledTicketService ticketService = new JournaledTicketService(ticketServiceImpl, ticketServiceImpl, path, false, null);
+        ticketService.findAndHoldSeats(2, EMAIL);
+        ticketService.close();
+
+        // when
+        TicketServiceImpl restoredTicketServiceImpl = createTicketServiceImpl(1);
+        JournaledTicketService restoredTicketService = new JournaledTicketService(restoredTicketServiceImpl,
+                restoredTicketServiceImpl, path, false, null);
+
+        // then
+        assertEquals(restoredTicketService.numSeatsAvailable(), 7);
+        Thread.sleep(1500);
+        assertEquals(restoredTicketService.numSeatsAvailable(), 9);
+        restoredTicketService.close();
+    }
+
+    @Test
+    public void testRestoreFromSnapshot() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        TicketServiceImpl ticketServiceImpl = createTicketServiceImpl(60);
+        JournaledTicketService ticketService = new JournaledTicketService(ticketServiceImpl, ticketServiceImpl, path, true, null);
+        SeatHold seatHoldSold = ticketService.findAndHoldSeats(2, EMAIL);
+        SeatHold seatHoldSoldLater = ticketService.findAndHoldSeats(1, EMAIL);
+        String confirmation = ticketService.reserveSeats(seatHoldSold.getId(), EMAIL);
+        Snapshot snapshot = ticketServiceImpl.snapshot(ticketService.getJournalPosition());
+        String confirmationLater = ticketService.reserveSeats(seatHoldSoldLater.getId(), EMAIL);
+        SeatHold seatHold = ticketService.findAndHoldSeats(3, EMAIL);
+        ticketService.close();
+
+        // when
+        TicketServiceImpl restoredTicketServiceImpl = createTicketServiceImpl(60);
+        JournaledTicketService restoredTicketService = new JournaledTicketService(restoredTicketServiceImpl,
+                restoredTicketServiceImpl, path, true, snapshot);
+
+        // then
+        Venue venue = restoredTicketServiceImpl.getVenue();
+        assertEquals(restoredTicketService.numSeatsAvailable(), 3);
+        for (Seat seat : seatHoldSoldLater.getSeats()) {
+            assertEquals(venue.getSeat(seat.getRow(), seat.getColumn()).getStatus(), SeatStatus.SOLD);
+        }
+        for (Seat seat : seatHold.getSeats()) {
+            assertEquals(venue.getSeat(seat.getRow(), seat.getColumn()).getStatus(), SeatStatus.HOLD);
+        }
+        assertNull(restoredTicketService.reserveSeats(seatHoldSoldLater.getId(), EMAIL));
+        assertNotNull(restoredTicketService.findReservation(confirmation));
+        assertNotNull(restoredTicketService.findReservation(confirmationLater));
+        assertNotNull(restoredTicketService.reserveSeats(seatHold.getId(), EMAIL));
+        restoredTicketService.close();
+    }
+
+    @Test
+    public void testRestoreFromSnapshotWithoutJournal() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("snapshot").resolve("default.snapshot");
+        TicketServiceImpl ticketServiceImpl = createTicketServiceImpl(60);
+        SeatHold seatHoldSold = ticketServiceImpl.findAndHoldSeats(2, EMAIL);
+        assertNotNull(ticketServiceImpl.reserveSeats(seatHoldSold.getId(), EMAIL));
+        SeatHold seatHold = ticketServiceImpl.findAndHoldSeats(3, EMAIL);
+        EventPersistence eventPersistence = new EventPersistence(false, null, true, true, path.getParent().toString(), 0);
+        eventPersistence.persist("default", ticketServiceImpl, ticketServiceImpl);
+        eventPersistence.close();
+
+        // when
+        TicketServiceImpl restoredTicketServiceImpl = createTicketServiceImpl(60);
+        TicketService restoredTicketService = new EventPersistence(false, null, true, true,
+                path.getParent().toString(), 0).persist("default", restoredTicketServiceImpl, restoredTicketServiceImpl);
+
+        // then
+        assertTrue(Files.exists(path));
+        assertEquals(restoredTicketService.numSeatsAvailable(), 4);
+        assertNull(restoredTicketService.reserveSeats(seatHoldSold.getId(), EMAIL));
+        assertNotNull(restoredTicketService.reserveSeats(seatHold.getId(), EMAIL));
+    }
+
+    private TicketServiceImpl createTicketServiceImpl(long seatHoldTTL) {
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        return new TicketServiceImpl(venue, timingWheel, seatHoldTTL);
+    }
+}
@@ -0,0 +1,163 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.SeatType;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.journal.Journal;
+import com.acme.ticketing.journal.JournalRecord;
+import com.acme.ticketing.scheduler.TimingWheel;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class ReplicaTicketServiceTest {
+    private static final String EMAIL = "test@acme.com";
+
+    private final TimingWheel timingWheel = new TimingWheel(10, 64);
+
+    @AfterClass
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    public void testFollowJournal() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        TicketServiceImpl primaryImpl = new TicketServiceImpl(createVenue(), timingWheel, 60);
+        JournaledTicketService primary = new JournaledTicketService(primaryImpl, primaryImpl, path, true, null);
+        SeatHold seatHoldSold = primary.findAndHoldSeats(2, EMAIL);
+        String confirmation = primary.reserveSeats(seatHoldSold.getId(), EMAIL);
+        ReplicaTicketService replica = new ReplicaTicketService(createVenue(), path, 60000);
+        List<Integer> changes = new ArrayList<>();
+        replica.addInventoryListener(new InventoryListener() {
+            @Override
+            public void onHold(int seatHoldId, String customerEmail, List<Seat> seats,
+                               long expiresAtMillis) {
+                changes.add(seatHoldId);
+            }
+        });
+
+        // when
+        replica.poll();
+        SeatHold seatHold = primary.findAndHoldSeats(3, EMAIL);
+        replica.poll();
+
+        // then
+        assertEquals(replica.numSeatsAvailable(), 4);
+        assertEquals(replica.getSeatCounts().get(SeatType.VIP, SeatStatus.SOLD), 2);
+        assertEquals(replica.getSeatCounts().getHeld(), 3);
+        assertEquals(replica.getSeatMap(-1).getVersion(), primary.getSeatMap(-1).getVersion());
+        assertEquals(replica.findReservation(confirmation).getSeats().size(), 2);
+        assertEquals(replica.findHolds(EMAIL).size(), 1);
+        assertEquals(replica.findHolds(EMAIL).get(0).getId(), seatHold.getId());
+        assertEquals(changes.size(), 2);
+        assertThrows(IllegalStateException.class, () -> replica.findAndHoldSeats(1, EMAIL));
+        assertThrows(IllegalStateException.class, () -> replica.reserveSeats(seatHold.getId(), EMAIL));
+        primary.close();
+    }
+
+    @Test
+    public void testFollowExpiry() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        TicketServiceImpl primaryImpl = new TicketServiceImpl(createVenue(), timingWheel, 60);
+        JournaledTicketService primary = new JournaledTicketService(primaryImpl, primaryImpl, path, true, null);
+        SeatHold seatHold = primary.findAndHoldSeats(3, EMAIL);
+        ReplicaTicketService replica = new ReplicaTicketService(createVenue(), path, 60000);
+        replica.poll();
+        assertEquals(replica.numSeatsAvailable(), 6);
+
+        // when
+        primaryImpl.cancelHold(seatHold.getId(), EMAIL);
+        primary.close();
+        replica.poll();
+
+        // then
+        assertEquals(replica.numSeatsAvailable(), 9);
+        assertTrue(replica.findHolds(EMAIL).isEmpty());
+    }
+
+    @Test
+    public void testFollowExpiryWhilePrimaryDown() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        Journal journal = Journal.open(path, false, record -> { });
+        journal.append(JournalRecord.hold(1, EMAIL, System.currentTimeMillis() - 1000, new int[]{1, 1}, new int[]{0, 1}));
+        journal.close();
+        ReplicaTicketService replica = new ReplicaTicketService(createVenue(), path, 60000);
+        replica.poll();
+        assertEquals(replica.numSeatsAvailable(), 7);
+
+        // when
+        TicketServiceImpl primaryImpl = new TicketServiceImpl(createVenue(), timingWheel, 60);
+        new JournaledTicketService(primaryImpl, primaryImpl, path, false, null).close();
+        replica.poll();
+
+        // then
+        assertEquals(primaryImpl.numSeatsAvailable(), 9);
+        assertEquals(replica.numSeatsAvailable(), 9);
+        assertTrue(replica.findHolds(EMAIL).isEmpty());
+    }
+
+    @Test
+    public void testFollowHoldBeforeExpiry() throws Exception {
+        // given the primary journaled hold 2 of a seat freed by the expiry of hold 1 before that expiry
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        long expiresAtMillis = System.currentTimeMillis() + 60000;
+        String confirmation = UUID.randomUUID().toString();
+        Journal journal = Journal.open(path, false, record -> { });
+        journal.append(JournalRecord.hold(1, EMAIL, expiresAtMillis, new int[]{1, 1}, new int[]{0, 1}));
+        journal.append(JournalRecord.hold(2, EMAIL, expiresAtMillis, new int[]{1}, new int[]{0}));
+        journal.append(JournalRecord.expire(Collections.singletonList(1)));
+        journal.append(JournalRecord.reserve(2, confirmation));
+        journal.close();
+        ReplicaTicketService replica = new ReplicaTicketService(createVenue(), path, 60000);
+
+        // when
+        replica.poll();
+
+        // then
+        assertEquals(replica.numSeatsAvailable(), 8);
+        assertEquals(replica.getSeatCounts().get(SeatType.VIP, SeatStatus.SOLD), 1);
+        assertEquals(replica.getSeatCounts().getHeld(), 0);
+        assertEquals(replica.getSeatMap(-1).getRows().get(1), new int[]{0, 1, 2});
+        assertEquals(replica.findReservation(confirmation).getSeats().size(), 1);
+        assertTrue(replica.findHolds(EMAIL).isEmpty());
+    }
+
+    @Test
+    public void testStale() throws Exception {
+        // given
+        Path path = Files.createTempDirectory("journal").resolve("default.journal");
+        ReplicaTicketService replica = new ReplicaTicketService(createVenue(), path, 60000);
+
+        // when
+        replica.poll();
+
+        // then
+        // the journal does not exist yet, nothing is known of the primary
+        assertThrows(TicketSystemBusyException.class, replica::numSeatsAvailable);
+        Files.createFile(path);
+        replica.poll();
+        assertEquals(replica.numSeatsAvailable(), 9);
+    }
+
+    private Venue createVenue() {
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        return venue;
+    }
+}
@@ -0,0 +1,178 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.Seat;
+import com.acme.ticketing.entity.SeatMap;
+import com.acme.ticketing.entity.SeatStatus;
+import com.acme.ticketing.entity.Venue;
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class SeatMapCacheTest {
+    @Test
+    public void testFullMap() {
+        // given
+        Venue venue = createVenue();
+        venue.restoreSeats(Lists.newArrayList(venue.getSeat(0, 0)), SeatStatus.SOLD);
+        SeatMapCache seatMapCache = new SeatMapCache(venue);
+        long version = seatMapCache.getSeatMap(-1).getVersion();
+        List<Seat> seats = venue.restoreSeats(Lists.newArrayList(venue.getSeat(1, 2), venue.getSeat(1, 3)),
+                SeatStatus.HOLD);
+        seatMapCache.onHold(1, "test@acme.com", seats, 0);
+
+        // when
+        SeatMap seatMap = seatMapCache.getSeatMap(-1);
+
+        // then
+        assertEquals(seatMap.getVersion(), version + 1);
+        assertNull(seatMap.getSinceVersion());
+        List<int[]> rows = seatMap.getRows();
+        assertEquals(rows.size(), 3);
+        assertEquals(rows.get(0), new int[]{0, 1, 4});
+        assertEquals(rows.get(1), new int[]{2, 2, 1});
+        assertEquals(rows.get(2), new int[]{5});
+        assertSame(seatMapCache.getSeatMap(-1), seatMap);
+    }
+
+    @Test
+    public void testDelta() {
+        // given
+        Venue venue = createVenue();
+        SeatMapCache seatMapCache = new SeatMapCache(venue);
+        hold(venue, seatMapCache, 2, 4);
+        long version = seatMapCache.getSeatMap(-1).getVersion();
+        release(venue, seatMapCache, 2, 4);
+        hold(venue, seatMapCache, 0, 1);
+        release(venue, seatMapCache, 0, 1);
+        hold(venue, seatMapCache, 0, 1);
+
+        // when
+        SeatMap delta = seatMapCache.getSeatMap(version);
+
+        // then
+        assertEquals(delta.getVersion(), version + 4);
+        assertEquals(delta.getSinceVersion(), Long.valueOf(version));
+        assertNull(delta.getRows());
+        assertEquals(delta.getAvailable(), new int[]{14});
+        assertEquals(delta.getTaken(), new int[]{1});
+        assertEquals(seatMapCache.getSeatMap(delta.getVersion()).getAvailable().length, 0);
+        assertNull(seatMapCache.getSeatMap(version + 1000).getSinceVersion());
+    }
+
+    @Test
+    public void testVersionsOfAnotherProcess() {
+        // given
+        Venue venue = createVenue();
+        SeatMapCache seatMapCache = new SeatMapCache(venue);
+        hold(venue, seatMapCache, 0, 0);
+
+        // when
+        SeatMap seatMap = seatMapCache.getSeatMap(0);
+
+        // then
+        assertTrue(seatMap.getVersion() > Integer.MAX_VALUE);
+        assertNull(seatMap.getSinceVersion());
+    }
+
+    @Test
+    public void testDeltaOlderThanLog() {
+        // given
+        Venue venue = new Venue(100, 100, 0, 1, 0, 100);
+        venue.init();
+        SeatMapCache seatMapCache = new SeatMapCache(venue);
+        long version = seatMapCache.getSeatMap(-1).getVersion();
+
+        // when
+        for (int row = 0; row < 50; row++) {
+            for (int column = 0; column < 100; column++) {
+                hold(venue, seatMapCache, row, column);
+            }
+        }
+
+        // then
+        assertNull(seatMapCache.getSeatMap(version).getSinceVersion());
+        assertEquals(seatMapCache.getSeatMap(version + 4000).getTaken().length, 1000);
+    }
+
+    @Test
+    public void testReleaseReportedAfterHold() {
+        // given
+        Venue venue = createVenue();
+        SeatMapCache seatMapCache = new SeatMapCache(venue);
+        List<Seat> seats = hold(venue, seatMapCache, 1, 1);
+        long version = seatMapCache.getSeatMap(-1).getVersion();
+        venue.releaseSeats(seats);
+        hold(venue, seatMapCache, 1, 1);
+
+        // when the release is reported after the hold that followed it
+        seatMapCache.onRelease(seats);
+
+        // then
+        assertEquals(seatMapCache.getSeatMap(-1).getRows().get(1), new int[]{1, 1, 3});
+        assertEquals(seatMapCache.getSeatMap(version).getTaken(), new int[]{6});
+        assertEquals(seatMapCache.getSeatMap(version).getAvailable().length, 0);
+    }
+
+    @Test
+    public void testReleaseAndHoldConcurrently() throws Exception {
+        // given
+        Venue venue = new Venue(10, 20, 0, 1, 0, 20);
+        venue.init();
+        SeatMapCache seatMapCache = new SeatMapCache(venue);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when every thread keeps its last hold
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    List<Seat> seats = venue.tryHoldSeats(1 + j % 5);
+                    if (seats != null) {
+                        seatMapCache.taken(seats);
+                        if (j < 1999) {
+                            venue.releaseSeats(seats);
+                            seatMapCache.onRelease(seats);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        List<int[]> rows = seatMapCache.getSeatMap(-1).getRows();
+        List<int[]> expectedRows = new SeatMapCache(venue).getSeatMap(-1).getRows();
+        for (int row = 0; row < expectedRows.size(); row++) {
+            assertEquals(rows.get(row), expectedRows.get(row));
+        }
+    }
+
+    private List<Seat> hold(Venue venue, SeatMapCache seatMapCache, int row, int column) {
+        List<Seat> seats = venue.restoreSeats(Lists.newArrayList(venue.getSeat(row, column)), SeatStatus.HOLD);
+        seatMapCache.taken(seats);
+        return seats;
+    }
+
+    private void release(Venue venue, SeatMapCache seatMapCache, int row, int column) {
+        List<Seat> seats = Lists.newArrayList(venue.getSeat(row, column));
+        venue.releaseSeats(seats);
+        seatMapCache.onRelease(seats);
+    }
+
+    private Venue createVenue() {
+        Venue venue = new Venue(3, 5, 0, 1, 0, 5);
+        venue.init();
+        return venue;
+    }
+}
@@ -0,0 +1,93 @@
+package com.acme.ticketing.service;
+
+import com.acme.ticketing.entity.SeatHold;
+import com.acme.ticketing.entity.Venue;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.scheduler.TimingWheel;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.*;
+
+@Test(groups = {"unit"})
+public class SequencedTicketServiceTest {
+    private final String EMAIL = "test@acme.com";
+    private final TimingWheel timingWheel = new TimingWheel(10, 64);
+
+    @AfterClass
+    public void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    public void testFindAndHoldThenReserve() throws Exception {
+        // given
+        SequencedTicketService ticketService = createTicketService(5);
+
+        // when
+        CompletableFuture<SeatHold> seatHold = ticketService.findAndHoldSeatsAsync(2, EMAIL);
+        String confirmation = ticketService.reserveSeatsAsync(seatHold.get().getId(), EMAIL).get();
+
+        // then
+        assertNotNull(confirmation);
+        assertEquals(ticketService.numSeatsAvailable(), 7);
+        ticketService.stop();
+    }
+
+    @Test(expectedExceptions = BookingValidationException.class)
+    public void testFindAndHoldSeatsInvalid() throws Exception {
+        SequencedTicketService ticketService = createTicketService(5);
+        try {
+            ticketService.findAndHoldSeats(0, EMAIL);
+        } finally {
+            ticketService.stop();
+        }
+    }
+
+    @Test
+    public void testExpireThroughRingBuffer() throws Exception {
+        // given
+        SequencedTicketService ticketService = createTicketService(0);
+
+        // when
+        SeatHold seatHold = ticketService.findAndHoldSeats(9, EMAIL);
+        Thread.sleep(200);
+
+        // then
+        assertEquals(seatHold.getSeats().size(), 9);
+        assertEquals(ticketService.numSeatsAvailable(), 9);
+        assertNull(ticketService.reserveSeats(seatHold.getId(), EMAIL));
+        ticketService.stop();
+    }
+
+    @Test
+    public void testCommandError() throws Exception {
+        // given
+        TicketServiceImpl failing = mock(TicketServiceImpl.class);
+        when(failing.findAndHoldSeats(2, EMAIL)).thenThrow(new NoSuchMethodError("test")).thenReturn(null);
+        SequencedTicketService ticketService = new SequencedTicketService(failing, 64, "test-engine");
+
+        try {
+            // when
+            ticketService.findAndHoldSeatsAsync(2, EMAIL).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException ex) {
+            // then
+            assertTrue(ex.getCause() instanceof NoSuchMethodError);
+        }
+        assertNull(ticketService.findAndHoldSeatsAsync(2, EMAIL).get(5, TimeUnit.SECONDS));
+        ticketService.stop();
+    }
+
+    private SequencedTicketService createTicketService(long seatHoldTTL) {
+        Venue venue = new Venue(3, 3, 1, 2, 0, 3);
+        venue.init();
+        return new SequencedTicketService(new TicketServiceImpl(venue, timingWheel, seatHoldTTL), 64, "test-engine");
+    }
+}
@@ -1,9 +1,14 @@
 package com.acme.ticketing.service;
 
 import com.acme.ticketing.entity.*;
+import com.acme.ticketing.exception.BookingValidationException;
+import com.acme.ticketing.exception.TicketSystemBusyException;
+import com.acme.ticketing.metrics.TicketingMetrics;
+import com.acme.ticketing.scheduler.TimingWheel;
 import org.testng.annotations.Test;
 import org.testng.collections.Lists;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.Mockito.mock;
@@ -47,6 +52,52 @@ public class TicketServiceImplTest {
         assertEquals(seat.getType(), SeatType.VIP);
     }
 
+    @Test
+    public void testFindAndHoldSeatsBatch() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, 5);
+        List<HoldRequest> holdRequests = Lists.newArrayList(
+                new HoldRequest(2, EMAIL),
+                new HoldRequest(0, EMAIL),
+                new HoldRequest(6, EMAIL),
+                new HoldRequest(2, "invalid"),
+                new HoldRequest(1, EMAIL));
+
+        // when
+        List<HoldResult> holdResults = ticketService.findAndHoldSeats(holdRequests);
+
+        // then
+        assertEquals(holdResults.size(), holdRequests.size());
+        assertEquals(holdResults.get(0).getSeatHold().getSeats().size(), 2);
+        assertEquals(holdResults.get(0).getSeatHold().getSeats().get(0).getType(), SeatType.VIP);
+        assertNotNull(holdResults.get(1).getError());
+        assertEquals(holdResults.get(2).getSeatHold().getSeats().size(), 6);
+        assertNotNull(holdResults.get(3).getError());
+        assertEquals(holdResults.get(4).getSeatHold().getSeats().size(), 1);
+        assertEquals(ticketService.numSeatsAvailable(), 0);
+        assertNotEquals(holdResults.get(0).getSeatHold().getId(), holdResults.get(2).getSeatHold().getId());
+    }
+
+    @Test
+    public void testFindAndHoldSeatsBatchNotEnoughSeats() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, 5);
+
+        // when
+        List<HoldResult> holdResults = ticketService.findAndHoldSeats(Lists.newArrayList(
+                new HoldRequest(8, EMAIL),
+                new HoldRequest(2, EMAIL),
+                new HoldRequest(1, EMAIL)));
+
+        // then
+        assertNotNull(holdResults.get(0).getSeatHold());
+        assertNull(holdResults.get(1).getSeatHold());
+        assertNotNull(holdResults.get(1).getError());
+        assertNotNull(holdResults.get(2).getSeatHold());
+    }
+
     @Test
     public void testReserveSeatsNotFound() throws Exception {
         // given
@@ -86,6 +137,139 @@ public class TicketServiceImplTest {
         assertNotNull(confirmation);
     }
 
+    @Test
+    public void testHoldCapsPerCustomer() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, new TimingWheel(), 5, 2, 3);
+        SeatHold first = ticketService.findAndHoldSeats(2, EMAIL);
+
+        // when
+        assertThrows(BookingValidationException.class, () -> ticketService.findAndHoldSeats(2, EMAIL));
+        SeatHold second = ticketService.findAndHoldSeats(1, EMAIL.toUpperCase());
+        assertThrows(BookingValidationException.class, () -> ticketService.findAndHoldSeats(1, EMAIL));
+        List<HoldResult> holdResults = ticketService.findAndHoldSeats(Lists.newArrayList(
+                new HoldRequest(1, EMAIL), new HoldRequest(3, "other@acme.com")));
+
+        // then
+        assertNotNull(second);
+        assertNull(holdResults.get(0).getSeatHold());
+        assertNotNull(holdResults.get(1).getSeatHold());
+        assertNotNull(ticketService.reserveSeats(first.getId(), EMAIL));
+        assertNotNull(ticketService.findAndHoldSeats(2, EMAIL));
+        assertEquals(venue.getNumSeatsAvailable(), venue.getCapacity() - 8);
+    }
+
+    @Test
+    public void testFindHolds() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, 5);
+        SeatHold first = ticketService.findAndHoldSeats(1, EMAIL);
+        SeatHold second = ticketService.findAndHoldSeats(2, EMAIL);
+        ticketService.findAndHoldSeats(1, "other@acme.com");
+        ticketService.reserveSeats(first.getId(), EMAIL);
+
+        // when
+        List<SeatHold> seatHolds = ticketService.findHolds(EMAIL.toUpperCase());
+
+        // then
+        assertEquals(seatHolds.size(), 1);
+        assertEquals(seatHolds.get(0).getId(), second.getId());
+        assertEquals(seatHolds.get(0).getSeats().size(), 2);
+        assertTrue(ticketService.findHolds("nobody@acme.com").isEmpty());
+    }
+
+    @Test
+    public void testCancelHold() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, 5);
+        SeatHold seatHold = ticketService.findAndHoldSeats(2, EMAIL);
+        long cancelledHolds = TicketingMetrics.HOLDS_CANCELLED.sum();
+
+        // when
+        assertFalse(ticketService.cancelHold(seatHold.getId(), "other@acme.com"));
+        boolean cancelled = ticketService.cancelHold(seatHold.getId(), EMAIL);
+
+        // then
+        assertTrue(cancelled);
+        assertTrue(TicketingMetrics.HOLDS_CANCELLED.sum() > cancelledHolds);
+        assertFalse(ticketService.cancelHold(seatHold.getId(), EMAIL));
+        assertNull(ticketService.reserveSeats(seatHold.getId(), EMAIL));
+        assertEquals(ticketService.numSeatsAvailable(), venue.getCapacity());
+    }
+
+    @Test
+    public void testWaitlist() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, 5);
+        ticketService.enableWaitlist(10, 60000);
+        SeatHold first = ticketService.findAndHoldSeats(3, EMAIL);
+        SeatHold second = ticketService.findAndHoldSeats(6, EMAIL);
+        WaitlistTicket large = ticketService.joinWaitlist(4, "large@acme.com");
+        WaitlistTicket small = ticketService.joinWaitlist(1, "small@acme.com");
+
+        // when
+        ticketService.cancelHold(first.getId(), EMAIL);
+        WaitlistTicket.Status statusAfterFirst = ticketService.findWaitlistTicket(small.getId()).getStatus();
+        ticketService.cancelHold(second.getId(), EMAIL);
+
+        // then
+        // served in order, the small request does not pass the large one
+        assertEquals(statusAfterFirst, WaitlistTicket.Status.WAITING);
+        assertEquals(ticketService.findWaitlistTicket(large.getId()).getStatus(), WaitlistTicket.Status.HELD);
+        assertEquals(large.getSeatHold().getSeats().size(), 4);
+        assertEquals(small.getStatus(), WaitlistTicket.Status.HELD);
+        assertEquals(ticketService.findHolds("small@acme.com").get(0).getId(), small.getSeatHold().getId());
+        assertNotNull(ticketService.reserveSeats(large.getSeatHold().getId(), "large@acme.com"));
+        assertEquals(ticketService.numSeatsAvailable(), 4);
+    }
+
+    @Test
+    public void testWaitlistHeldAtOnce() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, 5);
+        ticketService.enableWaitlist(10, 60000);
+
+        // when
+        WaitlistTicket ticket = ticketService.joinWaitlist(2, EMAIL);
+
+        // then
+        assertEquals(ticket.getStatus(), WaitlistTicket.Status.HELD);
+        assertEquals(ticket.getSeatHold().getSeats().size(), 2);
+        assertNull(ticketService.findWaitlistTicket("unknown"));
+    }
+
+    @Test
+    public void testWaitlistExpiry() throws Exception {
+        // given
+        Venue venue = createVenue();
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, 5);
+        ticketService.enableWaitlist(1, 50);
+        ticketService.findAndHoldSeats(venue.getCapacity(), EMAIL);
+        WaitlistTicket ticket = ticketService.joinWaitlist(1, EMAIL);
+
+        // when
+        assertThrows(TicketSystemBusyException.class, () -> ticketService.joinWaitlist(1, EMAIL));
+        Thread.sleep(100);
+
+        // then
+        assertEquals(ticketService.findWaitlistTicket(ticket.getId()).getStatus(), WaitlistTicket.Status.EXPIRED);
+        assertEquals(ticketService.joinWaitlist(1, EMAIL).getStatus(), WaitlistTicket.Status.WAITING);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testWaitlistDisabled() throws Exception {
+        // given
+        TicketServiceImpl ticketService = new TicketServiceImpl(createVenue(), 5);
+
+        // when
+        ticketService.joinWaitlist(1, EMAIL);
+    }
+
     private Venue createVenue() {
         Venue venue = new Venue(3, 3, 1, 2, 0, 3);
         venue.init();